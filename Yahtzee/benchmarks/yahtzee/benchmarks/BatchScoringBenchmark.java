@@ -0,0 +1,91 @@
+/**
+ * File: BatchScoringBenchmark.java
+ * --------------------------------
+ * This file measures the scoring of a batch of random hands for every
+ * scoring category: by the batch scorer with the kernel it loads(the
+ * Vector API kernel, as the fork adds the module jdk.incubator.vector),
+ * by its scalar kernel, and one hand and one category at a time as
+ * YahtzeeScorer.getScore does. An operation scores the whole batch, so
+ * divide by N_HANDS for the time of a hand. The fork needs Java 16 or later.
+ */
+
+package yahtzee.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class BatchScoringBenchmark {
+
+
+	@Setup
+	public void setUp() throws Throwable {
+		SplittableRandom random = new SplittableRandom(SEED);
+		int[] hand = new int[N_DICE];
+		for (int i = 0; i < N_HANDS; i++) {
+			for (int j = 0; j < N_DICE; j++) {
+				hand[j] = random.nextInt(N_FACES) + 1;
+			}
+			counts[i] = (int) GameHandles.COUNT_FACES.invokeExact(hand);
+		}
+		scalar = GameHandles.getStatic("YahtzeeBatchScorer", "SCALAR");
+	}
+
+
+	/** The batch scored by the kernel loaded by the batch scorer. */
+	@Benchmark
+	public int[] batch() throws Throwable {
+		GameHandles.BATCH_GET_SCORES.invokeExact(counts, 0, N_HANDS, scores);
+		return scores;
+	}
+
+
+	/** The batch scored by the scalar kernel, one hand at a time. */
+	@Benchmark
+	public int[] batchScalar() throws Throwable {
+		GameHandles.KERNEL_GET_SCORES.invokeExact(scalar, counts, 0, N_HANDS, scores, 0, N_HANDS);
+		return scores;
+	}
+
+
+	/** The batch scored one hand and one category at a time from the rules. */
+	@Benchmark
+	public int[] perHand() throws Throwable {
+		for (int i = 0; i < N_HANDS; i++) {
+			for (int k = 0; k < CATEGORIES.length; k++) {
+				scores[k * N_HANDS + i] = (int) GameHandles.COMPUTE_SCORE.invokeExact(counts[i], CATEGORIES[k]);
+			}
+		}
+		return scores;
+	}
+
+
+	private static final long SEED = 17;
+	private static final int N_HANDS = 4096;
+	private static final int N_DICE = 5;
+	private static final int N_FACES = 6;
+
+	/** ONES to SIXES and THREE_OF_A_KIND to CHANCE */
+	private static final int[] CATEGORIES = {1, 2, 3, 4, 5, 6, 9, 10, 11, 12, 13, 14, 15};
+
+	private final int[] counts = new int[N_HANDS];
+	private final int[] scores = new int[CATEGORIES.length * N_HANDS];
+	private Object scalar;
+}
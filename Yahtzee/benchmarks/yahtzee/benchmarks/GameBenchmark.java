@@ -0,0 +1,71 @@
+/**
+ * File: GameBenchmark.java
+ * ------------------------
+ * This file measures playing a complete headless game with the greedy
+ * strategy and with the optimal strategy. The optimal strategy maps the
+ * value table file given by the "valuesFile" parameter, which is solved
+ * and written first if it does not exist.
+ */
+
+package yahtzee.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+
+
+	@Param("yahtzee-values.bin")
+	public String valuesFile;
+
+
+	@Setup
+	public void setUp() {
+		greedyStrategy = GameHandles.newInstance("YahtzeeGreedyStrategy");
+		optimalStrategy = GameHandles.openStrategyTable(new File(valuesFile));
+		statistics = GameHandles.newInstance("YahtzeeStatistics");
+	}
+
+
+	@Benchmark
+	public int playGreedyGame() throws Throwable {
+		return (int) GameHandles.PLAY_GAME.invokeExact(rules, greedyStrategy, random, dice, categoryScores, statistics);
+	}
+
+
+	@Benchmark
+	public int playOptimalGame() throws Throwable {
+		return (int) GameHandles.PLAY_GAME.invokeExact(rules, optimalStrategy, random, dice, categoryScores, statistics);
+	}
+
+
+	private static final int N_DICE = 5;
+	private static final int N_SCORING_CATEGORIES = 13;
+
+	private final Object rules = GameHandles.getStatic("YahtzeeRules", "STANDARD");
+	private final Object random = GameHandles.newDice(17);
+	private final int[] dice = new int[N_DICE];
+	private final int[] categoryScores = new int[N_SCORING_CATEGORIES];
+	private Object greedyStrategy;
+	private Object optimalStrategy;
+	private Object statistics;
+}
@@ -0,0 +1,200 @@
+/**
+ * File: GameHandles.java
+ * ----------------------
+ * JMH only runs benchmarks which are in a named package, but the classes
+ * of the game are in the default package, which can not be imported.
+ * This file looks the methods of the game up once as method handles.
+ * They are held in static final fields, so the JIT compiler treats them
+ * as constants and inlines the calls like direct calls.
+ */
+
+package yahtzee.benchmarks;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+
+final class GameHandles {
+
+
+	/** The handles only have static fields, so they are never constructed. */
+	private GameHandles() { }
+
+
+	/**
+	 * This method returns a static method of a class of the game.
+	 *
+	 * @param 	className 		A string, the name of the class.
+	 * @param 	methodName 		A string, the name of the method.
+	 * @param 	returnType 		The return type of the method.
+	 * @param 	parameterTypes 	The parameter types of the method.
+	 * @return 	MethodHandle
+	 */
+	private static MethodHandle findStatic(String className, String methodName, Class<?> returnType,
+										   Class<?>... parameterTypes) {
+		try {
+			return MethodHandles.publicLookup().findStatic(Class.forName(className), methodName,
+														   MethodType.methodType(returnType, parameterTypes));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+
+	/**
+	 * This method returns a static method of a class of the game whose parameters
+	 * of game types are replaced by Object, so it can be invoked from this package.
+	 *
+	 * @param 	className 		A string, the name of the class.
+	 * @param 	methodName 		A string, the name of the method.
+	 * @param 	returnType 		The return type of the method.
+	 * @param 	parameterTypes 	The parameter types of the method, by name for game types.
+	 * @return 	MethodHandle
+	 */
+	private static MethodHandle findStaticErased(String className, String methodName, Class<?> returnType,
+												 Object... parameterTypes) {
+		try {
+			Class<?>[] types = new Class<?>[parameterTypes.length];
+			Class<?>[] erased = new Class<?>[parameterTypes.length];
+			for (int i = 0; i < parameterTypes.length; i++) {
+				if (parameterTypes[i] instanceof String) {
+					types[i] = Class.forName((String) parameterTypes[i]);
+					erased[i] = Object.class;
+				} else {
+					types[i] = (Class<?>) parameterTypes[i];
+					erased[i] = types[i];
+				}
+			}
+			MethodHandle handle = MethodHandles.publicLookup().findStatic(Class.forName(className), methodName,
+																		  MethodType.methodType(returnType, types));
+			return handle.asType(MethodType.methodType(returnType, erased));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+
+	/**
+	 * This method returns an instance method of a class of the game whose receiver
+	 * is replaced by Object, so it can be invoked from this package.
+	 *
+	 * @param 	className 		A string, the name of the class.
+	 * @param 	methodName 		A string, the name of the method.
+	 * @param 	returnType 		The return type of the method.
+	 * @param 	parameterTypes 	The parameter types of the method.
+	 * @return 	MethodHandle
+	 */
+	private static MethodHandle findVirtualErased(String className, String methodName, Class<?> returnType,
+												  Class<?>... parameterTypes) {
+		try {
+			MethodHandle handle = MethodHandles.publicLookup().findVirtual(Class.forName(className), methodName,
+																		   MethodType.methodType(returnType, parameterTypes));
+			return handle.asType(handle.type().changeParameterType(0, Object.class));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+
+	/**
+	 * This method returns a public static field of a class of the game.
+	 *
+	 * @param 	className 	A string, the name of the class.
+	 * @param 	fieldName 	A string, the name of the field.
+	 * @return 	Object
+	 */
+	static Object getStatic(String className, String fieldName) {
+		try {
+			return Class.forName(className).getField(fieldName).get(null);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+
+	/**
+	 * This method creates the dice of the game(see YahtzeeDice) with a seed.
+	 *
+	 * @param 	seed 	A long, the seed of the dice.
+	 * @return 	Object
+	 */
+	static Object newDice(long seed) {
+		try {
+			return Class.forName("YahtzeeDice").getConstructor(long.class).newInstance(seed);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+
+	/**
+	 * This method creates an object of a class of the game with its public no-argument constructor.
+	 *
+	 * @param 	className 	A string, the name of the class.
+	 * @return 	Object
+	 */
+	static Object newInstance(String className) {
+		try {
+			return Class.forName(className).getConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+
+	/**
+	 * This method maps the value table of the optimal strategy, solving the
+	 * game first if the file does not exist(see YahtzeeStrategyTable.open).
+	 *
+	 * @param 	file 	The file of the value table.
+	 * @return 	Object 	The YahtzeeStrategyTable.
+	 */
+	static Object openStrategyTable(File file) {
+		try {
+			return Class.forName("YahtzeeStrategyTable").getMethod("open", File.class).invoke(null, file);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+
+	/** YahtzeeScorer.countFaces(int[]) */
+	static final MethodHandle COUNT_FACES = findStatic("YahtzeeScorer", "countFaces", int.class, int[].class);
+
+	/** YahtzeeScorer.isFullHouse(int) */
+	static final MethodHandle IS_FULL_HOUSE = findStatic("YahtzeeScorer", "isFullHouse", boolean.class, int.class);
+
+	/** YahtzeeScorer.isSmallStraight(int) */
+	static final MethodHandle IS_SMALL_STRAIGHT = findStatic("YahtzeeScorer", "isSmallStraight", boolean.class, int.class);
+
+	/** YahtzeeScorer.isLargeStraight(int) */
+	static final MethodHandle IS_LARGE_STRAIGHT = findStatic("YahtzeeScorer", "isLargeStraight", boolean.class, int.class);
+
+	/** YahtzeeScorer.getScore(int, int), which computes the score from the rules */
+	static final MethodHandle COMPUTE_SCORE = findStatic("YahtzeeScorer", "getScore", int.class, int.class, int.class);
+
+	/** YahtzeeScorer.getScore(int[], int), which looks the score up in the table of hands */
+	static final MethodHandle GET_SCORE = findStatic("YahtzeeScorer", "getScore", int.class, int[].class, int.class);
+
+	/** YahtzeeScorer.getScores(int[], int[]) */
+	static final MethodHandle GET_SCORES = findStatic("YahtzeeScorer", "getScores", void.class, int[].class, int[].class);
+
+	/** YahtzeeBatchScorer.getScores(int[], int, int, int[]), which scores with the loaded kernel */
+	static final MethodHandle BATCH_GET_SCORES = findStatic("YahtzeeBatchScorer", "getScores", void.class, int[].class,
+															int.class, int.class, int[].class);
+
+	/** YahtzeeBatchScorer.Kernel.getScores(int[], int, int, int[], int, int) */
+	static final MethodHandle KERNEL_GET_SCORES = findVirtualErased("YahtzeeBatchScorer$Kernel", "getScores", void.class,
+																	int[].class, int.class, int.class, int[].class,
+																	int.class, int.class);
+
+	/** YahtzeeDice.roll(int[]) */
+	static final MethodHandle ROLL_DICE = findVirtualErased("YahtzeeDice", "roll", void.class, int[].class);
+
+	/** YahtzeeSimulator.playGame(YahtzeeRules, YahtzeeStrategy, YahtzeeDice, int[], int[], YahtzeeStatistics) */
+	static final MethodHandle PLAY_GAME = findStaticErased("YahtzeeSimulator", "playGame", int.class,
+														   "YahtzeeRules", "YahtzeeStrategy", "YahtzeeDice", int[].class,
+														   int[].class, "YahtzeeStatistics");
+}
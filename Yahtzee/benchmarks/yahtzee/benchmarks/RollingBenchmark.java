@@ -0,0 +1,67 @@
+/**
+ * File: RollingBenchmark.java
+ * ---------------------------
+ * This file measures rolling all the dice with the dice of the game(see
+ * YahtzeeDice), with a SplittableRandom, and with a java.util.Random like
+ * the RandomGenerator of the ACM library which the game used to roll with.
+ */
+
+package yahtzee.benchmarks;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RollingBenchmark {
+
+
+	@Benchmark
+	public int[] rollYahtzeeDice() throws Throwable {
+		GameHandles.ROLL_DICE.invokeExact(yahtzeeDice, dice);
+		return dice;
+	}
+
+
+	@Benchmark
+	public int[] rollSplittableRandom() {
+		for (int i = 0; i < N_DICE; i++) {
+			dice[i] = splittableRandom.nextInt(N_FACES) + 1;
+		}
+		return dice;
+	}
+
+
+	@Benchmark
+	public int[] rollRandom() {
+		for (int i = 0; i < N_DICE; i++) {
+			dice[i] = random.nextInt(N_FACES) + 1;
+		}
+		return dice;
+	}
+
+
+	private static final int N_DICE = 5;
+	private static final int N_FACES = 6;
+
+	private final Object yahtzeeDice = GameHandles.newDice(17);
+	private final SplittableRandom splittableRandom = new SplittableRandom(17);
+	private final Random random = new Random(17);
+	private final int[] dice = new int[N_DICE];
+}
@@ -0,0 +1,116 @@
+/**
+ * File: ScoringBenchmark.java
+ * ---------------------------
+ * This file measures the detection of categories and the computation of
+ * scores, over a fixed set of random hands so that branches are not predictable.
+ * Run with "-prof gc" to see that scoring allocates nothing.
+ */
+
+package yahtzee.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScoringBenchmark {
+
+
+	@Setup
+	public void setUp() throws Throwable {
+		SplittableRandom random = new SplittableRandom(SEED);
+		for (int i = 0; i < N_HANDS; i++) {
+			for (int j = 0; j < N_DICE; j++) {
+				hands[i][j] = random.nextInt(N_FACES) + 1;
+			}
+			counts[i] = (int) GameHandles.COUNT_FACES.invokeExact(hands[i]);
+			categories[i] = CATEGORIES[random.nextInt(CATEGORIES.length)];
+		}
+	}
+
+
+	/** Advances to the next hand of the set. */
+	private int nextHand() {
+		next = (next + 1) & (N_HANDS - 1);
+		return next;
+	}
+
+
+	@Benchmark
+	public int countFaces() throws Throwable {
+		return (int) GameHandles.COUNT_FACES.invokeExact(hands[nextHand()]);
+	}
+
+
+	@Benchmark
+	public boolean isFullHouse() throws Throwable {
+		return (boolean) GameHandles.IS_FULL_HOUSE.invokeExact(counts[nextHand()]);
+	}
+
+
+	@Benchmark
+	public boolean isSmallStraight() throws Throwable {
+		return (boolean) GameHandles.IS_SMALL_STRAIGHT.invokeExact(counts[nextHand()]);
+	}
+
+
+	@Benchmark
+	public boolean isLargeStraight() throws Throwable {
+		return (boolean) GameHandles.IS_LARGE_STRAIGHT.invokeExact(counts[nextHand()]);
+	}
+
+
+	/** The score computed from the rules, as done when the table of hands is built. */
+	@Benchmark
+	public int computeScore() throws Throwable {
+		int hand = nextHand();
+		return (int) GameHandles.COMPUTE_SCORE.invokeExact(counts[hand], categories[hand]);
+	}
+
+
+	/** The score of the dice looked up in the table of hands, as done by the game. */
+	@Benchmark
+	public int getScore() throws Throwable {
+		int hand = nextHand();
+		return (int) GameHandles.GET_SCORE.invokeExact(hands[hand], categories[hand]);
+	}
+
+
+	/** The scores of all the categories looked up in the table of hands. */
+	@Benchmark
+	public int[] getScores() throws Throwable {
+		GameHandles.GET_SCORES.invokeExact(hands[nextHand()], scores);
+		return scores;
+	}
+
+
+	private static final long SEED = 17;
+	private static final int N_HANDS = 1024;
+	private static final int N_DICE = 5;
+	private static final int N_FACES = 6;
+
+	/** ONES to SIXES and THREE_OF_A_KIND to CHANCE */
+	private static final int[] CATEGORIES = {1, 2, 3, 4, 5, 6, 9, 10, 11, 12, 13, 14, 15};
+
+	private final int[][] hands = new int[N_HANDS][N_DICE];
+	private final int[] counts = new int[N_HANDS];
+	private final int[] categories = new int[N_HANDS];
+	private final int[] scores = new int[CATEGORIES.length];
+	private int next;
+}
@@ -7,10 +7,15 @@
  */
 
 
-import java.util.Arrays;
+import java.awt.EventQueue;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import acm.io.*;
 import acm.program.*;
-import acm.util.*;
 
 
 /** 
@@ -21,7 +26,8 @@ import acm.util.*;
  * @since 13-01-2015
  */
 @SuppressWarnings("serial")
-public class Yahtzee extends GraphicsProgram implements YahtzeeConstants {
+public class Yahtzee extends GraphicsProgram
+					 implements YahtzeeConstants, YahtzeeGameListener, YahtzeeDisplay.InputListener {
 	
 	
 	public static void main(String[] args) {
@@ -30,395 +36,476 @@ public class Yahtzee extends GraphicsProgram implements YahtzeeConstants {
 	
 	
 	/** 
-	 * The game starts here. It asks about number of players and their names.
-	 * creates setup for the game and calls "playGame" method.
+	 * The game starts here. It offers to resume the game saved when the program
+	 * last stopped, otherwise it asks about number of players and their names.
+	 * The game is played with the rules named by the system property
+	 * "yahtzee.rules"(see YahtzeeRules.forName), the standard rules by default.
+	 * The game is started on the event thread. From then on the game is driven
+	 * by the clicks of the players, so no thread waits for them. The phases of
+	 * the turns are timed into the metrics of the process(see YahtzeeMetrics).
 	 */
 	public void run() {
+		final YahtzeeSnapshot snapshot = readSnapshot();
+		if (snapshot != null && getDialog().readBoolean("Resume the saved game?")) {
+			playerNames = snapshot.getPlayerNames();
+			nPlayers = playerNames.length;
+			readBots();
+			EventQueue.invokeLater(new Runnable() {
+				public void run() {
+					resumeGame(snapshot);
+				}
+			});
+		} else {
+			readPlayers();
+			EventQueue.invokeLater(new Runnable() {
+				public void run() {
+					playGame();
+				}
+			});
+		}
+		loadHints();
+	}
+	
+	
+	/** 
+	 * This method asks about number of players and their names.
+	 */
+	private void readPlayers() {
 		IODialog dialog;
 		while(true) {
 			dialog = getDialog();
 			nPlayers = dialog.readInt("Enter number of players(not greater than " + MAX_PLAYERS + "):");
-			if (nPlayers <= MAX_PLAYERS) break;
+			if (nPlayers >= 1 && nPlayers <= MAX_PLAYERS) break;
 		}
 		playerNames = new String[nPlayers];
 		for (int i = 1; i <= nPlayers; i++) {
 			playerNames[i - 1] = dialog.readLine("Enter name for player " + i);
 		}
-		display = new YahtzeeDisplay(getGCanvas(), playerNames);
-		playGame();
+		readBots();
 	}
 	
 	
-	/**
-	 * This method plays a complete game.
+	/** 
+	 * This method asks which players are played by the computer.
 	 */
-	private void playGame() {
-		scorecard = new int[N_CATEGORIES][nPlayers];
-		selectedCategories = new boolean[N_SCORING_CATEGORIES][nPlayers];
-		int roundNo = 1;
-		while(roundNo <= N_ROUNDS) {
-			int player = 1;
-			while (player <= nPlayers) {
-				firstRoll(player);
-				nextTwoRolls(player); 
-				int category = selectCategory(player);
-				int score = 0;
-				if (diceMatchesCategory(category))
-					score = getScore(category);
-				setScores(player, category, score);
-				player++;
+	private void readBots() {
+		IODialog dialog = getDialog();
+		players = new YahtzeePlayer[nPlayers];
+		allBots = true;
+		for (int i = 0; i < nPlayers; i++) {
+			if (dialog.readBoolean("Is " + playerNames[i] + " played by the computer?")) {
+				players[i] = YahtzeePlayer.bot(playerNames[i], botStrategy);
+			} else {
+				players[i] = YahtzeePlayer.human(playerNames[i]);
+				allBots = false;
 			}
-			roundNo++; 
 		}
-		
-		giveBonus();
-		display.printMessage("Winner: " + getWinner());
 	}
 	
 	
 	/** 
-	 * This method rolls the dice for the first time.
+	 * This method returns the snapshot of the unfinished game saved when the
+	 * program last stopped, or null if there is none.
 	 * 
-	 * @param 	player 		An integer representing the player.    
-	 */	
-	private void firstRoll(int player) {
-		display.printMessage(playerNames[player-1] + ", Roll the dice!");
-		display.waitForPlayerToClickRoll(player);
-		for (int i = 0; i < N_DICE; i++) {
-			dice[i] = rgen.nextInt(ONES, SIXES);
+	 * @return 	YahtzeeSnapshot
+	 */
+	private YahtzeeSnapshot readSnapshot() {
+		File file = new File(SNAPSHOT_FILE);
+		if (!file.exists())
+			return null;
+		try {
+			YahtzeeSnapshot snapshot = YahtzeeSnapshot.read(file);
+			YahtzeeGame.Phase phase = snapshot.resume(rules, rgen, this).getPhase();
+			if (phase == YahtzeeGame.Phase.NOT_STARTED || phase == YahtzeeGame.Phase.GAME_OVER)
+				return null;
+			return snapshot;
+		} catch (IOException e) {
+			println("The saved game can not be read: " + e.getMessage());
+		} catch (IllegalArgumentException e) {
+			println("The saved game can not be resumed: " + e.getMessage());
 		}
-		display.displayDice(dice);
+		return null;
 	}
 	
 	
-	/** 
-	 * This method gives the two chances after the first roll.
-	 * During each chance it asks to select the dice, the player
-	 * wants to reroll and rolls them after clicking on the 
-	 * "Roll Dice" button.
+	/**
+	 * This method returns the rules named by the system property "yahtzee.rules",
+	 * or the standard rules if there is none or it names rules which are not
+	 * played with the dice of the UI.
 	 * 
-	 * @param 	player 		An integer representing the player.
+	 * @return 	YahtzeeRules
 	 */
-	private void nextTwoRolls(int player) {
-		for (int i = 0; i < N_CHANCES; i++) {
-			display.printMessage(playerNames[player-1] + ", select the dice and reroll.");
-			display.waitForPlayerToSelectDice();
-			for (int j = 0; j < N_DICE; j++) {
-				if (display.isDieSelected(j))
-					dice[j] = rgen.nextInt(ONES, SIXES);
-			}
-			display.displayDice(dice);
+	private static YahtzeeRules readRules() {
+		String name = System.getProperty(RULES_PROPERTY);
+		if (name == null)
+			return YahtzeeRules.STANDARD;
+		try {
+			YahtzeeRules rules = YahtzeeRules.forName(name);
+			if (rules.hasStandardDice())
+				return rules;
+			System.err.println("The game is played with " + N_DICE + " dice of " + N_FACES + " faces: " + name);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
 		}
+		return YahtzeeRules.STANDARD;
 	}
 	
 	
 	/**
-	 * This method asks to select a category and returns it.
+	 * This method returns the dice of the game, rolled from the seed given by
+	 * the system property "yahtzee.seed", or from a seed of their own. The seed
+	 * is printed, so that the game can be replayed with the same dice.
 	 * 
-	 * @param 	player 	An integer representing the player.
-	 * @return 	int  
-	 */	
-	private int selectCategory(int player) {
-		display.printMessage(playerNames[player-1] + ", select a category.");
-		
-		while (true) {
-			int category = display.waitForPlayerToSelectCategory();
-			int index = 0;
-			
-			if (category < UPPER_SCORE)
-				index = 1;
-			else 
-				index = 3;
-			
-			if (!selectedCategories[category-index][player-1]) {
-				selectedCategories[category-index][player-1] = true;
-				return category;
-			} else {
-				display.printMessage(playerNames[player-1] + ", that category has already been selected. "
-															+ "please choose another one.");
+	 * @return 	YahtzeeDice
+	 */
+	private static YahtzeeDice readDice() {
+		String seed = System.getProperty(SEED_PROPERTY);
+		YahtzeeDice dice = new YahtzeeDice();
+		if (seed != null) {
+			try {
+				dice = new YahtzeeDice(Long.parseLong(seed));
+			} catch (NumberFormatException e) {
+				System.err.println("Not a seed: " + seed);
 			}
 		}
+		System.out.println("The dice are rolled from the seed " + dice.getSeed()
+						   + "(-D" + SEED_PROPERTY + "=" + dice.getSeed() + " rolls them again).");
+		return dice;
 	}
 	
 	
 	/**
-	 * This method returns true if the selected category matches
-	 * the dice configuration otherwise returns false.
-	 * 
-	 * @param 	category 	A static constant integer representing the selected category.
-	 * @return boolean
-	 */	
-	private boolean diceMatchesCategory(int category) {
-		
-		countOfFaces = countOccurences();
-		
-		boolean selection = true;
-		
-		if (category == THREE_OF_A_KIND)
-			selection = isThreeOfAKind();
-		else if (category == FOUR_OF_A_KIND)
-			selection = isFourOfAKind();
-		else if (category == FULL_HOUSE)
-			selection = isFullHouse();
-		else if (category == SMALL_STRAIGHT)
-			selection = isSmallStraight();
-		else if (category == LARGE_STRAIGHT)
-			selection = isLargeStraight();
-		else if (category == YAHTZEE)
-			selection = isYahtzee(); 
-		
-	    return selection;
+	 * This method loads the value table of the optimal strategy, which gives
+	 * the hints. If the table file does not exist yet, the game is solved
+	 * first, which takes a few seconds; the game is played without hints
+	 * until then, or altogether if the table can not be loaded. When bots
+	 * play against other players, the win strategy is then built from the
+	 * table and the second moments, which are solved the first time and
+	 * saved next to the table.
+	 */
+	private void loadHints() {
+		final YahtzeeStrategyTable table;
+		try {
+			table = YahtzeeStrategyTable.open(rules, new File(rules.getValuesFile()));
+		} catch (IOException e) {
+			println("No hints: " + e.getMessage());
+			return;
+		}
+		EventQueue.invokeLater(new Runnable() {
+			public void run() {
+				hints = table;
+			}
+		});
+		if (nPlayers > 1 && hasBots()) {
+			try {
+				winStrategy = new YahtzeeWinStrategy(table, new File(rules.getMomentsFile()));
+			} catch (IOException e) {
+				println("The bots play for the expected score: " + e.getMessage());
+			}
+		}
 	}
 	
 	
-	/** 
-	 * This method returns an array of integers
-	 * which stores the occurence of each face. 
-	 * for example: if the dice has values -  2, 4, 4, 5, 3
-	 * then the returned array will have values - 0, 1, 1, 2, 1, 0
-	 * It means that 1 occurs 0 time, 2 occurs 1 time,
-	 * 3 occurs 1 time, 4 occurs 2 times, 5 occurs 1 time and
-	 * 6 occurs 0 time.
+	/**
+	 * This method returns true if any player is a bot otherwise returns false.
 	 * 
-	 * @return int[]     
+	 * @return 	boolean
 	 */
-	private int[] countOccurences() {
-		int[] countsOfFaces = new int[N_FACES];
-		for (int i = 0; i < N_DICE; i++) {
-			countsOfFaces[dice[i] - 1]++;
+	private boolean hasBots() {
+		for (int i = 0; i < nPlayers; i++) {
+			if (players[i].isBot())
+				return true;
 		}
-		return countsOfFaces;
+		return false;
 	}
 	
 	
-	/** 
-	 * This method returns true if the dice configuration is
-	 * three of a kind otherwise returns false.
-	 * 
-	 * @return boolean
+	/**
+	 * This method creates the UI and the game and starts the first turn.
+	 * It is called on the event thread, where all the clicks are handled.
 	 */
-	private boolean isThreeOfAKind() {
-	   for (int i = 0; i < N_FACES; i++) {
-			if (countOfFaces[i] >= 3)
-				return true;
-	   }
-	   return false;
-	}	
-	 
+	private void playGame() {
+		driver = newDriver(openLog());
+		game = new YahtzeeGame(nPlayers, rules, rgen, YahtzeeMetrics.get().newTimer(driver));
+		driver.setGame(game);
+		display = new YahtzeeDisplay(getGCanvas(), playerNames, this);
+		driver.setDisplay(display);
+		if (allBots)
+			display.beginUpdate();
+		game.start();
+	}
 	
-	/** 
-	 * This method returns true if the dice configuration is
-	 * four of a kind otherwise returns false.
+	
+	/**
+	 * This method returns the driver of the bots, which is the listener of the
+	 * game. The bots take their decisions on a thread of their own and play
+	 * them on the event thread; when every player is a bot, they play without
+	 * any delay and the UI is only repainted at the end of the game.
 	 * 
-	 * @return boolean
+	 * @param 	listener 			The listener which gets the events of the game.
+	 * @return 	YahtzeeBotDriver
 	 */
-	private boolean isFourOfAKind() {
-	   for (int i = 0; i < N_FACES; i++) {
-			if (countOfFaces[i] >= 4)
-				return true;
-	   }
-	   return false;
+	private YahtzeeBotDriver newDriver(YahtzeeGameListener listener) {
+		ScheduledExecutorService bots = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "yahtzee-bots");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		Executor eventThread = new Executor() {
+			public void execute(Runnable runnable) {
+				EventQueue.invokeLater(runnable);
+			}
+		};
+		return new YahtzeeBotDriver(players, listener, eventThread, bots, allBots ? 0 : BOT_DELAY_MILLIS);
 	}
-		
 	
-	/** 
-	 * This method returns true if the dice configuration is
-	 * full house otherwise returns false.
+	
+	/**
+	 * This method creates the UI and the game in the state of a snapshot,
+	 * and shows the scores, the dice and the message of that state.
+	 * It is called on the event thread. A resumed game is not logged.
 	 * 
-	 * @return boolean
+	 * @param 	snapshot 	The snapshot of the game.
 	 */
-	private boolean isFullHouse() {
-		if (countOfFacesContains(2) && countOfFacesContains(3)) {
-			return true;
+	private void resumeGame(YahtzeeSnapshot snapshot) {
+		driver = newDriver(this);
+		game = snapshot.resume(rules, rgen, YahtzeeMetrics.get().newTimer(driver));
+		driver.setGame(game);
+		display = new YahtzeeDisplay(getGCanvas(), playerNames, this);
+		driver.setDisplay(display);
+		display.beginUpdate();
+		for (int player = 1; player <= nPlayers; player++) {
+			long state = game.getPlayerState(player);
+			for (int category = ONES; category <= CHANCE; category++) {
+				if (YahtzeeGame.isScoringCategory(category) && YahtzeePlayerState.isUsed(state, category))
+					categorySelected(player, category, game.getCategoryScore(player, category), state);
+			}
+		}
+		
+		int player = game.getPlayer();
+		if (game.getPhase() == YahtzeeGame.Phase.ROLLING) {
+			turnStarted(player);
+		} else {
+			int[] dice = new int[N_DICE];
+			for (int i = 0; i < N_DICE; i++) {
+				dice[i] = game.getDie(i);
+			}
+			display.highlightPlayer(player);
+			diceRolled(player, dice, game.getRollsLeft());
+			for (int i = 0; i < N_DICE; i++) {
+				if (game.isDieSelected(i))
+					dieSelected(i, true);
+			}
 		}
-		else return false;
+		display.endUpdate();
+		if (allBots)
+			display.beginUpdate();
+		driver.resume();
 	}
 	
 	
-	/** 
-	 * This method returns true if "countOfFaces" contains the number
-	 * "num" otherwise returns false.
+	/**
+	 * This method saves the game to the snapshot file, unless it is over.
+	 * It is called on the events of the game which leave it waiting for a
+	 * player, so the moves of the bots are saved like those of the humans;
+	 * when every player is a bot, only the start of each turn is saved. The
+	 * state is copied here and written by the snapshot writer, so the event
+	 * thread never waits for the disk.
+	 */
+	private void saveSnapshot() {
+		YahtzeeGame.Phase phase = game.getPhase();
+		if (phase == YahtzeeGame.Phase.GAME_OVER || (allBots && phase != YahtzeeGame.Phase.ROLLING))
+			return;
+		snapshots.save(YahtzeeSnapshot.encode(game, playerNames));
+	}
+	
+	
+	/**
+	 * This method opens the log of the games and returns the listener of the
+	 * game, which records the game before showing its events. If the log can
+	 * not be opened, the game is not recorded; neither are the games of other
+	 * rules than the standard rules, since the log does not tell the rules.
 	 * 
-	 * @param 	num 	An int, number between 1 and 6(both including).
-	 * @return boolean
+	 * @return 	YahtzeeGameListener
 	 */
-	private boolean countOfFacesContains(int num) {
-		for (int i = 0; i < N_FACES; i++) {
-			if (countOfFaces[i] == num)
-				return true;
+	private YahtzeeGameListener openLog() {
+		if (!rules.equals(YahtzeeRules.STANDARD))
+			return this;
+		try {
+			log = new YahtzeeGameLog(new File(LOG_FILE));
+			return log.newRecorder(nPlayers, this);
+		} catch (IOException e) {
+			println("The game is not logged: " + e.getMessage());
+			return this;
 		}
-		return false;
+	}
+	
+	
+	/* Input of the players, forwarded to the game unless a bot is playing */
+	
+	public void rollClicked() {
+		if (!isBotPlaying())
+			game.roll();
+	}
+	
+	
+	public void dieClicked(int die) {
+		if (!isBotPlaying())
+			game.toggleDie(die);
+	}
+	
+	
+	public void categoryClicked(int category) {
+		if (!isBotPlaying())
+			game.selectCategory(category);
 	}
 	
 	
 	/** 
-	 * This method returns true if dice configuration is
-	 * is small straight otherwise returns false.
-	 * 			 
-	 * @return boolean
+	 * This method returns true if the turn is the turn of a bot otherwise returns false.
+	 * 
+	 * @return 	boolean
 	 */
-	private boolean isSmallStraight() {
-		if (diceContains("1234"))
-			return true;
-		else if (diceContains("2345"))
-			return true;
-		else if (diceContains("3456"))
-			return true;
-		else return false;
+	private boolean isBotPlaying() {
+		return game.getPhase() != YahtzeeGame.Phase.GAME_OVER && driver.isBot(game.getPlayer());
 	}
 	
 	
+	/* Events of the game, shown on the UI */
+	
 	/** 
-	 * This method returns true if "dice" contains the integer "num"
-	 * i.e., the value of "num" has occurred atleast once after rolling 
-	 * the dice otherwise returns false.
+	 * This method asks the player to roll the dice for the first time.
 	 * 
-	 * @param 	num 	An int, number between 1 and 6(both including).
-	 * @return boolean
-	 */
-	private boolean diceContains(int num) {
-		for (int i = 0; i < N_DICE; i++) {
-			if (dice[i] == num) 
-				return true;
-		}
-		return false;		
+	 * @param 	player 		An integer representing the player.    
+	 */	
+	public void turnStarted(int player) {
+		display.startTurn(player);
+		display.printMessage(playerNames[player-1] + ", Roll the dice!");
+		saveSnapshot();
 	}
 	
 	
 	/** 
-	 * This method returns true if "dice" contains all the numbers in the
-	 * string "nums" i.e., all the numbers in the "sequence" has occurred
-	 * atleast once after rolling the dice otherwise returns false.
+	 * This method shows the rolled dice. While rerolls are left the player
+	 * selects the dice to reroll, otherwise the player selects a category.
 	 * 
-	 * @param 	nums 	A string of numeric letters representing the numbers on the dice.	 
-	 * @return boolean
+	 * @param 	player 		An integer representing the player.
+	 * @param 	dice 		An array of integers, the numbers on the dice.
+	 * @param 	rollsLeft 	An int, the number of rerolls left in the turn.
 	 */
-	private boolean diceContains(String nums) {
-		int length = nums.length();
-		for (int i = 0; i < length; i++) {
-			if (diceContains(Character.getNumericValue(nums.charAt(i))))
-				continue;
-			else return false;
+	public void diceRolled(int player, int[] dice, int rollsLeft) {
+		display.displayDice(dice);
+		if (rollsLeft > 0) {
+			display.printMessage(playerNames[player-1] + ", select the dice and reroll.");
+			if (!driver.isBot(player))
+				showHint(player, dice, rollsLeft);
+		} else {
+			display.printMessage(playerNames[player-1] + ", select a category.");
 		}
-		return true;
+		saveSnapshot();
 	}
 	
 	
 	/** 
-	 * This method returns true if dice configuration is 
-	 * a large straight otherwise returns false.
-	 * 			 
-	 * @return boolean
+	 * This method highlights the dice to hold which give the best expected
+	 * score, if the hints are loaded.
+	 * 
+	 * @param 	player 		An integer representing the player.
+	 * @param 	dice 		An array of integers, the numbers on the dice.
+	 * @param 	rollsLeft 	An int, the number of rerolls left in the turn.
 	 */
-	private boolean isLargeStraight() {
-		if (diceContains("12345"))
-			return true;
-		else if (diceContains("23456"))
-			return true;
-		else return false;
+	private void showHint(int player, int[] dice, int rollsLeft) {
+		if (hints == null)
+			return;
+		long state = game.getPlayerState(player);
+		int rerolls = hints.evaluateRerolls(state, dice, rollsLeft, rerollValues);
+		int heldDice = ((1 << N_DICE) - 1) & ~rerolls;
+		display.showHint(heldDice);
+		display.printMessage(playerNames[player-1] + ", select the dice and reroll. Hint: "
+							 + (heldDice == 0 ? "reroll all the dice" : "hold the yellow dice")
+							 + " (expected score " + Math.round(YahtzeePlayerState.getTotal(state)
+							 + rerollValues[rerolls]) + ").");
 	}
-
+	
 	
 	/** 
-	 * This method returns true if dice configuration is 
-	 * yahtzee otherwise returns false.
-	 * 			 
-	 * @return 	boolean
+	 * This method shows whether a die is selected. The selection of a bot is
+	 * not saved, since the bot rolls right after it and selects again on resume.
+	 * 
+	 * @param 	die 		An int, the index of the die.
+	 * @param 	selected 	A boolean, true if the die is selected.
 	 */
-	private boolean isYahtzee() {
-		if (countOfFacesContains(5))
-			return true;
-		else return false;
+	public void dieSelected(int die, boolean selected) {
+		display.showDieSelected(die, selected);
+		if (!driver.isBot(game.getPlayer()))
+			saveSnapshot();
 	}
-
+	
+	
+	public void categoryRejected(int player, int category) {
+		if (YahtzeePlayerState.isUsed(game.getPlayerState(player), category))
+			display.printMessage(playerNames[player-1] + ", that category has already been selected. "
+														+ "please choose another one.");
+		else
+			display.printMessage(playerNames[player-1] + ", the joker rule does not allow that category. "
+														+ "please choose another one.");
+	}
+	
 	
 	/** 
-	 * This method returns the score of the selected category.
+	 * This method updates the scores in the scorecard on the UI, in one repaint.
 	 * 
-	 * @param 	category 	An integer representing the selected category.              
-	 * @return 	int 		The score of the selected category. 
+	 * @param	player 		An int representing the player.
+	 * @param	category	A static constant representing a category.
+	 * @param 	score		An int, the score filled in the category.
+	 * @param 	state		A long, the new state of the player.
 	 */	
-	private int getScore(int category) {
+	public void categorySelected(int player, int category, int score, long state) {
 		
-		int score = 0;
+		display.beginUpdate();
+		display.updateScorecard(category, player, score);
 		
 		if (category < UPPER_SCORE) {
-			score = getScoreForUpperCategories(category);
-		} else if (category == THREE_OF_A_KIND ||
-				   category == FOUR_OF_A_KIND ||
-				   category == CHANCE) {
-			score = addAllNumbers();
-		} else if (category == FULL_HOUSE) {
-			score = FULL_HOUSE_SCORE;
-		} else if (category == SMALL_STRAIGHT) {
-			score = SMALL_STRAIGHT_SCORE;
-		} else if (category == LARGE_STRAIGHT) {
-			score = LARGE_STRAIGHT_SCORE;
-		} else if (category == YAHTZEE) {
-			score = YAHTZEE_SCORE;
+			display.updateScorecard(UPPER_SCORE, player, YahtzeePlayerState.getUpperScore(state));
+		} else {
+			display.updateScorecard(LOWER_SCORE, player, YahtzeePlayerState.getLowerScore(state));
 		}
 		
-		return score;
+		display.updateScorecard(TOTAL, player, YahtzeePlayerState.getUpperScore(state) +
+											   YahtzeePlayerState.getLowerScore(state));
+		display.endUpdate();
 	}
 	
 	
 	/** 
-	 * This method returns the score for upper categories.
-	 * If the selected categroy is "TWOS" then the score 
-	 * is sum of all the twos in the dice.
+	 * This method ends the game: it gives the bonuses and shows the winners.
 	 * 
-	 * @param 	category 	An integer representing the selected category.
-	 * @return 	int	  		The sum of all the category numbers. 
+	 * @param 	playerStates 	An array of longs, the final state of each player.
 	 */
-	private int getScoreForUpperCategories(int category) {
-		int score = 0;
-		for (int i = 0; i < N_DICE; i++) {
-			if (dice[i] == category)
-				score += dice[i];
-		}
-		return score;
+	public void gameOver(long[] playerStates) {
+		this.playerStates = playerStates;
+		giveBonus();
+		display.printMessage("Winner: " + getWinner());
+		if (allBots)
+			display.endUpdate();
+		snapshots.delete();
+		closeLog();
 	}
 	
-
-	/** 
-	 * This method returns the score by adding all
-	 * the numbers on the dice.
-	 * 
-	 * @return 	int 	The sum of all the numbers those have come up on the dice.
-	 */	
-	private int addAllNumbers() {
-		int score = 0;
-		for (int i = 0; i < N_DICE; i++)
-			score += dice[i];
-		return score;
-	}
 	
-
 	/** 
-	 * This method sets the scores in the "scorecard" array updates the scores in the 
-	 * scorecard on the UI.
-	 * 
-	 * @param	category	A static constant representing a category.
-	 * @param	player 		An int representing the player.
-	 * @param 	score		An int, the score to be filled.     
-	 */	
-	private void setScores(int player, int category, int score) {
-		
-		scorecard[category-1][player-1] = score;
-		display.updateScorecard(category, player, score);
-		
-		if (category < UPPER_SCORE) {
-			scorecard[UPPER_SCORE-1][player-1] += score;
-			display.updateScorecard(UPPER_SCORE, player, scorecard[UPPER_SCORE-1][player-1]);
-		} else {
-			scorecard[LOWER_SCORE-1][player-1] += score;
-			display.updateScorecard(LOWER_SCORE, player, scorecard[LOWER_SCORE-1][player-1]);
+	 * This method writes the recorded game to the log file and closes it.
+	 */
+	private void closeLog() {
+		if (log == null)
+			return;
+		try {
+			log.close();
+		} catch (IOException e) {
+			println("The game could not be logged: " + e.getMessage());
 		}
-		
-		scorecard[TOTAL-1][player-1] = scorecard[UPPER_SCORE-1][player-1] +
-                					   scorecard[LOWER_SCORE-1][player-1];
-		display.updateScorecard(TOTAL, player, scorecard[TOTAL-1][player-1]);
-
 	}
 	
 	
@@ -428,15 +515,15 @@ public class Yahtzee extends GraphicsProgram implements YahtzeeConstants {
 	 */	
 	private void giveBonus() {
 		
+		display.beginUpdate();
 		for (int player = 1; player <= nPlayers; player++) {
-			if (scorecard[UPPER_SCORE - 1][player - 1] >= MIN_UPPER_SCORE_TO_GET_UPPER_BONUS) {
-				scorecard[UPPER_BONUS - 1][player - 1] = UPPER_BONUS_SCORE;
-				display.updateScorecard(UPPER_BONUS, player, UPPER_BONUS_SCORE);
-				
-				scorecard[TOTAL - 1][player - 1] += scorecard[UPPER_BONUS - 1][player - 1];
-				display.updateScorecard(TOTAL, player, scorecard[TOTAL - 1][player - 1]);
+			long state = playerStates[player - 1];
+			if (YahtzeePlayerState.getUpperBonus(state) > 0) {
+				display.updateScorecard(UPPER_BONUS, player, YahtzeePlayerState.getUpperBonus(state));
+				display.updateScorecard(TOTAL, player, YahtzeePlayerState.getTotal(state));
 			}
 		}
+		display.endUpdate();
 	}
 	
 	
@@ -446,13 +533,14 @@ public class Yahtzee extends GraphicsProgram implements YahtzeeConstants {
 	 * @return String	Name of the winner of the game.
 	 */	
 	private String getWinner() {
-		int[] finalScores = scorecard[TOTAL-1].clone();
-		Arrays.sort(finalScores);
-		int winningScore = finalScores[nPlayers-1];
+		int winningScore = 0;
+		for (int player = 0; player < nPlayers; player++) {
+			winningScore = Math.max(winningScore, YahtzeePlayerState.getTotal(playerStates[player]));
+		}
 		
 		String winners = "";
 		for (int player = 0; player < nPlayers; player++) {
-			if (scorecard[TOTAL-1][player] == winningScore)
+			if (YahtzeePlayerState.getTotal(playerStates[player]) == winningScore)
 				winners = winners + " " + playerNames[player];
 		}
 		return winners;
@@ -461,6 +549,12 @@ public class Yahtzee extends GraphicsProgram implements YahtzeeConstants {
 	
 	/* Private instance variables */
 		
+	/** The name of the system property which names the rules */
+	private static final String RULES_PROPERTY = "yahtzee.rules";
+	
+	/** The rules of the game */
+	private final YahtzeeRules rules = readRules();
+		
 	/** An integer to store the number of players */
 	private int nPlayers;
 		
@@ -470,20 +564,84 @@ public class Yahtzee extends GraphicsProgram implements YahtzeeConstants {
 	/** An object which has all the methods to manage the UI */
 	private YahtzeeDisplay display;
 		
-	/** A Random generator to store random numbers in the "dice" array during Roll */
-	private RandomGenerator rgen = new RandomGenerator();
+	/** The name of the system property which gives the seed of the dice */
+	private static final String SEED_PROPERTY = "yahtzee.seed";
+	
+	/** The random dice which roll the dice of the game */
+	private final YahtzeeDice rgen = readDice();
+		
+	/** The game, which is driven by the clicks on the UI */
+	private YahtzeeGame game;
 		
-	/** An array to represent the dice */
-	private int[] dice = new int[N_DICE];
+	/** The log which records the game, null if it could not be opened */
+	private YahtzeeGameLog log;
+	
+	/** The file the games are logged to */
+	private static final String LOG_FILE = "yahtzee-games.log";
+	
+	/** The file the unfinished game is saved to */
+	private static final String SNAPSHOT_FILE = "yahtzee-snapshot.bin";
+	
+	/** The writer which saves the game to the snapshot file */
+	private final YahtzeeSnapshot.Writer snapshots = new YahtzeeSnapshot.Writer(new File(SNAPSHOT_FILE));
+		
+	/** The players, humans or bots */
+	private YahtzeePlayer[] players;
+	
+	/** It stores whether every player is a bot. */
+	private boolean allBots;
+	
+	/** The driver which plays the turns of the bots */
+	private YahtzeeBotDriver driver;
+	
+	/** The delay before each decision of a bot when humans play too, in milliseconds */
+	private static final long BOT_DELAY_MILLIS = 600;
+	
+	/** The optimal strategy which gives the hints, null until it is loaded */
+	private volatile YahtzeeStrategyTable hints;
+	
+	/** The strategy which plays the bots for the win against other players, null until it is built */
+	private volatile YahtzeeWinStrategy winStrategy;
+	
+	/** 
+	 * The strategy of the bots: the win strategy against other players once
+	 * it is built, otherwise the optimal strategy once it is loaded, and the
+	 * greedy strategy until then. It is called on the thread of the bots.
+	 */
+	private final YahtzeeMultiplayerStrategy botStrategy = new YahtzeeMultiplayerStrategy() {
+		
+		public int chooseRerolls(long playerState, int[] dice, int rollsLeft) {
+			YahtzeeStrategy strategy = (hints != null) ? hints : greedy;
+			return strategy.chooseRerolls(playerState, dice, rollsLeft);
+		}
+		
+		public int chooseCategory(long playerState, int[] dice) {
+			YahtzeeStrategy strategy = (hints != null) ? hints : greedy;
+			return strategy.chooseCategory(playerState, dice);
+		}
 		
-	/** A 2D array to store the scores */
-	private int[][] scorecard;
+		public int chooseRerolls(long playerState, long[] opponentStates, int[] dice, int rollsLeft) {
+			YahtzeeWinStrategy strategy = winStrategy;
+			if (strategy == null)
+				return chooseRerolls(playerState, dice, rollsLeft);
+			return strategy.chooseRerolls(playerState, opponentStates, dice, rollsLeft);
+		}
 		
-	/** A 2D array to keep track of selected categories */
-	private boolean[][] selectedCategories;
+		public int chooseCategory(long playerState, long[] opponentStates, int[] dice) {
+			YahtzeeWinStrategy strategy = winStrategy;
+			if (strategy == null)
+				return chooseCategory(playerState, dice);
+			return strategy.chooseCategory(playerState, opponentStates, dice);
+		}
+		
+		private final YahtzeeStrategy greedy = new YahtzeeGreedyStrategy(rules);
+	};
+	
+	/** The expected score of each subset of the dice to reroll, filled by the hints */
+	private double[] rerollValues = new double[1 << N_DICE];
 		
-	/** This array stores the number of occurences of each face after roll */
-	private int[] countOfFaces = new int[N_FACES];
+	/** The final state of each player: the used categories and the scores(see YahtzeePlayerState) */
+	private long[] playerStates;
 }
 
 
@@ -0,0 +1,188 @@
+/**
+ * File: YahtzeeBatchScorer.java
+ * -----------------------------
+ * This file scores many hands of the Yahtzee game at once, e.g. for
+ * Monte Carlo runs and for building tables. The hands are packed face
+ * counts(see YahtzeeScorer.countFaces) in an int array, and the scores
+ * are written by category, one row of scores per scoring category, so
+ * that a category is scored for many hands in a row.
+ *
+ * The scores are computed like YahtzeeScorer.getScore(int, int). With
+ * Java 16 or later and the module jdk.incubator.vector(run with
+ * "--add-modules jdk.incubator.vector"), the hands are scored by the
+ * Vector API kernel YahtzeeVectorScorer, several hands per instruction;
+ * otherwise, or with the system property "yahtzee.vector" set to false,
+ * by the scalar kernel of this file.
+ */
+
+
+public final class YahtzeeBatchScorer implements YahtzeeConstants {
+
+
+	/** The batch scorer only has static methods, so it is never constructed. */
+	private YahtzeeBatchScorer() { }
+
+
+	/** A kernel which scores a range of hands. */
+	public interface Kernel {
+
+		/**
+		 * Scores the hands from "from" to "to". The score of the category with
+		 * scoring index k(see YahtzeeScorer.toScoringIndex) of hand i is stored
+		 * at scores[k * stride + position + (i - from)].
+		 *
+		 * @param 	counts 		An array of integers, the packed face counts of the hands.
+		 * @param 	from 		An int, the index of the first hand.
+		 * @param 	to 			An int, the index after the last hand.
+		 * @param 	scores 		An array of integers to store the scores in.
+		 * @param 	position 	An int, the index in a row of scores of the first hand.
+		 * @param 	stride 		An int, the length of a row of scores.
+		 */
+		public void getScores(int[] counts, int from, int to, int[] scores, int position, int stride);
+	}
+
+
+	/**
+	 * This method packs the face counts of many hands whose dice follow each
+	 * other in an array, e.g. a batch of rolls(see YahtzeeDice.fill).
+	 *
+	 * @param 	dice 		An array of integers, the numbers on the dice, nDice per hand.
+	 * @param 	nDice 		An int, the number of dice of a hand.
+	 * @param 	counts 		An array of integers to store the packed face counts in.
+	 * @param 	nHands 		An int, the number of hands.
+	 */
+	public static void countFaces(int[] dice, int nDice, int[] counts, int nHands) {
+		for (int i = 0, die = 0; i < nHands; i++) {
+			int handCounts = 0;
+			for (int end = die + nDice; die < end; die++) {
+				handCounts += 1 << ((dice[die] - 1) * YahtzeeScorer.BITS_PER_FACE);
+			}
+			counts[i] = handCounts;
+		}
+	}
+
+
+	/**
+	 * This method scores the hands from "from" to "to" for every scoring category.
+	 * The score of the category with scoring index k(see YahtzeeScorer.toScoringIndex)
+	 * of hand i is stored at scores[k * (to - from) + (i - from)].
+	 *
+	 * @param 	counts 		An array of integers, the packed face counts of the hands.
+	 * @param 	from 		An int, the index of the first hand.
+	 * @param 	to 			An int, the index after the last hand.
+	 * @param 	scores 		An array of at least N_SCORING_CATEGORIES * (to - from) integers to fill.
+	 */
+	public static void getScores(int[] counts, int from, int to, int[] scores) {
+		KERNEL.getScores(counts, from, to, scores, 0, to - from);
+	}
+
+
+	/**
+	 * This method returns the kernel which scores the batches: the Vector API
+	 * kernel if it can be loaded, otherwise the scalar kernel.
+	 *
+	 * @return 	Kernel
+	 */
+	public static Kernel getKernel() {
+		return KERNEL;
+	}
+
+
+	/**
+	 * This method returns true if the batches are scored by the Vector API
+	 * kernel otherwise returns false.
+	 *
+	 * @return 	boolean
+	 */
+	public static boolean isVectorized() {
+		return KERNEL != SCALAR;
+	}
+
+
+	/**
+	 * This method loads the Vector API kernel, or returns the scalar kernel
+	 * if it is turned off, was not built or can not run on this runtime.
+	 *
+	 * @return 	Kernel
+	 */
+	private static Kernel loadKernel() {
+		if ("false".equals(System.getProperty(VECTOR_PROPERTY)))
+			return SCALAR;
+		try {
+			return (Kernel) Class.forName(VECTOR_KERNEL).getConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			return SCALAR;
+		} catch (LinkageError e) {
+			return SCALAR;
+		}
+	}
+
+
+	/** The scalar kernel, which scores one hand at a time */
+	public static final Kernel SCALAR = new Kernel() {
+
+		public void getScores(int[] counts, int from, int to, int[] scores, int position, int stride) {
+			for (int i = from, out = position; i < to; i++, out++) {
+				int hand = counts[i];
+				int sum = 0;
+				int total = 0;
+				int max = 0;
+				int present = 0;
+				boolean pair = false;
+				boolean triple = false;
+				for (int face = 1; face <= N_FACES; face++) {
+					int count = (hand >>> ((face - 1) * YahtzeeScorer.BITS_PER_FACE)) & FACE_MASK;
+					scores[(face - 1) * stride + out] = face * count;
+					sum += face * count;
+					total += count;
+					max = Math.max(max, count);
+					if (count > 0)
+						present |= 1 << (face - 1);
+					pair |= count == 2;
+					triple |= count == 3;
+				}
+				scores[THREE_OF_A_KIND_ROW * stride + out] = (max >= 3) ? sum : 0;
+				scores[FOUR_OF_A_KIND_ROW * stride + out] = (max >= 4) ? sum : 0;
+				scores[FULL_HOUSE_ROW * stride + out] = (pair && triple) ? FULL_HOUSE_SCORE : 0;
+				scores[SMALL_STRAIGHT_ROW * stride + out] = ((present & SMALL_1234) == SMALL_1234
+															 || (present & SMALL_2345) == SMALL_2345
+															 || (present & SMALL_3456) == SMALL_3456)
+															? SMALL_STRAIGHT_SCORE : 0;
+				scores[LARGE_STRAIGHT_ROW * stride + out] = ((present & LARGE_12345) == LARGE_12345
+															 || (present & LARGE_23456) == LARGE_23456)
+															? LARGE_STRAIGHT_SCORE : 0;
+				scores[YAHTZEE_ROW * stride + out] = (max == total) ? YAHTZEE_SCORE : 0;
+				scores[CHANCE_ROW * stride + out] = sum;
+			}
+		}
+	};
+
+
+	/** The rows of the scores of the lower categories, which follow the rows of ONES to SIXES */
+	static final int THREE_OF_A_KIND_ROW = SIXES;
+	static final int FOUR_OF_A_KIND_ROW = THREE_OF_A_KIND_ROW + FOUR_OF_A_KIND - THREE_OF_A_KIND;
+	static final int FULL_HOUSE_ROW = THREE_OF_A_KIND_ROW + FULL_HOUSE - THREE_OF_A_KIND;
+	static final int SMALL_STRAIGHT_ROW = THREE_OF_A_KIND_ROW + SMALL_STRAIGHT - THREE_OF_A_KIND;
+	static final int LARGE_STRAIGHT_ROW = THREE_OF_A_KIND_ROW + LARGE_STRAIGHT - THREE_OF_A_KIND;
+	static final int YAHTZEE_ROW = THREE_OF_A_KIND_ROW + YAHTZEE - THREE_OF_A_KIND;
+	static final int CHANCE_ROW = THREE_OF_A_KIND_ROW + CHANCE - THREE_OF_A_KIND;
+
+	/** The faces present in the straights, bit (f - 1) for the face "f" */
+	static final int SMALL_1234 = 0x0F;
+	static final int SMALL_2345 = 0x1E;
+	static final int SMALL_3456 = 0x3C;
+	static final int LARGE_12345 = 0x1F;
+	static final int LARGE_23456 = 0x3E;
+
+	/** Mask to extract the count of one face from the packed counts */
+	static final int FACE_MASK = (1 << YahtzeeScorer.BITS_PER_FACE) - 1;
+
+	/** The name of the system property which turns the Vector API kernel off when false */
+	public static final String VECTOR_PROPERTY = "yahtzee.vector";
+
+	/** The class of the Vector API kernel, built by the "vector" profile */
+	private static final String VECTOR_KERNEL = "YahtzeeVectorScorer";
+
+	/** The kernel which scores the batches */
+	private static final Kernel KERNEL = loadKernel();
+}
@@ -0,0 +1,353 @@
+/**
+ * File: YahtzeeBotDriver.java
+ * ---------------------------
+ * This file plays the turns of the bots of a game of the Yahtzee game.
+ * The driver is the listener of the game and forwards every event to the
+ * listener behind it(e.g. the UI). When a bot has to act, the state of
+ * the game is copied and its strategy takes the decision on a background
+ * executor, so the thread of the game(e.g. the AWT event thread) never
+ * waits for a strategy. The decision is then played on the thread of the
+ * game, unless the game has moved on in the meantime.
+ *
+ * A bot whose strategy is a YahtzeeMultiplayerStrategy also gets the
+ * states of the other players, copied with the state of the game.
+ *
+ * If a strategy fails, or takes a category the game rejects, the bot plays
+ * the move of the greedy strategy instead(see YahtzeeGreedyStrategy), so
+ * that the game goes on, and the failure is shown on the display.
+ *
+ * The decisions can be delayed so that humans can follow the bots; with
+ * no delay, a game of bots only is played as fast as the strategies go.
+ */
+
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+
+public final class YahtzeeBotDriver implements YahtzeeConstants, YahtzeeGameListener {
+
+
+	/**
+	 * Constructs a driver. The game must be given with setGame before it starts.
+	 *
+	 * @param 	players 		The players of the game, by seat.
+	 * @param 	listener 		The listener which gets every event of the game.
+	 * @param 	gameThread 		The executor which delivers the input to the game.
+	 * @param 	bots 			The executor which takes the decisions of the bots.
+	 * @param 	delayMillis 	A long, the delay before each decision, in milliseconds.
+	 */
+	public YahtzeeBotDriver(YahtzeePlayer[] players, YahtzeeGameListener listener, Executor gameThread,
+							ScheduledExecutorService bots, long delayMillis) {
+		this.players = players.clone();
+		this.listener = listener;
+		this.gameThread = gameThread;
+		this.bots = bots;
+		this.delayMillis = delayMillis;
+	}
+
+
+	/**
+	 * This method sets the game driven by this driver.
+	 *
+	 * @param 	game 	The game, whose listener is this driver.
+	 */
+	public void setGame(YahtzeeGame game) {
+		this.game = game;
+		fallback = new YahtzeeGreedyStrategy(game.getRules());
+	}
+
+
+	/**
+	 * This method sets the display the failures of the bots are shown on.
+	 * Without a display they are only printed to the standard error.
+	 *
+	 * @param 	display 	The display of the game.
+	 */
+	public void setDisplay(YahtzeeDisplay display) {
+		this.display = display;
+	}
+
+
+	/**
+	 * This method lets the bot whose turn it is act, if any, in a game which
+	 * has been restored rather than started(see YahtzeeSnapshot). It is called
+	 * on the thread of the game.
+	 */
+	public void resume() {
+		int player = game.getPlayer();
+		if (!isBot(player))
+			return;
+		moves++;
+		if (game.getPhase() == YahtzeeGame.Phase.ROLLING) {
+			schedule(new Decision(player, NO_ROLLS, null, 0L, null), delayMillis);
+		} else if (game.getPhase() != YahtzeeGame.Phase.GAME_OVER) {
+			int[] dice = new int[N_DICE];
+			for (int i = 0; i < N_DICE; i++) {
+				dice[i] = game.getDie(i);
+			}
+			int rollsLeft = (game.getPhase() == YahtzeeGame.Phase.SELECTING_CATEGORY) ? 0 : game.getRollsLeft();
+			schedule(new Decision(player, rollsLeft, dice, game.getPlayerState(player), getOpponentStates(player)),
+					 delayMillis);
+		}
+	}
+
+
+	/**
+	 * This method returns true if the player is a bot otherwise returns false.
+	 *
+	 * @param 	player 	An int representing the player.
+	 * @return 	boolean
+	 */
+	public boolean isBot(int player) {
+		return players[player - 1].isBot();
+	}
+
+
+	public void turnStarted(int player) {
+		moves++;
+		standing = false;
+		listener.turnStarted(player);
+		if (isBot(player))
+			schedule(new Decision(player, NO_ROLLS, null, 0L, null), delayMillis);
+	}
+
+
+	public void diceRolled(int player, int[] dice, int rollsLeft) {
+		moves++;
+		listener.diceRolled(player, dice, rollsLeft);
+		if (!isBot(player))
+			return;
+		if (standing && rollsLeft > 0) {
+			play(moves, player, 0);
+		} else {
+			schedule(new Decision(player, rollsLeft, dice.clone(), game.getPlayerState(player), getOpponentStates(player)),
+					 delayMillis);
+		}
+	}
+
+
+	public void dieSelected(int die, boolean selected) {
+		listener.dieSelected(die, selected);
+	}
+
+
+	public void categorySelected(int player, int category, int score, long playerState) {
+		listener.categorySelected(player, category, score, playerState);
+	}
+
+
+	public void categoryRejected(int player, int category) {
+		listener.categoryRejected(player, category);
+		if (isBot(player))
+			playFallbackCategory(player, "took a category which is not allowed");
+	}
+
+
+	public void gameOver(long[] playerStates) {
+		moves++;
+		listener.gameOver(playerStates);
+	}
+
+
+	/**
+	 * This method returns the states of the players other than a bot, in the
+	 * order of the seats, if its strategy looks at them, otherwise null.
+	 *
+	 * @param 	player 	An int representing the player.
+	 * @return 	long[]
+	 */
+	private long[] getOpponentStates(int player) {
+		if (!(players[player - 1].getStrategy() instanceof YahtzeeMultiplayerStrategy))
+			return null;
+		long[] opponentStates = new long[game.getPlayerCount() - 1];
+		for (int other = 1, i = 0; other <= game.getPlayerCount(); other++) {
+			if (other != player)
+				opponentStates[i++] = game.getPlayerState(other);
+		}
+		return opponentStates;
+	}
+
+
+	/**
+	 * This method takes a decision on the executor of the bots, after a delay.
+	 *
+	 * @param 	decision 	The decision.
+	 * @param 	delay 		A long, the delay in milliseconds.
+	 */
+	private void schedule(Decision decision, long delay) {
+		if (delay > 0)
+			bots.schedule(decision, delay, TimeUnit.MILLISECONDS);
+		else
+			bots.execute(decision);
+	}
+
+
+	/**
+	 * This method plays the category of the greedy strategy for a bot whose
+	 * strategy took a category the game does not take. It is called on the
+	 * thread of the game.
+	 *
+	 * @param 	player 		An int representing the player.
+	 * @param 	failure 	A string, what went wrong.
+	 */
+	private void playFallbackCategory(int player, String failure) {
+		int[] dice = new int[N_DICE];
+		for (int i = 0; i < N_DICE; i++) {
+			dice[i] = game.getDie(i);
+		}
+		play(moves, player, fallback.chooseCategory(game.getPlayerState(player), dice));
+		report(player, failure);
+	}
+
+
+	/**
+	 * This method shows on the thread of the game that a bot plays the move of
+	 * the greedy strategy because its own strategy failed.
+	 *
+	 * @param 	player 		An int representing the player.
+	 * @param 	failure 	A string, what went wrong.
+	 */
+	private void report(int player, String failure) {
+		final String message = players[player - 1].getName() + " " + failure + ", it plays a greedy move instead.";
+		System.err.println(message);
+		gameThread.execute(new Runnable() {
+			public void run() {
+				if (display != null)
+					display.printMessage(message);
+			}
+		});
+	}
+
+
+	/**
+	 * This method plays a decision on the thread of the game, unless the
+	 * game has moved on since the decision was asked for.
+	 *
+	 * @param 	move 		An int, the number of the move the decision was taken for.
+	 * @param 	player 		An int representing the player.
+	 * @param 	choice 		An int, the dice to reroll, or the category after the last roll.
+	 */
+	private void play(final int move, final int player, final int choice) {
+		gameThread.execute(new Runnable() {
+			public void run() {
+				if (move != moves || player != game.getPlayer())
+					return;
+				switch (game.getPhase()) {
+					case ROLLING:
+						game.roll();
+						break;
+					case SELECTING_DICE:
+						if (choice == 0)
+							standing = true;
+						for (int i = 0; i < N_DICE; i++) {
+							boolean reroll = (choice & (1 << i)) != 0;
+							if (game.isDieSelected(i) != reroll)
+								game.toggleDie(i);
+						}
+						game.roll();
+						break;
+					case SELECTING_CATEGORY:
+						if (YahtzeeGame.isScoringCategory(choice))
+							game.selectCategory(choice);
+						else
+							playFallbackCategory(player, "took no category");
+						break;
+					default:
+				}
+			}
+		});
+	}
+
+
+	/** A decision of a bot, taken on the executor of the bots from a copy of the game. */
+	private final class Decision implements Runnable {
+
+		Decision(int player, int rollsLeft, int[] dice, long playerState, long[] opponentStates) {
+			this.move = moves;
+			this.player = player;
+			this.rollsLeft = rollsLeft;
+			this.dice = dice;
+			this.playerState = playerState;
+			this.opponentStates = opponentStates;
+		}
+
+		public void run() {
+			YahtzeeStrategy strategy = players[player - 1].getStrategy();
+			int choice = 0;
+			RuntimeException failure = null;
+			long start = System.nanoTime();
+			try {
+				if (opponentStates != null) {
+					YahtzeeMultiplayerStrategy multiplayer = (YahtzeeMultiplayerStrategy) strategy;
+					if (rollsLeft > 0)
+						choice = multiplayer.chooseRerolls(playerState, opponentStates, dice, rollsLeft);
+					else if (rollsLeft == 0)
+						choice = multiplayer.chooseCategory(playerState, opponentStates, dice);
+				} else if (rollsLeft > 0) {
+					choice = strategy.chooseRerolls(playerState, dice, rollsLeft);
+				} else if (rollsLeft == 0) {
+					choice = strategy.chooseCategory(playerState, dice);
+				}
+			} catch (RuntimeException e) {
+				failure = e;
+				if (rollsLeft > 0)
+					choice = fallback.chooseRerolls(playerState, dice, rollsLeft);
+				else if (rollsLeft == 0)
+					choice = fallback.chooseCategory(playerState, dice);
+			}
+			if (rollsLeft >= 0 && failure == null)
+				metrics.getHistogram(YahtzeeMetrics.Phase.BOT_DECISION).record(System.nanoTime() - start);
+			play(move, player, choice);
+			if (failure != null)
+				report(player, "failed(" + failure + ")");
+		}
+
+		private final int move;
+		private final int player;
+		private final int rollsLeft;
+		private final int[] dice;
+		private final long playerState;
+		private final long[] opponentStates;
+	}
+
+
+	/** The rolls left of the decision to roll at the start of a turn */
+	private static final int NO_ROLLS = -1;
+
+	/* Private instance variables */
+
+	/** The players of the game, by seat */
+	private final YahtzeePlayer[] players;
+
+	/** The listener which gets every event of the game */
+	private final YahtzeeGameListener listener;
+
+	/** The executor which delivers the input to the game */
+	private final Executor gameThread;
+
+	/** The executor which takes the decisions of the bots */
+	private final ScheduledExecutorService bots;
+
+	/** The delay before each decision, in milliseconds */
+	private final long delayMillis;
+
+	/** The metrics which record the time of the decisions */
+	private final YahtzeeMetrics metrics = YahtzeeMetrics.get();
+
+	/** The game, only touched on the thread of the game */
+	private YahtzeeGame game;
+
+	/** The strategy played when the strategy of a bot fails */
+	private YahtzeeStrategy fallback;
+
+	/** The display the failures are shown on, only touched on the thread of the game */
+	private YahtzeeDisplay display;
+
+	/** The number of events which moved the game on, on the thread of the game */
+	private int moves;
+
+	/** It stores whether the bot whose turn it is keeps its dice for the rest of the turn. */
+	private boolean standing;
+}
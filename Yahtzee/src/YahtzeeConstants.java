@@ -14,8 +14,8 @@ public interface YahtzeeConstants {
 	/** The number of faces on a die */
 	public static final int N_FACES = 6;
 
-	/** The maximum number of players */
-	public static final int MAX_PLAYERS = 4;
+	/** The maximum number of players; the scorecard shows VISIBLE_PLAYERS of them at once */
+	public static final int MAX_PLAYERS = 64;
 
 	/** The total number of categories */
 	public static final int N_CATEGORIES = 17;
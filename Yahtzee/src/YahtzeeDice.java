@@ -0,0 +1,243 @@
+/**
+ * File: YahtzeeDice.java
+ * ----------------------
+ * This file rolls the dice of the Yahtzee game from a seed, so that the
+ * same seed rolls the same dice again and a game can be replayed exactly.
+ *
+ * The dice come from 64-bit draws of the SplitMix64 generator. A draw
+ * below the largest multiple of faces^k is a number of k independent
+ * uniform dice(its digits in base faces); a draw above it is rejected, so
+ * the dice are unbiased. With six faces a draw gives 23 dice and only
+ * 1.5% of the draws are rejected. The dice are not synchronised: a
+ * YahtzeeDice belongs to one thread(or one game) at a time, and split()
+ * gives independent dice to other threads.
+ */
+
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+public final class YahtzeeDice implements YahtzeeConstants {
+
+
+	/**
+	 * Constructs dice of N_FACES faces with a seed of their own, which getSeed returns.
+	 */
+	public YahtzeeDice() {
+		this(mix(SEEDS.getAndAdd(GOLDEN_GAMMA) ^ System.nanoTime()));
+	}
+
+
+	/**
+	 * Constructs dice of N_FACES faces.
+	 *
+	 * @param 	seed 	A long, the seed of the dice.
+	 */
+	public YahtzeeDice(long seed) {
+		this(seed, N_FACES);
+	}
+
+
+	/**
+	 * Constructs dice.
+	 *
+	 * @param 	seed 	A long, the seed of the dice.
+	 * @param 	nFaces 	An int, the number of faces of a die(2 to N_FACES).
+	 */
+	public YahtzeeDice(long seed, int nFaces) {
+		if (nFaces < 2 || nFaces > N_FACES)
+			throw new IllegalArgumentException("A die has 2 to " + N_FACES + " faces");
+		this.seed = seed;
+		this.state = seed;
+		this.nFaces = nFaces;
+		this.digitsPerDraw = DIGITS_PER_DRAW[nFaces];
+		this.power = POWERS[nFaces];
+		this.limit = LIMITS[nFaces];
+	}
+
+
+	/**
+	 * This method returns the seed of the dice.
+	 *
+	 * @return 	long
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+
+	/**
+	 * This method returns the number of faces of a die.
+	 *
+	 * @return 	int
+	 */
+	public int getFaceCount() {
+		return nFaces;
+	}
+
+
+	/**
+	 * This method rolls a die and returns its number, ONES to the number of faces.
+	 *
+	 * @return 	int
+	 */
+	public int nextDie() {
+		if (remaining == 0)
+			draw();
+		long rest = (nFaces == N_FACES) ? digits / N_FACES : digits / nFaces;
+		int face = (int) (digits - rest * nFaces);
+		digits = rest;
+		remaining--;
+		return face + ONES;
+	}
+
+
+	/**
+	 * This method rolls all the dice of a roll.
+	 *
+	 * @param 	dice 	An array of integers, filled with the numbers of the dice.
+	 */
+	public void roll(int[] dice) {
+		fill(dice, 0, dice.length);
+	}
+
+
+	/**
+	 * This method rerolls some of the dice of a roll.
+	 *
+	 * @param 	dice 	An array of integers, the numbers of the dice.
+	 * @param 	rerolls An int, bit i is set if the die with index i is rerolled.
+	 */
+	public void roll(int[] dice, int rerolls) {
+		for (int i = 0; i < dice.length; i++) {
+			if ((rerolls & (1 << i)) != 0)
+				dice[i] = nextDie();
+		}
+	}
+
+
+	/**
+	 * This method rolls a batch of dice, e.g. the dice of many rolls one after the other.
+	 *
+	 * @param 	dice 	An array of integers, filled from "from" to "to" with the numbers of the dice.
+	 * @param 	from 	An int, the index of the first die.
+	 * @param 	to 		An int, the index after the last die.
+	 */
+	public void fill(int[] dice, int from, int to) {
+		for (int i = from; i < to; i++) {
+			dice[i] = nextDie();
+		}
+	}
+
+
+	/**
+	 * This method returns new dice, with the same number of faces, whose seed
+	 * is drawn from these dice: the split dice can be given to another thread,
+	 * and the dice of the same seed always split the same way.
+	 *
+	 * @return 	YahtzeeDice
+	 */
+	public YahtzeeDice split() {
+		return new YahtzeeDice(nextLong(), nFaces);
+	}
+
+
+	/**
+	 * This method draws the next digits, rejecting the draws above the
+	 * largest multiple of the power of the number of faces.
+	 */
+	private void draw() {
+		long bits;
+		do {
+			bits = nextLong();
+		} while (Long.compareUnsigned(bits, limit) >= 0);
+		digits = Long.remainderUnsigned(bits, power);
+		remaining = digitsPerDraw;
+	}
+
+
+	/**
+	 * This method returns the next 64 random bits of the SplitMix64 generator.
+	 *
+	 * @return 	long
+	 */
+	private long nextLong() {
+		state += GOLDEN_GAMMA;
+		return mix(state);
+	}
+
+
+	/**
+	 * This method returns the mixed bits of a long(the finaliser of SplitMix64).
+	 *
+	 * @param 	z 	A long.
+	 * @return 	long
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+
+	/** The increment of the state of SplitMix64, an odd constant */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/** The source of the seeds of the dice constructed without a seed */
+	private static final AtomicLong SEEDS = new AtomicLong(mix(System.currentTimeMillis()));
+
+	/**
+	 * For each number of faces: the number of dice k taken from a draw, faces^k,
+	 * and the largest multiple of faces^k below 2^64(unsigned). k gives the most
+	 * dice per draw once the rejected draws are counted.
+	 */
+	private static final int[] DIGITS_PER_DRAW = new int[N_FACES + 1];
+	private static final long[] POWERS = new long[N_FACES + 1];
+	private static final long[] LIMITS = new long[N_FACES + 1];
+
+	static {
+		for (int faces = 2; faces <= N_FACES; faces++) {
+			double best = 0;
+			long power = faces;
+			for (int k = 1; ; k++) {
+				long multiples = Long.divideUnsigned(-1L, power);
+				double accepted = (multiples * (double) power) / 0x1p64;
+				if (k * accepted > best) {
+					best = k * accepted;
+					DIGITS_PER_DRAW[faces] = k;
+					POWERS[faces] = power;
+					LIMITS[faces] = multiples * power;
+				}
+				if (power > Long.MAX_VALUE / faces)
+					break;
+				power *= faces;
+			}
+		}
+	}
+
+	/* Private instance variables */
+
+	/** The seed of the dice */
+	private final long seed;
+
+	/** The number of faces of a die */
+	private final int nFaces;
+
+	/** The number of dice taken from a draw */
+	private final int digitsPerDraw;
+
+	/** The number of faces to the power digitsPerDraw */
+	private final long power;
+
+	/** The largest multiple of power below 2^64, unsigned; the draws from it on are rejected */
+	private final long limit;
+
+	/** The state of the SplitMix64 generator */
+	private long state;
+
+	/** The dice left of the last draw, as digits in base nFaces */
+	private long digits;
+
+	/** The number of dice left in digits */
+	private int remaining;
+}
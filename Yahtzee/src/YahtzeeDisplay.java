@@ -8,32 +8,61 @@
 
 import java.awt.Color;
 import java.awt.Desktop;
+import java.awt.Rectangle;
 import java.awt.event.*;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
 import acm.graphics.*;
 import acm.io.IODialog;
 
 
 public class YahtzeeDisplay implements YahtzeeConstants, YahtzeeDisplayConstants {
 	
+	/** 
+	 * The input of the players on the UI. The methods are called on the
+	 * AWT event thread, which must not be blocked by them.
+	 */
+	public interface InputListener {
+		
+		/** Called when the "Roll Dice" button is clicked. */
+		public void rollClicked();
+		
+		/** 
+		 * Called when a die is clicked.
+		 * 
+		 * @param 	die 	An int, the index of the die.
+		 */
+		public void dieClicked(int die);
+		
+		/** 
+		 * Called when a category is clicked on the scorecard.
+		 * 
+		 * @param 	category 	A static constant representing the category.
+		 */
+		public void categoryClicked(int category);
+	}
+	
+	
 	/** 
 	 * Constructs the UI.
 	 * 
 	 * @param 	canvas 			A GCanvas, the default canvas on the window of the program.
 	 * @param 	playerNames 	An array of strings, the names of the players.
+	 * @param 	inputListener 	The listener which gets the clicks of the players.
 	 */
-	public YahtzeeDisplay(GCanvas canvas, String[] playerNames) {
+	public YahtzeeDisplay(GCanvas canvas, String[] playerNames, InputListener inputListener) {
 		yCanvas = canvas;
+		this.inputListener = inputListener;
 		yCanvas.setBackground(DARK_GREEN);
 		addAboutButton();
 		addLearnToPlayButton();
 		addRollButton();
-		addQDice();
+		addMessage();
+		addDice();
 		addScorecard(playerNames);
 		addMouseListeners();
-		currentThread = Thread.currentThread();
 	}
 	
 	
@@ -58,9 +87,22 @@ public class YahtzeeDisplay implements YahtzeeConstants, YahtzeeDisplayConstants
 	 * @param 	obj			A GObject to get labeled.
 	 */
 	private void addLabel(GLabel label, GObject obj) {
+		yCanvas.add(label);
+		centerLabel(label, obj);
+	}
+	
+	
+	/** 
+	 * This method moves a label to the middle of an object. It is called
+	 * again whenever the text of the label changes.
+	 * 
+	 * @param 	label		A GLabel.
+	 * @param 	obj			The labeled GObject.
+	 */
+	private void centerLabel(GLabel label, GObject obj) {
 		double xLoc = obj.getX() + ((obj.getWidth() - label.getWidth()) / 2);	
 		double yLoc = obj.getY() + (obj.getHeight() * 0.85);
-		yCanvas.add(label, xLoc, yLoc);
+		label.setLocation(xLoc, yLoc);
 	}
 	
 	
@@ -109,9 +151,22 @@ public class YahtzeeDisplay implements YahtzeeConstants, YahtzeeDisplayConstants
 	
 	
 	/** 
-	 * This method adds question mark labeled dice on the UI.
+	 * This method adds the label of the messages on the UI.
+	 * Messages are shown by changing its text.
 	 */
-	private void addQDice() {
+	private void addMessage() {
+		messageLabel = new GLabel("");
+		messageLabel.setColor(Color.WHITE);
+		messageLabel.setFont("Lucida Sans-Bold-12");
+		yCanvas.add(messageLabel, MESSAGE_LOC);
+	}
+	
+	
+	/** 
+	 * This method adds the dice and their labels on the UI, once.
+	 * The numbers are shown by changing the labels.
+	 */
+	private void addDice() {
 		
 		double xLoc = 2 * H_MARGIN;
 		double yLoc = (2 * V_MARGIN) + ROLL_BUTTON_HEIGHT;
@@ -120,32 +175,79 @@ public class YahtzeeDisplay implements YahtzeeConstants, YahtzeeDisplayConstants
 			yCanvas.add(dice[i], xLoc, yLoc);
 			yLoc += DIE_WIDTH + SPACE_B_DICE;
 			
-			GLabel qMark = new GLabel("?");
-			qMark.setColor(Color.BLUE);
-			qMark.setFont("Lucida Sans-50");
-			addLabel(qMark, dice[i]);
+			diceLabels[i] = new GLabel("");
+			diceLabels[i].setFont("Lucida Sans-50");
+			addLabel(diceLabels[i], dice[i]);
+		}
+		showQDice();
+	}
+	
+	
+	/** 
+	 * This method shows question marks on the dice.
+	 */
+	private void showQDice() {
+		beginUpdate();
+		for (int i = 0; i < N_DICE; i++) {
+			showDie(i, "?", Color.BLUE);
 		}
+		endUpdate();
 	}
 	
 	
 	/** 
-	 * This method adds scorecard on the UI.
+	 * This method shows a text on an unselected die.
+	 * 
+	 * @param 	die 	An int, the index of the die.
+	 * @param 	text 	A string, the text on the die.
+	 * @param 	color 	The color of the text.
+	 */
+	private void showDie(int die, String text, Color color) {
+		beginUpdate();
+		markDirty(diceLabels[die]);
+		hintedDice &= ~(1 << die);
+		dice[die].setFillColor(Color.WHITE);
+		diceLabels[die].setLabel(text);
+		diceLabels[die].setColor(color);
+		centerLabel(diceLabels[die], dice[die]);
+		markDirty(dice[die]);
+		markDirty(diceLabels[die]);
+		endUpdate();
+	}
+	
+	
+	/** 
+	 * This method adds scorecard on the UI. At most VISIBLE_PLAYERS player
+	 * columns are added, whatever the number of players; they show the
+	 * players from firstPlayer on, and the others are scrolled to. The
+	 * names and the scores of all the players are kept apart from the
+	 * columns, so the objects on the canvas do not grow with the players.
 	 * 
 	 * @param 	playerNames 	An array of strings, the names of the players. 
 	 */
 	private void addScorecard(String[] playerNames) {
 		
+		this.playerNames = playerNames.clone();
 		int nPlayers = playerNames.length;
-		scorecard = new GRect[N_CATEGORIES + 1][nPlayers + 1];
+		int nColumns = Math.min(nPlayers, VISIBLE_PLAYERS);
+		scores = new int[nPlayers + 1][N_CATEGORIES + 1];
+		for (int[] playerScores : scores) {
+			Arrays.fill(playerScores, NO_SCORE);
+		}
+		scorecard = new GRect[N_CATEGORIES + 1][nColumns + 1];
 		double rowHeight = ((dice[4].getY() + DIE_WIDTH) - dice[0].getY()) / (N_CATEGORIES + 1);
 		
 		addCategoryColumn(rowHeight);
-		addPlayerColumns(rowHeight, nPlayers);
-		addPlayerNames(playerNames);
+		addPlayerColumns(rowHeight, nColumns);
+		addPlayerNames(nColumns);
+		addScoreLabels(nColumns);
+		if (nPlayers > nColumns)
+			addScrollButtons();
 
 		colorTitleRow();
 		colorRowsLabeledWithScoreTrackers();
 		colorDivider();
+		showPlayerColumns();
 	}
 	
 	
@@ -198,16 +300,16 @@ public class YahtzeeDisplay implements YahtzeeConstants, YahtzeeDisplayConstants
 	 * This method adds all the player columns of the scorecard. 
 	 * 
 	 * @param rowHeight		A double, height of each row in the scorecard. 
-	 * @param nPlayers 		An int, number of players.
+	 * @param nColumns 		An int, number of player columns.
 	 */
-	private void addPlayerColumns(double rowHeight, int nPlayers) {
+	private void addPlayerColumns(double rowHeight, int nColumns) {
 		
 		double xLoc = scorecard[0][0].getX() + CATEGORY_COLUMN_WIDTH;
 		double yLoc = scorecard[0][0].getY();
 		
 		for (int i = 0; i < scorecard.length; i++) {
 		
-			for (int j = 1; j <= nPlayers; j++) {
+			for (int j = 1; j <= nColumns; j++) {
 				scorecard[i][j] = getWhiteRect(PLAYER_COLUMN_WIDTH, rowHeight);
 				yCanvas.add(scorecard[i][j], xLoc, yLoc);
 				xLoc += PLAYER_COLUMN_WIDTH;
@@ -220,21 +322,137 @@ public class YahtzeeDisplay implements YahtzeeConstants, YahtzeeDisplayConstants
 	
 	
 	/** 
-	 * This method adds the names of all the players on the scorecard.
+	 * This method adds an empty name label on the title row of every player
+	 * column. The names are shown by changing the labels.
+	 * 
+	 * @param 	nColumns 		An int, number of player columns.
+	 */
+	private void addPlayerNames(int nColumns) {
+		
+		nameLabels = new GLabel[nColumns + 1];
+		for (int i = 1; i <= nColumns; i++) {
+			nameLabels[i] = new GLabel("");
+			nameLabels[i].setFont("Arial-Bold-12");
+			nameLabels[i].setColor(DARK_RED);
+			addLabel(nameLabels[i], scorecard[0][i]);
+		}
+	}
+	
+	
+	/** 
+	 * This method adds an empty score label on every cell of the player columns,
+	 * below the title row. The scores are shown by changing the labels.
 	 * 
-	 * @param 	playerNames 	An array of strings, names of the players.
+	 * @param 	nColumns 		An int, number of player columns.
 	 */
-	private void addPlayerNames(String[] playerNames) {
+	private void addScoreLabels(int nColumns) {
 		
-		for (int i = 1; i <= playerNames.length; i++) {
-			GLabel name = new GLabel(playerNames[i - 1]);
-			name.setFont("Arial-Bold-12");
-			name.setColor(DARK_RED);
-			addLabel(name, scorecard[0][i]);
+		scoreLabels = new GLabel[N_CATEGORIES + 1][nColumns + 1];
+		for (int i = 1; i < scorecard.length; i++) {
+			for (int j = 1; j <= nColumns; j++) {
+				scoreLabels[i][j] = new GLabel("");
+				scoreLabels[i][j].setFont("Arial-Bold-12");
+				scoreLabels[i][j].setColor(Color.BLUE);
+				addLabel(scoreLabels[i][j], scorecard[i][j]);
+			}
 		}
 	}
 	
 	
+	/** 
+	 * This method adds the buttons which scroll the player columns, above their
+	 * ends, and the label between them which tells the players shown.
+	 */
+	private void addScrollButtons() {
+		
+		double yLoc = scorecard[0][0].getY() - SCROLL_BUTTON_HEIGHT - 4;
+		scrollBackButton = getWhiteRoundRect(SCROLL_BUTTON_WIDTH, SCROLL_BUTTON_HEIGHT);
+		yCanvas.add(scrollBackButton, scorecard[0][1].getX(), yLoc);
+		scrollForwardButton = getWhiteRoundRect(SCROLL_BUTTON_WIDTH, SCROLL_BUTTON_HEIGHT);
+		yCanvas.add(scrollForwardButton, scorecard[0][scorecard[0].length - 1].getX() + PLAYER_COLUMN_WIDTH
+										 - SCROLL_BUTTON_WIDTH, yLoc);
+		
+		GLabel back = new GLabel("<");
+		back.setFont("Arial-Bold-15");
+		back.setColor(Color.BLUE);
+		addLabel(back, scrollBackButton);
+		GLabel forward = new GLabel(">");
+		forward.setFont("Arial-Bold-15");
+		forward.setColor(Color.BLUE);
+		addLabel(forward, scrollForwardButton);
+		
+		scrollLabel = new GLabel("");
+		scrollLabel.setFont("Arial-Bold-12");
+		scrollLabel.setColor(Color.WHITE);
+		yCanvas.add(scrollLabel);
+	}
+	
+	
+	/** 
+	 * This method shows the names and the scores of the players from firstPlayer
+	 * on in the player columns, in one repaint of the columns.
+	 */
+	private void showPlayerColumns() {
+		
+		beginUpdate();
+		int nColumns = scorecard[0].length - 1;
+		for (int j = 1; j <= nColumns; j++) {
+			int player = firstPlayer + j - 1;
+			nameLabels[j].setLabel(playerNames[player - 1]);
+			centerLabel(nameLabels[j], scorecard[0][j]);
+			scorecard[0][j].setFillColor((player == highlightedPlayer) ? Color.MAGENTA : Color.ORANGE);
+			for (int i = 1; i < scorecard.length; i++) {
+				int score = scores[player][i];
+				scoreLabels[i][j].setLabel((score == NO_SCORE) ? "" : Integer.toString(score));
+				centerLabel(scoreLabels[i][j], scorecard[i][j]);
+			}
+		}
+		markDirty(scorecard[0][1]);
+		markDirty(scorecard[TOTAL][nColumns]);
+		
+		if (scrollLabel != null) {
+			markDirty(scrollLabel);
+			scrollLabel.setLabel("Players " + firstPlayer + "-" + (firstPlayer + nColumns - 1)
+								 + " of " + playerNames.length);
+			double xLoc = scrollBackButton.getX() + SCROLL_BUTTON_WIDTH;
+			double width = scrollForwardButton.getX() - xLoc;
+			scrollLabel.setLocation(xLoc + (width - scrollLabel.getWidth()) / 2,
+									scrollBackButton.getY() + (SCROLL_BUTTON_HEIGHT * 0.85));
+			markDirty(scrollLabel);
+		}
+		endUpdate();
+	}
+	
+	
+	/** 
+	 * This method scrolls the player columns so that they start with a player,
+	 * as far as there are players to fill them.
+	 * 
+	 * @param 	player 	An int representing the player to show first.
+	 */
+	public void scrollTo(int player) {
+		int nColumns = scorecard[0].length - 1;
+		player = Math.max(1, Math.min(player, playerNames.length - nColumns + 1));
+		if (player == firstPlayer)
+			return;
+		firstPlayer = player;
+		showPlayerColumns();
+	}
+	
+	
+	/** 
+	 * This method returns the column of the scorecard which shows a player,
+	 * or 0 if the player is scrolled out of view.
+	 * 
+	 * @param 	player 	An int representing the player.
+	 * @return 	int
+	 */
+	private int getColumn(int player) {
+		int column = player - firstPlayer + 1;
+		return (column >= 1 && column < scorecard[0].length) ? column : 0;
+	}
+	
+	
 	/** 
 	 * This method colors the first(title) row of the scorecard.
 	 */
@@ -290,32 +508,27 @@ public class YahtzeeDisplay implements YahtzeeConstants, YahtzeeDisplayConstants
 
 			public void mouseClicked(MouseEvent e) {
 				
-				if (rollButton.contains(e.getX(), e.getY()) && waitingForPlayerToClickRoll) {
-					synchronized(currentThread) {
-						currentThread.notify();
-					}
+				if (rollButton.contains(e.getX(), e.getY())) {
+					inputListener.rollClicked();
 				}
 				
-				if (waitingForPlayerToSelectDice) {
-					for (int i = 0; i < N_DICE; i++) {
-						if (dice[i].contains(e.getX(), e.getY()) && !selectedDice[i]) {
-							dice[i].setFillColor(Color.BLUE);
-							selectedDice[i] = true;
-						} else if (dice[i].contains(e.getX(), e.getY()) && selectedDice[i]) {
-							dice[i].setFillColor(Color.WHITE);
-							selectedDice[i] = false;
-						}
+				if (scrollBackButton != null && scrollBackButton.contains(e.getX(), e.getY())) {
+					scrollTo(firstPlayer - (scorecard[0].length - 1));
+				}
+				
+				if (scrollForwardButton != null && scrollForwardButton.contains(e.getX(), e.getY())) {
+					scrollTo(firstPlayer + (scorecard[0].length - 1));
+				}
+				
+				for (int i = 0; i < N_DICE; i++) {
+					if (dice[i].contains(e.getX(), e.getY())) {
+						inputListener.dieClicked(i);
 					}
 				}
 				
-				if (waitingForPlayerToSelectCategory) {
-					for (int i = ONES; i <= CHANCE; i++) {
-						if (scorecard[i][0].contains(e.getX(), e.getY()) && i != UPPER_SCORE && i != UPPER_BONUS) {
-							selectedCategory = i;
-							synchronized(currentThread) {
-								currentThread.notify();
-							}
-						}
+				for (int i = ONES; i <= CHANCE; i++) {
+					if (scorecard[i][0].contains(e.getX(), e.getY()) && i != UPPER_SCORE && i != UPPER_BONUS) {
+						inputListener.categoryClicked(i);
 					}
 				}
 				
@@ -338,62 +551,72 @@ public class YahtzeeDisplay implements YahtzeeConstants, YahtzeeDisplayConstants
 			public void mousePressed(MouseEvent e) { }
 			public void mouseReleased(MouseEvent e) { }
 			
-		});	
+		});
+		
+		yCanvas.addMouseWheelListener(new MouseWheelListener() {
+			
+			public void mouseWheelMoved(MouseWheelEvent e) {
+				if (scrollBackButton != null)
+					scrollTo(firstPlayer + e.getWheelRotation());
+			}
+		});
 	}
 	
 	
 	/** 
-	 * This method prints a message on the UI.
+	 * This method prints a message on the UI, in place of the previous one.
+	 * Within a batch(see beginUpdate) the message is repainted at its end.
 	 * 
 	 * @param 	message 	A string, the message to get printed.
 	 */
 	public void printMessage(String message) {
-		
-		GLabel label = new GLabel(message);
-		label.setColor(Color.WHITE);
-		label.setFont("Lucida Sans-Bold-12");
-		
-		GRect messageBoard = getWhiteRect(yCanvas.getWidth() - (H_MARGIN + ROLL_BUTTON_WIDTH), 2 * label.getHeight());
-		messageBoard.setColor(DARK_GREEN);
-		messageBoard.setFillColor(DARK_GREEN);
-		messageBoard.setFilled(true);
-		yCanvas.add(messageBoard, H_MARGIN + ROLL_BUTTON_WIDTH, V_MARGIN);
-		
-		yCanvas.add(label, MESSAGE_LOC);
+		beginUpdate();
+		markDirty(messageLabel);
+		messageLabel.setLabel(message);
+		markDirty(messageLabel);
+		endUpdate();
 	}
 		
 	/**
-	 * This method pauses the program and waits for the "Roll Dice" button to get clicked.
-	 * The program is resumed, when the "Roll Dice" button is clicked. 
+	 * This method shows the start of a turn: the dice are reset to question
+	 * marks and the player whose turn is on is highlighted, and scrolled to
+	 * if the player columns do not show the player.
 	 * 
 	 * @param player 	An int representing the player
 	 */
-	public void waitForPlayerToClickRoll(int player) {
-		addQDice();
+	public void startTurn(int player) {
+		beginUpdate();
+		showQDice();
 		highlightPlayer(player);
-		waitingForPlayerToClickRoll = true;
-		synchronized(currentThread) {
-			try {
-				currentThread.wait();
-			} catch(InterruptedException e) { }
-		}
-		waitingForPlayerToClickRoll = false;
+		endUpdate();
 	}
 	
 	
 	/** 
-	 * This method highlights the player whose turn is on.
+	 * This method highlights the player whose turn is on, and scrolls the
+	 * player columns to the player if they do not show the player.
 	 * 
 	 * @param	player 	An int representing the player.
 	 */
 	public void highlightPlayer(int player) {
-		if (player == 1) {
-			scorecard[0][scorecard[0].length - 1].setFillColor(Color.ORANGE);
-			scorecard[0][player].setFillColor(Color.MAGENTA);
-		} else {
-			scorecard[0][player - 1].setFillColor(Color.ORANGE);
-			scorecard[0][player].setFillColor(Color.MAGENTA);
+		int previous = getColumn(highlightedPlayer);
+		highlightedPlayer = player;
+		int nColumns = scorecard[0].length - 1;
+		if (player < firstPlayer) {
+			scrollTo(player);
+			return;
+		} else if (player >= firstPlayer + nColumns) {
+			scrollTo(player - nColumns + 1);
+			return;
 		}
+		beginUpdate();
+		if (previous != 0) {
+			scorecard[0][previous].setFillColor(Color.ORANGE);
+			markDirty(scorecard[0][previous]);
+		}
+		scorecard[0][getColumn(player)].setFillColor(Color.MAGENTA);
+		markDirty(scorecard[0][getColumn(player)]);
+		endUpdate();
 	}
 	
 	
@@ -403,94 +626,125 @@ public class YahtzeeDisplay implements YahtzeeConstants, YahtzeeDisplayConstants
 	 * @param 	intDice 		An array of integers, numbers to get shown on the dice.	
 	 */
 	public void displayDice(int[] intDice) {
-		
-		double xLoc = 2 * H_MARGIN;
-		double yLoc = (2 * V_MARGIN) + ROLL_BUTTON_HEIGHT;
+		beginUpdate();
 		for (int i = 0; i < N_DICE; i++) {
-			dice[i] = getWhiteRoundRect(DIE_WIDTH, DIE_WIDTH);
-			yCanvas.add(dice[i], xLoc, yLoc);
-			yLoc += DIE_WIDTH + SPACE_B_DICE;
-			
-			GLabel num = new GLabel(Integer.toString(intDice[i]));
-			num.setColor(DARK_RED);
-			num.setFont("Lucida Sans-50");
-			addLabel(num, dice[i]);
+			showDie(i, Integer.toString(intDice[i]), DARK_RED);
 		}
+		endUpdate();
 	}
 	
 	
-	/**
-	 * This method pauses the program and waits for the dice to get selected.
-	 * The program is resumed, when the "Roll Dice" button is clicked.
-	 */
-	public void waitForPlayerToSelectDice() {
-		unselectDice();
-		waitingForPlayerToSelectDice = true;
-		waitingForPlayerToClickRoll = true;
-		synchronized(currentThread) {
-			try {
-				currentThread.wait();
-			} catch(InterruptedException e) { }
+	/** 
+	 * This method shows whether a die is selected for the next reroll.
+	 * 
+	 * @param	die			An int, the index of a die.
+	 * @param 	selected	A boolean, true if the die is selected.
+	 */
+	public void showDieSelected(int die, boolean selected) {
+		beginUpdate();
+		if (selected) {
+			dice[die].setFillColor(Color.BLUE);
+		} else {
+			dice[die].setFillColor(((hintedDice & (1 << die)) != 0) ? HINT_COLOR : Color.WHITE);
 		}
-		waitingForPlayerToSelectDice = false;
-		waitingForPlayerToClickRoll = false;
+		markDirty(dice[die]);
+		endUpdate();
 	}
 	
 	
-	/**
-	 * This method sets the select property of each die to false.
+	/** 
+	 * This method highlights the dice which the hint advises to hold, until
+	 * the dice are rolled again. The dice must not be selected.
+	 * 
+	 * @param	heldDice	An int, bit i is set if the die with index i should be held.
 	 */
-	private void unselectDice() {
+	public void showHint(int heldDice) {
+		beginUpdate();
+		hintedDice = heldDice;
 		for (int i = 0; i < N_DICE; i++) {
-			selectedDice[i] = false;
+			showDieSelected(i, false);
 		}
+		endUpdate();
 	}
 	
 	
 	/** 
-	 * This method returns the select property of a die.
+	 * This method fills the scores in the scorecard. Between beginUpdate()
+	 * and endUpdate() the cell is only marked to be repainted. The score of
+	 * a player scrolled out of view is only kept, to be shown when the
+	 * player columns are scrolled to the player.
 	 * 
-	 * @param	diceNum		An int, the index of a die.
-	 * @return 	boolean		Select property of the die.
+	 * @param	category	A static constant representing a category.
+	 * @param	player 		An int representing the player.
+	 * @param 	score		An int, the score to be filled.
 	 */
-	public boolean isDieSelected(int diceNum) {
-		return selectedDice[diceNum];
+	public void updateScorecard(int category, int player, int score) {
+		
+		scores[player][category] = score;
+		int column = getColumn(player);
+		if (column == 0)
+			return;
+		beginUpdate();
+		GLabel scoreLabel = scoreLabels[category][column];
+		markDirty(scoreLabel);
+		scoreLabel.setLabel(Integer.toString(score));
+		centerLabel(scoreLabel, scorecard[category][column]);
+		markDirty(scorecard[category][column]);
+		markDirty(scoreLabel);
+		endUpdate();
 	}
 	
-
+	
 	/** 
-	 * This method returns the selected category.
-	 * 
-	 * @return 	int		A static constant representing the selected category. 
-	 */
-	public int waitForPlayerToSelectCategory() {
-		waitingForPlayerToSelectCategory = true;
-		synchronized(currentThread) {
-			try {
-				currentThread.wait();
-			} catch(InterruptedException e) { }
+	 * This method starts a batch of updates, e.g. all the cells changed by a move.
+	 * Until the matching endUpdate() the canvas is not repainted; the changed
+	 * objects are only collected into one dirty region. Batches can be nested,
+	 * only the outermost endUpdate() repaints.
+	 */
+	public void beginUpdate() {
+		if (updateDepth++ == 0) {
+			updateStart = System.nanoTime();
+			yCanvas.setAutoRepaintFlag(false);
 		}
-		
-		waitingForPlayerToSelectCategory = false;
-		return selectedCategory;
 	}
 	
 	
 	/** 
-	 * This method fills the scores in the scorecard.
+	 * This method ends a batch of updates started by beginUpdate() and repaints
+	 * the region of the canvas covering every object changed in the batch, once.
+	 * The batch is recorded as a render in the metrics(see YahtzeeMetrics).
+	 */
+	public void endUpdate() {
+		if (--updateDepth > 0)
+			return;
+		yCanvas.setAutoRepaintFlag(true);
+		if (dirtyRegion != null) {
+			yCanvas.repaint(dirtyRegion.x, dirtyRegion.y, dirtyRegion.width, dirtyRegion.height);
+			dirtyRegion = null;
+		}
+		metrics.recordRender(System.nanoTime() - updateStart, yCanvas.getElementCount());
+	}
+	
+	
+	/** 
+	 * This method adds the bounds of a changed object to the dirty region of the
+	 * current batch. A label is marked before and after its text changes, so
+	 * that both the old and the new text get repainted.
 	 * 
-	 * @param	category	A static constant representing a category.
-	 * @param	player 		An int representing the player.
-	 * @param 	score		An int, the score to be filled.
+	 * @param 	obj 	The changed GObject.
 	 */
-	public void updateScorecard(int category, int player, int score) {
-				
-		scorecard[category][player].sendToFront();
-		
-		GLabel scoreLabel = new GLabel(Integer.toString(score));
-		scoreLabel.setFont("Arial-Bold-12");
-		scoreLabel.setColor(Color.BLUE);
-		addLabel(scoreLabel, scorecard[category][player]);	
+	private void markDirty(GObject obj) {
+		GRectangle bounds = obj.getBounds();
+		int x = (int) Math.floor(bounds.getX());
+		int y = (int) Math.floor(bounds.getY());
+		Rectangle region = new Rectangle(x, y,
+										 (int) Math.ceil(bounds.getX() + bounds.getWidth()) - x + 1,
+										 (int) Math.ceil(bounds.getY() + bounds.getHeight()) - y + 1);
+		if (dirtyRegion == null) {
+			dirtyRegion = region;
+		} else {
+			dirtyRegion.add(region);
+		}
 	}
 	
 	
@@ -511,29 +765,60 @@ public class YahtzeeDisplay implements YahtzeeConstants, YahtzeeDisplayConstants
 	/** It stores a reference to the graphical dice. */
 	private GRoundRect[] dice = new GRoundRect[N_DICE];
 	
+	/** It stores a reference to the labels showing the numbers on the dice. */
+	private GLabel[] diceLabels = new GLabel[N_DICE];
+	
 	/** It stores a reference to the graphical scorecard. */
 	private GRect[][] scorecard;
 	
-	/** It stores a reference to the currently executing thread object. */
-	private Thread currentThread;
+	/** It stores a reference to the labels showing the scores, indexed like "scorecard". */
+	private GLabel[][] scoreLabels;
 	
-	/** It stores a state of the program. */
-	private boolean waitingForPlayerToClickRoll = false;
+	/** It stores a reference to the labels showing the names, by player column. */
+	private GLabel[] nameLabels;
 	
-	/** It stores a state of the program. */
-	private boolean waitingForPlayerToSelectDice = false;
+	/** It stores a reference to the buttons which scroll the player columns, null if all the players are shown. */
+	private GRoundRect scrollBackButton;
+	private GRoundRect scrollForwardButton;
 	
-	/** It stores a state of the program. */
-	private boolean waitingForPlayerToSelectCategory = false;
+	/** It stores a reference to the label telling the players shown, null if all the players are shown. */
+	private GLabel scrollLabel;
 	
-	/** 
-	 * It stores the select properties of the dice. For example: If the second element of 
-	 * "selectedDice" array is true then the second die is selected.
-	 */
-	private boolean[] selectedDice = new boolean[N_DICE];
+	/** The names of all the players */
+	private String[] playerNames;
+	
+	/** The scores of all the players, by player and category, NO_SCORE if not filled */
+	private int[][] scores;
+	
+	/** The player shown in the first player column */
+	private int firstPlayer = 1;
+	
+	/** The player whose turn is on, 0 before the first turn */
+	private int highlightedPlayer;
+	
+	/** The score of a cell which is not filled */
+	private static final int NO_SCORE = -1;
+	
+	/** It stores a reference to the label of the messages. */
+	private GLabel messageLabel;
+	
+	/** The dice highlighted by the hint, bit i for the die with index i */
+	private int hintedDice;
+	
+	/** The number of beginUpdate() calls not ended yet */
+	private int updateDepth;
+	
+	/** The region of the canvas to be repainted at the end of the batch, null if none */
+	private Rectangle dirtyRegion;
+	
+	/** The time the current batch of updates began, from System.nanoTime() */
+	private long updateStart;
+	
+	/** The metrics which record the renders */
+	private final YahtzeeMetrics metrics = YahtzeeMetrics.get();
 	
-	/** It stores the static constant representing the selected category. */
-	private int selectedCategory; 
+	/** It stores a reference to the listener which gets the clicks of the players. */
+	private InputListener inputListener;
 
 	
 }
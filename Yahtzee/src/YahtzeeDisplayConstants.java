@@ -18,6 +18,9 @@ public interface YahtzeeDisplayConstants {
 	/** Dark red color. */
 	public static final Color DARK_RED = new Color(128, 0, 0);
 	
+	/** Color of the dice which the hint advises to hold. */
+	public static final Color HINT_COLOR = new Color(255, 236, 139);
+	
 	/** Vertical margin */	
 	public static final double V_MARGIN = 30;
 	
@@ -54,6 +57,15 @@ public interface YahtzeeDisplayConstants {
 	/** Width of the player column of the scoresheet */
 	public static final double PLAYER_COLUMN_WIDTH = 85;
 	
+	/** The number of player columns of the scoresheet; the other players are scrolled to */
+	public static final int VISIBLE_PLAYERS = 4;
+	
+	/** Width of the buttons which scroll the player columns */
+	public static final double SCROLL_BUTTON_WIDTH = 30;
+	
+	/** Height of the buttons which scroll the player columns */
+	public static final double SCROLL_BUTTON_HEIGHT = 18;
+	
 	/** Location of the message */	
 	public static final GPoint MESSAGE_LOC = new GPoint((2 * H_MARGIN) + ROLL_BUTTON_WIDTH, 
 			                                              V_MARGIN + ROLL_BUTTON_HEIGHT);
@@ -0,0 +1,466 @@
+/**
+ * File: YahtzeeGame.java
+ * ----------------------
+ * This file plays the Yahtzee game as a state machine driven by input
+ * events: rolling the dice, selecting dice to reroll and selecting a
+ * category. Nothing ever waits for the input; each event moves the game
+ * to its next phase and reports what happened to a YahtzeeGameListener.
+ *
+ * A turn goes through the phases ROLLING(waiting for the first roll),
+ * SELECTING_DICE(N_CHANCES times, each ended by a reroll) and
+ * SELECTING_CATEGORY, after which the next player's turn starts.
+ *
+ * A game is not thread safe: all the events of a game must be delivered
+ * by one thread at a time, e.g. the AWT event thread or the thread of a table.
+ * Many games can share one thread, since no game ever blocks it.
+ *
+ * A game can be played with any variant of the rules(see YahtzeeRules)
+ * which keeps N_DICE dice with N_FACES faces, since the dice of the UI,
+ * the game logs and the saved states are made for those dice.
+ */
+
+
+import java.nio.ByteBuffer;
+
+
+public class YahtzeeGame implements YahtzeeConstants {
+
+
+	/** The phases of the game */
+	public enum Phase {
+		/** The game has been created but not started. */
+		NOT_STARTED,
+		/** The current player has to roll the dice. */
+		ROLLING,
+		/** The current player selects the dice to reroll. */
+		SELECTING_DICE,
+		/** The current player selects a category. */
+		SELECTING_CATEGORY,
+		/** Every player has played all the rounds. */
+		GAME_OVER
+	}
+
+
+	/**
+	 * Constructs a game of the standard rules which is not started yet.
+	 *
+	 * @param 	nPlayers 	An int, the number of players.
+	 * @param 	random 		The random dice which roll the dice of the game.
+	 * @param 	listener 	The listener which is told about the events of the game.
+	 */
+	public YahtzeeGame(int nPlayers, YahtzeeDice random, YahtzeeGameListener listener) {
+		this(nPlayers, YahtzeeRules.STANDARD, random, listener);
+	}
+
+
+	/**
+	 * Constructs a game which is not started yet.
+	 *
+	 * @param 	nPlayers 	An int, the number of players.
+	 * @param 	rules 		The rules, with N_DICE dice of N_FACES faces.
+	 * @param 	random 		The random dice which roll the dice of the game.
+	 * @param 	listener 	The listener which is told about the events of the game.
+	 */
+	public YahtzeeGame(int nPlayers, YahtzeeRules rules, YahtzeeDice random, YahtzeeGameListener listener) {
+		if (nPlayers < 1)
+			throw new IllegalArgumentException("A game needs at least one player");
+		if (!rules.hasStandardDice())
+			throw new IllegalArgumentException("A game is played with " + N_DICE + " dice of " + N_FACES + " faces");
+		this.nPlayers = nPlayers;
+		this.rules = rules;
+		this.random = random;
+		this.listener = listener;
+		playerStates = new long[nPlayers];
+		categoryScores = new int[nPlayers * N_SCORING_CATEGORIES];
+	}
+
+
+	/**
+	 * Constructs a game in the state written by writeState, e.g. to resume
+	 * it after a restart. The listener is not told about the restored state.
+	 *
+	 * @param 	state 		A buffer holding the state at its position; getStateBytes(players) are read.
+	 * @param 	rules 		The rules the game was played with.
+	 * @param 	random 		The random dice which roll the dice of the game.
+	 * @param 	listener 	The listener which is told about the events of the game.
+	 */
+	public YahtzeeGame(ByteBuffer state, YahtzeeRules rules, YahtzeeDice random, YahtzeeGameListener listener) {
+		this(readPlayerCount(state), rules, random, listener);
+		int phaseIndex = state.get();
+		round = state.get();
+		player = state.get();
+		rollsLeft = state.get();
+		int selected = state.get();
+		int packedDice = state.getShort();
+		for (int i = 0; i < nPlayers; i++) {
+			playerStates[i] = state.getLong();
+			for (int j = 0; j < N_SCORING_CATEGORIES; j++) {
+				categoryScores[i * N_SCORING_CATEGORIES + j] = state.get() & 0xFF;
+			}
+		}
+		if (phaseIndex < 0 || phaseIndex >= PHASES.length || round < 0 || round > N_ROUNDS
+				|| player < 0 || player > nPlayers || rollsLeft < 0 || rollsLeft > N_CHANCES)
+			throw new IllegalArgumentException("Not a valid state of a game");
+		phase = PHASES[phaseIndex];
+		for (int i = 0; i < N_DICE; i++) {
+			selectedDice[i] = (selected & (1 << i)) != 0;
+			dice[i] = ((packedDice >>> (i * BITS_PER_DIE)) & DIE_MASK) + ONES;
+			if (dice[i] > N_FACES)
+				throw new IllegalArgumentException("Not a valid state of a game");
+		}
+	}
+
+
+	/**
+	 * This method reads the number of players at the start of a saved state.
+	 *
+	 * @param 	state 	A buffer holding the state at its position.
+	 * @return 	int
+	 */
+	private static int readPlayerCount(ByteBuffer state) {
+		int nPlayers = state.get();
+		if (nPlayers < 1 || nPlayers > MAX_PLAYERS)
+			throw new IllegalArgumentException("Not a valid state of a game");
+		return nPlayers;
+	}
+
+
+	/**
+	 * This method writes the state of the game into getStateBytes(players) bytes of
+	 * a buffer: the number of players, the phase, the round, the player, the rerolls
+	 * left and the selected dice(a byte each), the dice packed with 3 bits per die
+	 * (a short), then for each player the state of the player(a long) and the score
+	 * of each category by scoring index(a byte each).
+	 *
+	 * @param 	state 	The buffer to write to, from its position.
+	 */
+	public void writeState(ByteBuffer state) {
+		int selected = 0;
+		int packedDice = 0;
+		for (int i = 0; i < N_DICE; i++) {
+			if (selectedDice[i])
+				selected |= 1 << i;
+			packedDice |= Math.max(dice[i] - ONES, 0) << (i * BITS_PER_DIE);
+		}
+		state.put((byte) nPlayers).put((byte) phase.ordinal()).put((byte) round).put((byte) player)
+			 .put((byte) rollsLeft).put((byte) selected).putShort((short) packedDice);
+		for (int i = 0; i < nPlayers; i++) {
+			state.putLong(playerStates[i]);
+			for (int j = 0; j < N_SCORING_CATEGORIES; j++) {
+				state.put((byte) categoryScores[i * N_SCORING_CATEGORIES + j]);
+			}
+		}
+	}
+
+
+	/**
+	 * This method returns the number of bytes of the state of a game written by writeState.
+	 *
+	 * @param 	nPlayers 	An int, the number of players of the game.
+	 * @return 	int
+	 */
+	public static int getStateBytes(int nPlayers) {
+		return 8 + (8 + N_SCORING_CATEGORIES) * nPlayers;
+	}
+
+
+	/**
+	 * This method starts the first turn of the first player.
+	 *
+	 * @return 	boolean 	false if the game had already been started.
+	 */
+	public boolean start() {
+		if (phase != Phase.NOT_STARTED)
+			return false;
+		round = 1;
+		startTurn(1);
+		return true;
+	}
+
+
+	/**
+	 * This method handles a click on the "Roll Dice" button. The first roll
+	 * of a turn rolls all the dice, the next ones reroll the selected dice.
+	 *
+	 * @return 	boolean 	false if the dice can not be rolled now.
+	 */
+	public boolean roll() {
+		if (phase == Phase.ROLLING) {
+			rollDice((1 << N_DICE) - 1);
+			rollsLeft = N_CHANCES;
+			phase = Phase.SELECTING_DICE;
+		} else if (phase == Phase.SELECTING_DICE) {
+			int rerolls = 0;
+			for (int i = 0; i < N_DICE; i++) {
+				if (selectedDice[i])
+					rerolls |= 1 << i;
+			}
+			rollDice(rerolls);
+			rollsLeft--;
+			if (rollsLeft == 0)
+				phase = Phase.SELECTING_CATEGORY;
+		} else {
+			return false;
+		}
+		unselectDice();
+		listener.diceRolled(player, dice, rollsLeft);
+		return true;
+	}
+
+
+	/**
+	 * This method handles a click on a die: it selects the die for the
+	 * next reroll, or unselects it if it was selected.
+	 *
+	 * @param 	die 		An int, the index of the die.
+	 * @return 	boolean 	false if dice can not be selected now.
+	 */
+	public boolean toggleDie(int die) {
+		if (phase != Phase.SELECTING_DICE || die < 0 || die >= N_DICE)
+			return false;
+		selectedDice[die] = !selectedDice[die];
+		listener.dieSelected(die, selectedDice[die]);
+		return true;
+	}
+
+
+	/**
+	 * This method handles the selection of a category. The category is filled
+	 * with the score of the dice, unless it has already been filled or the
+	 * rules do not let the dice fill it(see YahtzeeRules.isAllowed).
+	 *
+	 * @param 	category 	A static constant integer representing the category.
+	 * @return 	boolean 	true if the category has been filled.
+	 */
+	public boolean selectCategory(int category) {
+		if (phase != Phase.SELECTING_CATEGORY || !isScoringCategory(category))
+			return false;
+		if (!rules.isAllowed(playerStates[player - 1], dice, category)) {
+			listener.categoryRejected(player, category);
+			return false;
+		}
+
+		int score = rules.getScore(playerStates[player - 1], dice, category);
+		playerStates[player - 1] = rules.fill(playerStates[player - 1], dice, category);
+		categoryScores[(player - 1) * N_SCORING_CATEGORIES + YahtzeeScorer.toScoringIndex(category)] = score;
+		listener.categorySelected(player, category, score, playerStates[player - 1]);
+		nextTurn();
+		return true;
+	}
+
+
+	/**
+	 * This method returns true if a category can be filled, i.e., it is
+	 * not one of the rows which sum up the scores, otherwise returns false.
+	 *
+	 * @param 	category 	An int, a row of the scorecard.
+	 * @return 	boolean
+	 */
+	public static boolean isScoringCategory(int category) {
+		return (category >= ONES && category <= SIXES)
+			|| (category >= THREE_OF_A_KIND && category <= CHANCE);
+	}
+
+
+	/**
+	 * This method starts the turn of the next player, or of the first
+	 * player in the next round, or ends the game after the last round.
+	 */
+	private void nextTurn() {
+		if (player < nPlayers) {
+			startTurn(player + 1);
+		} else if (round < N_ROUNDS) {
+			round++;
+			startTurn(1);
+		} else {
+			phase = Phase.GAME_OVER;
+			listener.gameOver(playerStates.clone());
+		}
+	}
+
+
+	/**
+	 * This method starts the turn of a player.
+	 *
+	 * @param 	player 	An int representing the player.
+	 */
+	private void startTurn(int player) {
+		this.player = player;
+		rollsLeft = N_CHANCES;
+		phase = Phase.ROLLING;
+		unselectDice();
+		listener.turnStarted(player);
+	}
+
+
+	/**
+	 * This method rolls the dice whose bits are set in "rerolls".
+	 *
+	 * @param 	rerolls 	An int, bit i is set if the die with index i is rolled.
+	 */
+	private void rollDice(int rerolls) {
+		random.roll(dice, rerolls);
+	}
+
+
+	/**
+	 * This method sets the select property of each die to false.
+	 */
+	private void unselectDice() {
+		for (int i = 0; i < N_DICE; i++) {
+			selectedDice[i] = false;
+		}
+	}
+
+
+	/**
+	 * This method returns the phase of the game.
+	 *
+	 * @return 	Phase
+	 */
+	public Phase getPhase() {
+		return phase;
+	}
+
+
+	/**
+	 * This method returns the rules of the game.
+	 *
+	 * @return 	YahtzeeRules
+	 */
+	public YahtzeeRules getRules() {
+		return rules;
+	}
+
+
+	/**
+	 * This method returns the number of players.
+	 *
+	 * @return 	int
+	 */
+	public int getPlayerCount() {
+		return nPlayers;
+	}
+
+
+	/**
+	 * This method returns the player whose turn is on(1 to the number of players).
+	 *
+	 * @return 	int
+	 */
+	public int getPlayer() {
+		return player;
+	}
+
+
+	/**
+	 * This method returns the current round(1 to N_ROUNDS).
+	 *
+	 * @return 	int
+	 */
+	public int getRound() {
+		return round;
+	}
+
+
+	/**
+	 * This method returns the number of rerolls left in the turn.
+	 *
+	 * @return 	int
+	 */
+	public int getRollsLeft() {
+		return rollsLeft;
+	}
+
+
+	/**
+	 * This method returns the number on a die.
+	 *
+	 * @param 	die 	An int, the index of the die.
+	 * @return 	int
+	 */
+	public int getDie(int die) {
+		return dice[die];
+	}
+
+
+	/**
+	 * This method returns the select property of a die.
+	 *
+	 * @param	die			An int, the index of a die.
+	 * @return 	boolean		true if the die will be rerolled.
+	 */
+	public boolean isDieSelected(int die) {
+		return selectedDice[die];
+	}
+
+
+	/**
+	 * This method returns the score a player filled a category with,
+	 * or 0 if the category is not used yet.
+	 *
+	 * @param 	player 		An int representing the player.
+	 * @param 	category 	A static constant integer representing a scoring category.
+	 * @return 	int
+	 */
+	public int getCategoryScore(int player, int category) {
+		return categoryScores[(player - 1) * N_SCORING_CATEGORIES + YahtzeeScorer.toScoringIndex(category)];
+	}
+
+
+	/**
+	 * This method returns the state of a player(see YahtzeePlayerState).
+	 *
+	 * @param 	player 	An int representing the player.
+	 * @return 	long
+	 */
+	public long getPlayerState(int player) {
+		return playerStates[player - 1];
+	}
+
+
+	/** The bits of a die in the packed dice of a saved state */
+	private static final int BITS_PER_DIE = 3;
+	private static final int DIE_MASK = (1 << BITS_PER_DIE) - 1;
+
+	/** The phases, by their number in a saved state */
+	private static final Phase[] PHASES = Phase.values();
+
+	/* Private instance variables */
+
+	/** The number of players */
+	private final int nPlayers;
+
+	/** The rules of the game */
+	private final YahtzeeRules rules;
+
+	/** The random dice which roll the dice of the game */
+	private final YahtzeeDice random;
+
+	/** The listener which is told about the events of the game */
+	private final YahtzeeGameListener listener;
+
+	/** The state of each player: the used categories and the scores */
+	private final long[] playerStates;
+
+	/** The score of each category of each player, N_SCORING_CATEGORIES consecutive entries per player */
+	private final int[] categoryScores;
+
+	/** An array to represent the dice */
+	private final int[] dice = new int[N_DICE];
+
+	/** The select properties of the dice, true if the die will be rerolled */
+	private final boolean[] selectedDice = new boolean[N_DICE];
+
+	/** The phase of the game */
+	private Phase phase = Phase.NOT_STARTED;
+
+	/** The player whose turn is on */
+	private int player;
+
+	/** The current round */
+	private int round;
+
+	/** The number of rerolls left in the turn */
+	private int rollsLeft;
+}
@@ -0,0 +1,61 @@
+/** 
+ * File: YahtzeeGameListener.java
+ * ------------------------------
+ * This file declares the events a YahtzeeGame reports while it is played,
+ * so that a UI, a log or a remote player can follow the game. The events
+ * are reported on the thread which delivers the input to the game.
+ */
+
+public interface YahtzeeGameListener {
+
+	/**
+	 * Called when a turn starts and the player has to roll the dice.
+	 * 
+	 * @param 	player 	An int representing the player.
+	 */
+	public void turnStarted(int player);
+
+	/**
+	 * Called after the dice have been rolled. If rerolls are left the player
+	 * selects the dice to reroll, otherwise the player selects a category.
+	 * 
+	 * @param 	player 		An int representing the player.
+	 * @param 	dice 		An array of integers, the numbers on the dice(owned by the game).
+	 * @param 	rollsLeft 	An int, the number of rerolls left in the turn.
+	 */
+	public void diceRolled(int player, int[] dice, int rollsLeft);
+
+	/**
+	 * Called when a die is selected for the next reroll or unselected.
+	 * 
+	 * @param 	die 		An int, the index of the die.
+	 * @param 	selected 	A boolean, true if the die will be rerolled.
+	 */
+	public void dieSelected(int die, boolean selected);
+
+	/**
+	 * Called when the player has filled a category.
+	 * 
+	 * @param 	player 			An int representing the player.
+	 * @param 	category 		A static constant integer representing the category.
+	 * @param 	score 			An int, the score of the category.
+	 * @param 	playerState 	A long, the new state of the player(see YahtzeePlayerState).
+	 */
+	public void categorySelected(int player, int category, int score, long playerState);
+
+	/**
+	 * Called when the player selects a category which has already been filled.
+	 * 
+	 * @param 	player 		An int representing the player.
+	 * @param 	category 	A static constant integer representing the category.
+	 */
+	public void categoryRejected(int player, int category);
+
+	/**
+	 * Called when every player has played N_ROUNDS turns.
+	 * 
+	 * @param 	playerStates 	An array of longs, the final state of each player.
+	 */
+	public void gameOver(long[] playerStates);
+	
+}
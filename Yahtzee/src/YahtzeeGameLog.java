@@ -0,0 +1,244 @@
+/**
+ * File: YahtzeeGameLog.java
+ * -------------------------
+ * This file records games of the Yahtzee game into a compact binary log.
+ * Each game is recorded by its own recorder, a YahtzeeGameListener placed
+ * in front of the listener of the game. When the game is over the recorder
+ * hands the whole game to the log, which appends it to a large buffer and
+ * writes the buffer to the file channel only when it is full, so a log
+ * shared by many games costs one write every few thousand games and the
+ * records of a game are always contiguous in the file.
+ *
+ * The file starts with a header(LOG_MAGIC, LOG_VERSION as an int each)
+ * followed by the records, whose first byte holds the kind of the record
+ * in its two high bits:
+ *   GAME 		2 bytes 	the kind, then the number of players
+ *   ROLL 		3 bytes 	kind(2 bits), rerolls left(2), held dice(5), dice(15)
+ *   CATEGORY 	2 bytes 	kind(2 bits), unused(4), scoring index(4), score(6)
+ *   GAME_OVER 	1 byte 		the kind
+ * The dice are packed with 3 bits per die(the number minus one), die i at bit
+ * 3 * i, and bit i of the held dice is set if the die with index i was held
+ * for the roll. The player of a record is the player whose turn it is: the
+ * turns follow each other in order from player 1, each turn ending with a
+ * CATEGORY record.
+ */
+
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+
+public final class YahtzeeGameLog implements Closeable, YahtzeeConstants {
+
+
+	/**
+	 * Opens a log which appends the games to a file, creating the
+	 * file with its header if it does not exist yet.
+	 *
+	 * @param 	file 	The file of the log.
+	 */
+	public YahtzeeGameLog(File file) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+								   StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		if (channel.size() == 0) {
+			buffer.putInt(LOG_MAGIC).putInt(LOG_VERSION);
+		}
+	}
+
+
+	/**
+	 * This method returns a listener which records a new game and forwards
+	 * every event to the listener of the game. The game is written to the
+	 * log when it is over; an unfinished game is not written.
+	 *
+	 * @param 	nPlayers 	An int, the number of players of the game.
+	 * @param 	listener 	The listener of the game, which gets every event.
+	 * @return 	YahtzeeGameListener
+	 */
+	public YahtzeeGameListener newRecorder(int nPlayers, YahtzeeGameListener listener) {
+		return new Recorder(nPlayers, listener);
+	}
+
+
+	/**
+	 * This method appends the records of a finished game to the buffer,
+	 * writing the buffer to the file first if the game does not fit.
+	 *
+	 * @param 	game 	The records of the game, from position 0 to the limit.
+	 */
+	private synchronized void write(ByteBuffer game) throws IOException {
+		if (game.remaining() > buffer.remaining())
+			writeBuffer();
+		buffer.put(game);
+	}
+
+
+	/**
+	 * This method writes the buffered games to the file.
+	 */
+	public synchronized void flush() throws IOException {
+		writeBuffer();
+	}
+
+
+	/**
+	 * This method writes the buffered games and closes the file.
+	 */
+	public synchronized void close() throws IOException {
+		try {
+			writeBuffer();
+		} finally {
+			channel.close();
+		}
+	}
+
+
+	/**
+	 * This method writes the whole buffer to the channel and empties it.
+	 */
+	private void writeBuffer() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+
+	/**
+	 * This method returns the numbers on the dice packed into 15 bits.
+	 *
+	 * @param 	dice 	An array of integers, the numbers on the dice.
+	 * @return 	int
+	 */
+	public static int packDice(int[] dice) {
+		int packed = 0;
+		for (int i = 0; i < N_DICE; i++) {
+			packed |= (dice[i] - 1) << (i * BITS_PER_DIE);
+		}
+		return packed;
+	}
+
+
+	/**
+	 * This method returns the number on a die from the packed dice.
+	 *
+	 * @param 	packedDice 	An int, the dice packed by packDice.
+	 * @param 	die 		An int, the index of the die.
+	 * @return 	int
+	 */
+	public static int getDie(int packedDice, int die) {
+		return ((packedDice >>> (die * BITS_PER_DIE)) & DIE_MASK) + 1;
+	}
+
+
+	/** It records the events of one game, on the thread of the game. */
+	private final class Recorder implements YahtzeeGameListener {
+
+		Recorder(int nPlayers, YahtzeeGameListener listener) {
+			this.listener = listener;
+			game = ByteBuffer.allocate(GAME_HEADER_BYTES + nPlayers * N_ROUNDS * MAX_TURN_BYTES + GAME_OVER_BYTES);
+			game.put((byte) (GAME << KIND_SHIFT)).put((byte) nPlayers);
+		}
+
+		public void turnStarted(int player) {
+			rerolls = 0;
+			listener.turnStarted(player);
+		}
+
+		public void diceRolled(int player, int[] dice, int rollsLeft) {
+			int heldDice = (rollsLeft == N_CHANCES) ? 0 : ~rerolls & ALL_DICE;
+			int record = (ROLL << (KIND_SHIFT + 16)) | (rollsLeft << 20) | (heldDice << 15) | packDice(dice);
+			game.put((byte) (record >>> 16)).putShort((short) record);
+			rerolls = 0;
+			listener.diceRolled(player, dice, rollsLeft);
+		}
+
+		public void dieSelected(int die, boolean selected) {
+			if (selected) {
+				rerolls |= 1 << die;
+			} else {
+				rerolls &= ~(1 << die);
+			}
+			listener.dieSelected(die, selected);
+		}
+
+		public void categorySelected(int player, int category, int score, long playerState) {
+			int record = (CATEGORY << (KIND_SHIFT + 8)) | (YahtzeeScorer.toScoringIndex(category) << 6) | score;
+			game.putShort((short) record);
+			listener.categorySelected(player, category, score, playerState);
+		}
+
+		public void categoryRejected(int player, int category) {
+			listener.categoryRejected(player, category);
+		}
+
+		public void gameOver(long[] playerStates) {
+			game.put((byte) (GAME_OVER << KIND_SHIFT));
+			game.flip();
+			try {
+				write(game);
+			} catch (IOException e) {
+				System.err.println("The game could not be logged: " + e);
+			}
+			listener.gameOver(playerStates);
+		}
+
+		/** The listener of the game */
+		private final YahtzeeGameListener listener;
+
+		/** The records of the game */
+		private final ByteBuffer game;
+
+		/** The dice selected for the next reroll, bit i for the die with index i */
+		private int rerolls;
+	}
+
+
+	/** The first int of a log file */
+	public static final int LOG_MAGIC = 0x595A4C47;
+
+	/** The version of the format of the log */
+	public static final int LOG_VERSION = 1;
+
+	/** The number of bytes of the header of a log file */
+	public static final int LOG_HEADER_BYTES = 8;
+
+	/** The kinds of the records, stored in the two high bits of their first byte */
+	public static final int GAME = 0;
+	public static final int ROLL = 1;
+	public static final int CATEGORY = 2;
+	public static final int GAME_OVER = 3;
+	public static final int KIND_SHIFT = 6;
+
+	/** The number of bytes of each kind of record */
+	public static final int GAME_HEADER_BYTES = 2;
+	public static final int ROLL_BYTES = 3;
+	public static final int CATEGORY_BYTES = 2;
+	public static final int GAME_OVER_BYTES = 1;
+
+	/** The bits of a die in the packed dice */
+	private static final int BITS_PER_DIE = 3;
+	private static final int DIE_MASK = (1 << BITS_PER_DIE) - 1;
+
+	/** Every die, as a set of dice */
+	private static final int ALL_DICE = (1 << N_DICE) - 1;
+
+	/** The largest number of bytes a turn takes */
+	private static final int MAX_TURN_BYTES = (1 + N_CHANCES) * ROLL_BYTES + CATEGORY_BYTES;
+
+	/** The size of the buffer of the games */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/* Private instance variables */
+
+	/** The channel of the file */
+	private final FileChannel channel;
+
+	/** The games waiting to be written */
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+}
@@ -0,0 +1,88 @@
+/**
+ * File: YahtzeeGreedyStrategy.java
+ * --------------------------------
+ * This file implements a simple strategy for the Yahtzee game which
+ * does not need the value table: it rerolls every die not showing its
+ * most frequent face and fills the unused category with the best score.
+ * It is a baseline to compare other strategies against.
+ */
+
+
+public final class YahtzeeGreedyStrategy implements YahtzeeConstants, YahtzeeStrategy {
+
+
+	/**
+	 * Constructs a greedy strategy for the standard rules.
+	 */
+	public YahtzeeGreedyStrategy() {
+		this(YahtzeeRules.STANDARD);
+	}
+
+
+	/**
+	 * Constructs a greedy strategy for a variant of the rules.
+	 *
+	 * @param 	rules 	The rules.
+	 */
+	public YahtzeeGreedyStrategy(YahtzeeRules rules) {
+		this.rules = rules;
+	}
+
+
+	/**
+	 * This method returns the dice which do not show the most frequent face.
+	 * On a tie the higher face is kept.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @param 	rollsLeft 		An int, the number of rerolls left in the turn.
+	 * @return 	int 			The dice to reroll.
+	 */
+	public int chooseRerolls(long playerState, int[] dice, int rollsLeft) {
+		int counts = YahtzeeScorer.countFaces(dice);
+		int keptFace = rules.getFaceCount();
+		for (int face = keptFace - 1; face >= 1; face--) {
+			if (YahtzeeScorer.countOf(counts, face) > YahtzeeScorer.countOf(counts, keptFace))
+				keptFace = face;
+		}
+
+		int rerolls = 0;
+		for (int i = 0; i < dice.length; i++) {
+			if (dice[i] != keptFace)
+				rerolls |= 1 << i;
+		}
+		return rerolls;
+	}
+
+
+	/**
+	 * This method returns the category the dice can fill with the highest score.
+	 * On a tie the category which comes first on the scorecard is chosen.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @return 	int 			A static constant integer representing the category.
+	 */
+	public int chooseCategory(long playerState, int[] dice) {
+		int usedMask = YahtzeePlayerState.getUsedMask(playerState);
+		int hand = rules.getHands().indexOf(dice);
+		int allowed = rules.getAllowedMask(usedMask, hand);
+		int best = -1;
+		int bestScore = -1;
+		for (int i = 0; i < N_SCORING_CATEGORIES; i++) {
+			if ((allowed & (1 << i)) != 0 && rules.getScore(usedMask, hand, i) > bestScore) {
+				bestScore = rules.getScore(usedMask, hand, i);
+				best = i;
+			}
+		}
+		if (best < 0)
+			throw new IllegalArgumentException("Every category is already used");
+		return YahtzeeScorer.toCategory(best);
+	}
+
+
+	/* Private instance variables */
+
+	/** The rules */
+	private final YahtzeeRules rules;
+}
@@ -0,0 +1,266 @@
+/**
+ * File: YahtzeeHands.java
+ * -----------------------
+ * This file enumerates every distinct hand of the Yahtzee game, i.e.,
+ * every multiset of the dice, and precomputes the score of each hand
+ * for all the scoring categories. With 5 dice and 6 faces there are
+ * only 252 such hands. The hands of a variant of the rules are built
+ * once by its YahtzeeRules object and never changed afterwards.
+ */
+
+
+public final class YahtzeeHands implements YahtzeeConstants {
+
+
+	/**
+	 * Constructs the tables of the hands of nDice dice with nFaces faces.
+	 *
+	 * @param 	nDice 	An int, the number of dice.
+	 * @param 	nFaces 	An int, the number of faces on a die.
+	 */
+	YahtzeeHands(int nDice, int nFaces) {
+		this.nDice = nDice;
+		this.nFaces = nFaces;
+		keyMask = (1 << ((nFaces - 1) * YahtzeeScorer.BITS_PER_FACE)) - 1;
+		handCount = countHands(nDice, nFaces);
+		handIndex = new short[keyMask + 1];
+		handCounts = new int[handCount];
+		scores = new short[handCount * N_SCORING_CATEGORIES];
+		jokerScores = new short[handCount * N_SCORING_CATEGORIES];
+		yahtzeeFaces = new byte[handCount];
+		addHands(ONES, nDice, 0, 0);
+	}
+
+
+	/**
+	 * This method returns the number of multisets of nDice dice with nFaces faces.
+	 *
+	 * @param 	nDice 	An int, the number of dice.
+	 * @param 	nFaces 	An int, the number of faces on a die.
+	 * @return 	int
+	 */
+	private static int countHands(int nDice, int nFaces) {
+		long count = 1;
+		for (int i = 1; i < nFaces; i++) {
+			count = count * (nDice + i) / i;
+		}
+		return (int) count;
+	}
+
+
+	/**
+	 * This method returns the number of dice of a hand.
+	 *
+	 * @return 	int
+	 */
+	public int getDiceCount() {
+		return nDice;
+	}
+
+
+	/**
+	 * This method returns the number of faces on a die.
+	 *
+	 * @return 	int
+	 */
+	public int getFaceCount() {
+		return nFaces;
+	}
+
+
+	/**
+	 * This method returns the number of distinct hands.
+	 *
+	 * @return 	int
+	 */
+	public int getHandCount() {
+		return handCount;
+	}
+
+
+	/**
+	 * This method returns the index(0 to getHandCount() - 1) of the hand
+	 * with the given packed counts of the faces.
+	 *
+	 * @param 	counts 	An int, the packed counts of the faces(see YahtzeeScorer.countFaces).
+	 * @return 	int 	The index of the hand.
+	 */
+	public int indexOf(int counts) {
+		return handIndex[counts & keyMask] & 0xFFFF;
+	}
+
+
+	/**
+	 * This method returns the index of the hand shown by the dice.
+	 *
+	 * @param 	dice 	An array of integers, the numbers on the dice.
+	 * @return 	int 	The index of the hand.
+	 */
+	public int indexOf(int[] dice) {
+		return indexOf(YahtzeeScorer.countFaces(dice));
+	}
+
+
+	/**
+	 * This method returns the packed counts of the faces of a hand.
+	 *
+	 * @param 	hand 	An int, the index of the hand.
+	 * @return 	int
+	 */
+	public int countsOf(int hand) {
+		return handCounts[hand];
+	}
+
+
+	/**
+	 * This method returns the score of a hand for a scoring category.
+	 *
+	 * @param 	hand 			An int, the index of the hand.
+	 * @param 	scoringIndex 	An int, the index of the category(see YahtzeeScorer.toScoringIndex).
+	 * @return 	int
+	 */
+	public int getScore(int hand, int scoringIndex) {
+		return scores[hand * N_SCORING_CATEGORIES + scoringIndex];
+	}
+
+
+	/**
+	 * This method returns the score of a hand for a scoring category when the
+	 * hand is a joker(see YahtzeeRules); it is getScore for the other hands.
+	 *
+	 * @param 	hand 			An int, the index of the hand.
+	 * @param 	scoringIndex 	An int, the index of the category.
+	 * @return 	int
+	 */
+	public int getJokerScore(int hand, int scoringIndex) {
+		return jokerScores[hand * N_SCORING_CATEGORIES + scoringIndex];
+	}
+
+
+	/**
+	 * This method fills "handScores" with the scores of a hand
+	 * for all the scoring categories in one copy.
+	 *
+	 * @param 	hand 		An int, the index of the hand.
+	 * @param 	handScores 	An array of at least N_SCORING_CATEGORIES integers to fill.
+	 */
+	public void getScores(int hand, int[] handScores) {
+		int offset = hand * N_SCORING_CATEGORIES;
+		for (int i = 0; i < N_SCORING_CATEGORIES; i++) {
+			handScores[i] = scores[offset + i];
+		}
+	}
+
+
+	/**
+	 * This method returns true if every die of the hand shows the same face
+	 * otherwise returns false.
+	 *
+	 * @param 	hand 	An int, the index of the hand.
+	 * @return 	boolean
+	 */
+	public boolean isYahtzee(int hand) {
+		return yahtzeeFaces[hand] != 0;
+	}
+
+
+	/**
+	 * This method returns the face of a Yahtzee, or 0 for the other hands.
+	 *
+	 * @param 	hand 	An int, the index of the hand.
+	 * @return 	int
+	 */
+	public int getYahtzeeFace(int hand) {
+		return yahtzeeFaces[hand];
+	}
+
+
+	/**
+	 * This method stores every hand in the tables, choosing the count
+	 * of "face" and recursing for the remaining faces.
+	 *
+	 * @param 	face 		An int, the face whose count is chosen.
+	 * @param 	diceLeft 	An int, the number of dice not yet given a face.
+	 * @param 	counts 		An int, the packed counts chosen so far.
+	 * @param 	next 		An int, the index the next complete hand gets.
+	 * @return 	int 		The index the next complete hand gets afterwards.
+	 */
+	private int addHands(int face, int diceLeft, int counts, int next) {
+		int shift = (face - 1) * YahtzeeScorer.BITS_PER_FACE;
+		if (face == nFaces)
+			return addHand(counts | (diceLeft << shift), next);
+
+		for (int count = diceLeft; count >= 0; count--) {
+			next = addHands(face + 1, diceLeft - count, counts | (count << shift), next);
+		}
+		return next;
+	}
+
+
+	/**
+	 * This method stores one hand and its scores in the tables.
+	 *
+	 * @param 	counts 	An int, the packed counts of the hand.
+	 * @param 	hand 	An int, the index of the hand.
+	 * @return 	int 	The index of the next hand.
+	 */
+	private int addHand(int counts, int hand) {
+		handIndex[counts & keyMask] = (short) hand;
+		handCounts[hand] = counts;
+		for (int i = 0; i < N_SCORING_CATEGORIES; i++) {
+			int category = YahtzeeScorer.toCategory(i);
+			scores[hand * N_SCORING_CATEGORIES + i] = (short) YahtzeeScorer.getScore(counts, category);
+			jokerScores[hand * N_SCORING_CATEGORIES + i] = scores[hand * N_SCORING_CATEGORIES + i];
+		}
+		if (YahtzeeScorer.isYahtzee(counts)) {
+			for (int face = 1; face <= nFaces; face++) {
+				if (YahtzeeScorer.countOf(counts, face) == nDice)
+					yahtzeeFaces[hand] = (byte) face;
+			}
+			jokerScores[hand * N_SCORING_CATEGORIES + YahtzeeScorer.toScoringIndex(FULL_HOUSE)] = FULL_HOUSE_SCORE;
+			jokerScores[hand * N_SCORING_CATEGORIES + YahtzeeScorer.toScoringIndex(SMALL_STRAIGHT)] =
+					SMALL_STRAIGHT_SCORE;
+			jokerScores[hand * N_SCORING_CATEGORIES + YahtzeeScorer.toScoringIndex(LARGE_STRAIGHT)] =
+					LARGE_STRAIGHT_SCORE;
+		}
+		return hand + 1;
+	}
+
+
+	/* Private instance variables */
+
+	/** The number of dice */
+	private final int nDice;
+
+	/** The number of faces on a die */
+	private final int nFaces;
+
+	/** The number of distinct hands, i.e., multisets of nDice dice with nFaces faces */
+	private final int handCount;
+
+	/**
+	 * The counts of the first nFaces - 1 faces identify a hand, since the count
+	 * of the last face is whatever is left. This mask keeps only those counts.
+	 */
+	private final int keyMask;
+
+	/** It maps the masked packed counts of a hand to the index of the hand */
+	private final short[] handIndex;
+
+	/** It stores the packed counts of each hand */
+	private final int[] handCounts;
+
+	/*
+	 * The arrays below are read directly by the inner loops of YahtzeeSolver;
+	 * nothing writes them after the constructor.
+	 */
+
+	/** It stores the scores of each hand, N_SCORING_CATEGORIES consecutive entries per hand */
+	final short[] scores;
+
+	/** The scores of each hand when it is a joker, laid out like "scores" */
+	final short[] jokerScores;
+
+	/** The face of each hand which is a Yahtzee, 0 for the other hands */
+	final byte[] yahtzeeFaces;
+}
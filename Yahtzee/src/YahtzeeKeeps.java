@@ -0,0 +1,342 @@
+/**
+ * File: YahtzeeKeeps.java
+ * -----------------------
+ * This file precomputes what rerolling leads to in the Yahtzee game.
+ * A keep is the multiset of dice held before a reroll(0 to all the dice);
+ * with 5 dice and 6 faces there are 462 keeps. For every keep the tables
+ * store the sparse list of the hands the reroll of the other dice can give,
+ * with their probabilities, and for every hand the distinct keeps it has.
+ *
+ * The tables of a variant of the rules are built once by its YahtzeeRules
+ * object, in flat primitive arrays which are never changed afterwards,
+ * so any number of threads can read them without synchronization.
+ */
+
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+public final class YahtzeeKeeps implements YahtzeeConstants {
+
+
+	/**
+	 * Constructs the tables of the keeps of the dice of some hands.
+	 *
+	 * @param 	hands 	The hands the keeps lead to.
+	 */
+	YahtzeeKeeps(YahtzeeHands hands) {
+		this.hands = hands;
+		nDice = hands.getDiceCount();
+		nFaces = hands.getFaceCount();
+		Map<Integer, Integer> keeps = new HashMap<Integer, Integer>();
+		addKeeps(ONES, nDice, 0, keeps);
+		keepCount = keeps.size();
+		keepIndex = new int[(nDice << ((nFaces - 1) * YahtzeeScorer.BITS_PER_FACE)) + 1];
+		keepCounts = new int[keepCount];
+		outcomeStart = new int[keepCount + 1];
+		subKeepStart = new int[hands.getHandCount() + 1];
+		for (Map.Entry<Integer, Integer> entry : keeps.entrySet()) {
+			keepCounts[entry.getValue()] = entry.getKey();
+			keepIndex[entry.getKey()] = entry.getValue();
+		}
+		int outcomes = 0;
+		for (int keep = 0; keep < keepCount; keep++) {
+			outcomes += countOutcomes(nDice - YahtzeeScorer.countDice(keepCounts[keep]));
+		}
+		outcomeHand = new int[outcomes];
+		outcomeProbability = new double[outcomes];
+		subKeep = buildKeepTables();
+	}
+
+
+	/**
+	 * This method returns the index(0 to getKeepCount() - 1) of the keep with the
+	 * given packed counts of the faces.
+	 *
+	 * @param 	counts 	An int, the packed counts of the kept dice(see YahtzeeScorer.countFaces).
+	 * @return 	int 	The index of the keep.
+	 */
+	public int indexOf(int counts) {
+		return keepIndex[counts];
+	}
+
+
+	/**
+	 * This method returns the index of the keep made of some of the dice.
+	 *
+	 * @param 	dice 		An array of integers, the numbers on the dice.
+	 * @param 	heldDice 	An int, bit i is set if the die with index i is held.
+	 * @return 	int 		The index of the keep.
+	 */
+	public int indexOf(int[] dice, int heldDice) {
+		int counts = 0;
+		for (int i = 0; i < dice.length; i++) {
+			if ((heldDice & (1 << i)) != 0)
+				counts += 1 << ((dice[i] - 1) * YahtzeeScorer.BITS_PER_FACE);
+		}
+		return keepIndex[counts];
+	}
+
+
+	/**
+	 * This method returns the packed counts of the faces of a keep.
+	 *
+	 * @param 	keep 	An int, the index of the keep.
+	 * @return 	int
+	 */
+	public int countsOf(int keep) {
+		return keepCounts[keep];
+	}
+
+
+	/**
+	 * This method returns the number of hands the reroll of the dice
+	 * not in the keep can lead to.
+	 *
+	 * @param 	keep 	An int, the index of the keep.
+	 * @return 	int
+	 */
+	public int getOutcomeCount(int keep) {
+		return outcomeStart[keep + 1] - outcomeStart[keep];
+	}
+
+
+	/**
+	 * This method returns the index of a hand the reroll can lead to.
+	 *
+	 * @param 	keep 	An int, the index of the keep.
+	 * @param 	i 		An int, the number of the outcome(0 to getOutcomeCount(keep) - 1).
+	 * @return 	int 	The index of the hand(see YahtzeeHands).
+	 */
+	public int getOutcomeHand(int keep, int i) {
+		return outcomeHand[outcomeStart[keep] + i];
+	}
+
+
+	/**
+	 * This method returns the probability that the reroll leads to an outcome.
+	 * The probabilities of the outcomes of a keep add up to 1.
+	 *
+	 * @param 	keep 	An int, the index of the keep.
+	 * @param 	i 		An int, the number of the outcome(0 to getOutcomeCount(keep) - 1).
+	 * @return 	double
+	 */
+	public double getOutcomeProbability(int keep, int i) {
+		return outcomeProbability[outcomeStart[keep] + i];
+	}
+
+
+	/**
+	 * This method returns the expected value of the hand after rerolling the
+	 * dice not in the keep.
+	 *
+	 * @param 	keep 		An int, the index of the keep.
+	 * @param 	handValues 	An array of doubles, the value of each hand.
+	 * @return 	double
+	 */
+	public double expect(int keep, double[] handValues) {
+		double value = 0;
+		for (int j = outcomeStart[keep], end = outcomeStart[keep + 1]; j < end; j++) {
+			value += outcomeProbability[j] * handValues[outcomeHand[j]];
+		}
+		return value;
+	}
+
+
+	/**
+	 * This method returns the number of distinct keeps of a hand, i.e.,
+	 * of distinct multisets among the subsets of its dice.
+	 *
+	 * @param 	hand 	An int, the index of the hand.
+	 * @return 	int
+	 */
+	public int getKeepCount(int hand) {
+		return subKeepStart[hand + 1] - subKeepStart[hand];
+	}
+
+
+	/**
+	 * This method returns one of the distinct keeps of a hand.
+	 *
+	 * @param 	hand 	An int, the index of the hand.
+	 * @param 	i 		An int, the number of the keep(0 to getKeepCount(hand) - 1).
+	 * @return 	int 	The index of the keep.
+	 */
+	public int getKeep(int hand, int i) {
+		return subKeep[subKeepStart[hand] + i];
+	}
+
+
+	/**
+	 * This method returns the number of keeps.
+	 *
+	 * @return 	int
+	 */
+	public int getKeepCount() {
+		return keepCount;
+	}
+
+
+	/**
+	 * This method returns the hands the keeps lead to.
+	 *
+	 * @return 	YahtzeeHands
+	 */
+	public YahtzeeHands getHands() {
+		return hands;
+	}
+
+
+	/**
+	 * This method returns the number of hands of "rolled" dice.
+	 *
+	 * @param 	rolled 	An int, the number of rolled dice.
+	 * @return 	int
+	 */
+	private int countOutcomes(int rolled) {
+		int n = 0;
+		for (int keep = 0; keep < keepCount; keep++) {
+			if (YahtzeeScorer.countDice(keepCounts[keep]) == rolled)
+				n++;
+		}
+		return n;
+	}
+
+
+	/**
+	 * This method numbers every keep, choosing the count of "face"
+	 * and recursing for the remaining faces.
+	 *
+	 * @param 	face 		An int, the face whose count is chosen.
+	 * @param 	diceLeft 	An int, the number of dice which can still be kept.
+	 * @param 	counts 		An int, the packed counts chosen so far.
+	 * @param 	keeps 		The map to store the index of each keep in.
+	 */
+	private void addKeeps(int face, int diceLeft, int counts, Map<Integer, Integer> keeps) {
+		if (face > nFaces) {
+			keeps.put(counts, keeps.size());
+			return;
+		}
+		for (int count = 0; count <= diceLeft; count++) {
+			addKeeps(face + 1, diceLeft - count,
+					 counts | (count << ((face - 1) * YahtzeeScorer.BITS_PER_FACE)), keeps);
+		}
+	}
+
+
+	/**
+	 * This method returns the probability that rolling as many dice as are
+	 * in "counts" shows exactly those faces.
+	 *
+	 * @param 	counts 	An int, the packed counts of the rolled dice.
+	 * @return 	double
+	 */
+	private double rollProbability(int counts) {
+		int n = YahtzeeScorer.countDice(counts);
+		double ways = FACTORIAL[n];
+		for (int face = 1; face <= nFaces; face++) {
+			ways /= FACTORIAL[YahtzeeScorer.countOf(counts, face)];
+		}
+		return ways / Math.pow(nFaces, n);
+	}
+
+
+	/**
+	 * This method builds the tables of keeps: the hands each keep can lead to
+	 * with their probabilities, and the distinct keeps of each hand.
+	 *
+	 * @return 	int[] 	The distinct keeps of each hand, indexed by subKeepStart.
+	 */
+	private int[] buildKeepTables() {
+		int n = 0;
+		for (int keep = 0; keep < keepCount; keep++) {
+			outcomeStart[keep] = n;
+			int rolled = nDice - YahtzeeScorer.countDice(keepCounts[keep]);
+			for (int roll = 0; roll < keepCount; roll++) {
+				if (YahtzeeScorer.countDice(keepCounts[roll]) != rolled)
+					continue;
+				outcomeHand[n] = hands.indexOf(keepCounts[keep] + keepCounts[roll]);
+				outcomeProbability[n] = rollProbability(keepCounts[roll]);
+				n++;
+			}
+		}
+		outcomeStart[keepCount] = n;
+
+		int handCount = hands.getHandCount();
+		int[] subKeeps = new int[handCount * (1 << nDice)];
+		n = 0;
+		for (int hand = 0; hand < handCount; hand++) {
+			subKeepStart[hand] = n;
+			n = addSubKeeps(hands.countsOf(hand), ONES, 0, subKeeps, n);
+		}
+		subKeepStart[handCount] = n;
+		int[] subKeep = new int[n];
+		System.arraycopy(subKeeps, 0, subKeep, 0, n);
+		return subKeep;
+	}
+
+
+	/**
+	 * This method stores every distinct keep of a hand, choosing how many
+	 * dice showing "face" are kept and recursing for the remaining faces.
+	 *
+	 * @param 	handCounts 	An int, the packed counts of the hand.
+	 * @param 	face 		An int, the face whose count is chosen.
+	 * @param 	counts 		An int, the packed counts of the keep chosen so far.
+	 * @param 	subKeeps 	The array to store the keeps in.
+	 * @param 	n 			An int, the number of keeps stored so far.
+	 * @return 	int 		The number of keeps stored afterwards.
+	 */
+	private int addSubKeeps(int handCounts, int face, int counts, int[] subKeeps, int n) {
+		if (face > nFaces) {
+			subKeeps[n] = keepIndex[counts];
+			return n + 1;
+		}
+		int shift = (face - 1) * YahtzeeScorer.BITS_PER_FACE;
+		for (int count = 0; count <= YahtzeeScorer.countOf(handCounts, face); count++) {
+			n = addSubKeeps(handCounts, face + 1, counts | (count << shift), subKeeps, n);
+		}
+		return n;
+	}
+
+
+	/** The index of the keep with no dice, which is the first roll of a turn */
+	public static final int EMPTY_KEEP = 0;
+
+	private static final double[] FACTORIAL = {1, 1, 2, 6, 24, 120, 720, 5040};
+
+	/* Private instance variables */
+
+	/** The hands the keeps lead to */
+	private final YahtzeeHands hands;
+
+	/** The number of dice */
+	private final int nDice;
+
+	/** The number of faces on a die */
+	private final int nFaces;
+
+	/** The number of keeps, i.e., multisets of 0 to nDice dice */
+	private final int keepCount;
+
+	/** It maps the packed counts of a keep to the index of the keep */
+	private final int[] keepIndex;
+
+	/** It stores the packed counts of each keep */
+	private final int[] keepCounts;
+
+	/*
+	 * The arrays below are read directly by the inner loops of YahtzeeSolver;
+	 * nothing writes them after the constructor.
+	 */
+
+	/** The hands each keep leads to, from outcomeStart[keep] to outcomeStart[keep + 1] */
+	final int[] outcomeStart;
+	final int[] outcomeHand;
+	final double[] outcomeProbability;
+
+	/** The distinct keeps of each hand, from subKeepStart[hand] to subKeepStart[hand + 1] */
+	final int[] subKeepStart;
+	final int[] subKeep;
+}
@@ -0,0 +1,452 @@
+/**
+ * File: YahtzeeMetrics.java
+ * -------------------------
+ * This file measures where the time goes in the turns of the Yahtzee game.
+ * The latency of each phase of a turn is recorded into a histogram:
+ *   ROLL_WAIT 		from the start of a turn to the first roll
+ *   REROLLS 		from the first roll to the last reroll, in turns with rerolls
+ *   CATEGORY 		from the last roll to the selection of a category
+ *   RENDER 		a batch of updates of the UI, from its first change to its repaint
+ *   BOT_DECISION 	a decision taken by the strategy of a bot
+ * along with counters of the games, the turns and the renders, and the
+ * number of objects on the canvas after the last render.
+ *
+ * The histograms and the counters are lock free: recording is a few
+ * atomic increments, so any thread can record without waiting for
+ * another. The metrics of the process are registered as MXBeans in the
+ * domain "Yahtzee" of the platform MBean server, and written to the file
+ * named by the system property "yahtzee.metrics" when the program stops.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+
+public final class YahtzeeMetrics implements YahtzeeMetricsMXBean {
+
+
+	/** The measured phases */
+	public enum Phase {
+		ROLL_WAIT("rollWait"), REROLLS("rerolls"), CATEGORY("category"),
+		RENDER("render"), BOT_DECISION("botDecision");
+
+		Phase(String name) {
+			this.name = name;
+		}
+
+		/** The name of the phase in the MBeans and in the report */
+		private final String name;
+	}
+
+
+	/** The management interface of a histogram, "Yahtzee:type=Latency,name=<phase>" */
+	public interface LatencyMXBean {
+
+		/** The number of recorded latencies */
+		public long getCount();
+
+		/** The mean latency, in microseconds */
+		public double getMeanMicros();
+
+		/** The median latency, in microseconds */
+		public double getP50Micros();
+
+		/** The 99th percentile of the latency, in microseconds */
+		public double getP99Micros();
+
+		/** The highest latency, in microseconds */
+		public double getMaxMicros();
+	}
+
+
+	/**
+	 * A lock-free histogram of latencies in nanoseconds. The buckets are
+	 * log-linear: SUB_BUCKETS buckets for each power of two, so a latency
+	 * is known within 1 / SUB_BUCKETS of its value. The highest latency is
+	 * kept exactly.
+	 */
+	public static final class Histogram implements LatencyMXBean {
+
+		/**
+		 * This method records a latency.
+		 *
+		 * @param 	nanos 	A long, the latency in nanoseconds.
+		 */
+		public void record(long nanos) {
+			if (nanos < 0)
+				nanos = 0;
+			buckets.incrementAndGet(bucketOf(nanos));
+			sum.add(nanos);
+			long previous = max.get();
+			while (nanos > previous && !max.compareAndSet(previous, nanos)) {
+				previous = max.get();
+			}
+		}
+
+
+		/**
+		 * This method returns the bucket of a latency.
+		 *
+		 * @param 	nanos 	A long, the latency in nanoseconds, not negative.
+		 * @return 	int
+		 */
+		private static int bucketOf(long nanos) {
+			if (nanos < SUB_BUCKETS)
+				return (int) nanos;
+			int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+			int shift = exponent - SUB_BUCKET_BITS;
+			return (shift + 1) * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+		}
+
+
+		/**
+		 * This method returns the highest latency of a bucket.
+		 *
+		 * @param 	bucket 	An int, the index of the bucket.
+		 * @return 	long
+		 */
+		private static long highestOf(int bucket) {
+			if (bucket < 2 * SUB_BUCKETS)
+				return bucket;
+			int shift = bucket / SUB_BUCKETS - 1;
+			long top = bucket % SUB_BUCKETS + SUB_BUCKETS;
+			return ((top + 1) << shift) - 1;
+		}
+
+
+		/**
+		 * This method returns the latency below or at which a fraction of
+		 * the recorded latencies are, in nanoseconds, or 0 if none is recorded.
+		 *
+		 * @param 	fraction 	A double, between 0 and 1.
+		 * @return 	long
+		 */
+		public long getPercentile(double fraction) {
+			long[] counts = new long[N_BUCKETS];
+			long total = 0;
+			for (int i = 0; i < N_BUCKETS; i++) {
+				counts[i] = buckets.get(i);
+				total += counts[i];
+			}
+			if (total == 0)
+				return 0;
+			long rank = Math.max(1, (long) Math.ceil(fraction * total));
+			long seen = 0;
+			for (int i = 0; i < N_BUCKETS; i++) {
+				seen += counts[i];
+				if (seen >= rank)
+					return Math.min(highestOf(i), max.get());
+			}
+			return max.get();
+		}
+
+
+		public long getCount() {
+			long count = 0;
+			for (int i = 0; i < N_BUCKETS; i++) {
+				count += buckets.get(i);
+			}
+			return count;
+		}
+
+
+		public double getMeanMicros() {
+			long count = getCount();
+			return count == 0 ? 0 : sum.sum() / (count * NANOS_PER_MICRO);
+		}
+
+
+		public double getP50Micros() {
+			return getPercentile(0.5) / NANOS_PER_MICRO;
+		}
+
+
+		public double getP99Micros() {
+			return getPercentile(0.99) / NANOS_PER_MICRO;
+		}
+
+
+		public double getMaxMicros() {
+			return max.get() / NANOS_PER_MICRO;
+		}
+
+
+		/** The number of bits of the index of a bucket within its power of two */
+		private static final int SUB_BUCKET_BITS = 4;
+		private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+		/** The number of buckets, up to the highest positive long */
+		private static final int N_BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+		/** The number of latencies of each bucket */
+		private final AtomicLongArray buckets = new AtomicLongArray(N_BUCKETS);
+
+		/** The sum of the latencies */
+		private final LongAdder sum = new LongAdder();
+
+		/** The highest latency */
+		private final AtomicLong max = new AtomicLong();
+	}
+
+
+	/**
+	 * Constructs metrics which are not registered anywhere, e.g. to measure
+	 * one run apart from the metrics of the process.
+	 */
+	public YahtzeeMetrics() {
+		for (Phase phase : Phase.values()) {
+			histograms.put(phase, new Histogram());
+		}
+	}
+
+
+	/**
+	 * This method returns the metrics of the process. They are registered
+	 * as MXBeans the first time, and written to the file named by the system
+	 * property "yahtzee.metrics", if any, when the program stops.
+	 *
+	 * @return 	YahtzeeMetrics
+	 */
+	public static YahtzeeMetrics get() {
+		return Registered.METRICS;
+	}
+
+
+	/** The holder of the metrics of the process, initialised on first use */
+	private static final class Registered {
+
+		private static final YahtzeeMetrics METRICS = register(new YahtzeeMetrics());
+
+		/**
+		 * This method registers metrics on the platform MBean server and
+		 * schedules the dump to the file of the system property, if any.
+		 *
+		 * @param 	metrics 	The metrics.
+		 * @return 	YahtzeeMetrics
+		 */
+		private static YahtzeeMetrics register(final YahtzeeMetrics metrics) {
+			try {
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				server.registerMBean(metrics, new ObjectName(DOMAIN + ":type=Metrics"));
+				for (Phase phase : Phase.values()) {
+					server.registerMBean(metrics.getHistogram(phase),
+										 new ObjectName(DOMAIN + ":type=Latency,name=" + phase.name));
+				}
+			} catch (JMException e) {
+				System.err.println("The metrics are not registered: " + e);
+			}
+			final String fileName = System.getProperty(METRICS_PROPERTY);
+			if (fileName != null) {
+				Runtime.getRuntime().addShutdownHook(new Thread() {
+					public void run() {
+						try {
+							metrics.dump(fileName);
+						} catch (IOException e) {
+							System.err.println("The metrics could not be written: " + e);
+						}
+					}
+				});
+			}
+			return metrics;
+		}
+	}
+
+
+	/**
+	 * This method returns the histogram of a phase.
+	 *
+	 * @param 	phase 		The phase.
+	 * @return 	Histogram
+	 */
+	public Histogram getHistogram(Phase phase) {
+		return histograms.get(phase);
+	}
+
+
+	/**
+	 * This method records a batch of updates of the UI.
+	 *
+	 * @param 	nanos 			A long, the time of the batch in nanoseconds.
+	 * @param 	canvasObjects 	An int, the number of objects on the canvas.
+	 */
+	public void recordRender(long nanos, int canvasObjects) {
+		renders.increment();
+		canvasObjectCount = canvasObjects;
+		getHistogram(Phase.RENDER).record(nanos);
+	}
+
+
+	public long getGames() {
+		return games.sum();
+	}
+
+
+	public long getTurns() {
+		return turns.sum();
+	}
+
+
+	public long getRenders() {
+		return renders.sum();
+	}
+
+
+	public int getCanvasObjectCount() {
+		return canvasObjectCount;
+	}
+
+
+	/**
+	 * This method returns the report of the metrics: a line for the counters,
+	 * then a line for each phase.
+	 *
+	 * @return 	String
+	 */
+	public String getReport() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("games %d  turns %d  renders %d  canvas objects %d%n",
+									getGames(), getTurns(), getRenders(), getCanvasObjectCount()));
+		report.append(String.format("%-12s %10s %12s %12s %12s %12s%n",
+									"phase", "count", "mean(us)", "p50(us)", "p99(us)", "max(us)"));
+		for (Phase phase : Phase.values()) {
+			Histogram histogram = getHistogram(phase);
+			report.append(String.format("%-12s %10d %12.1f %12.1f %12.1f %12.1f%n", phase.name,
+										histogram.getCount(), histogram.getMeanMicros(), histogram.getP50Micros(),
+										histogram.getP99Micros(), histogram.getMaxMicros()));
+		}
+		return report.toString();
+	}
+
+
+	public void dump(String fileName) throws IOException {
+		dump(new File(fileName));
+	}
+
+
+	/**
+	 * This method writes the report of the metrics to a file.
+	 *
+	 * @param 	file 	The file.
+	 */
+	public void dump(File file) throws IOException {
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()), "UTF-8"));
+		try {
+			writer.print(getReport());
+		} finally {
+			writer.close();
+		}
+		if (writer.checkError())
+			throw new IOException("The metrics could not be written to " + file);
+	}
+
+
+	/**
+	 * This method returns a listener which times the phases of the turns of
+	 * a game before passing every event on. The events of a game come from
+	 * one thread at a time, as the game is only touched by one thread.
+	 *
+	 * @param 	listener 				The listener which gets every event of the game.
+	 * @return 	YahtzeeGameListener
+	 */
+	public YahtzeeGameListener newTimer(YahtzeeGameListener listener) {
+		return new Timer(listener);
+	}
+
+
+	/**
+	 * The listener which times the phases of the turns. A phase starts once
+	 * the listener behind it has shown the event starting the phase, and
+	 * ends when the event ending it arrives.
+	 */
+	private final class Timer implements YahtzeeGameListener {
+
+		Timer(YahtzeeGameListener listener) {
+			this.listener = listener;
+		}
+
+		public void turnStarted(int player) {
+			turns.increment();
+			rolls = 0;
+			listener.turnStarted(player);
+			turnStart = System.nanoTime();
+		}
+
+		public void diceRolled(int player, int[] dice, int rollsLeft) {
+			long now = System.nanoTime();
+			if (rolls++ == 0)
+				getHistogram(Phase.ROLL_WAIT).record(now - turnStart);
+			listener.diceRolled(player, dice, rollsLeft);
+			lastRoll = System.nanoTime();
+			if (rolls == 1)
+				firstRoll = lastRoll;
+		}
+
+		public void dieSelected(int die, boolean selected) {
+			listener.dieSelected(die, selected);
+		}
+
+		public void categorySelected(int player, int category, int score, long playerState) {
+			long now = System.nanoTime();
+			if (rolls > 1)
+				getHistogram(Phase.REROLLS).record(lastRoll - firstRoll);
+			if (rolls > 0)
+				getHistogram(Phase.CATEGORY).record(now - lastRoll);
+			rolls = 0;
+			listener.categorySelected(player, category, score, playerState);
+		}
+
+		public void categoryRejected(int player, int category) {
+			listener.categoryRejected(player, category);
+		}
+
+		public void gameOver(long[] playerStates) {
+			games.increment();
+			listener.gameOver(playerStates);
+		}
+
+		private final YahtzeeGameListener listener;
+		private int rolls;
+		private long turnStart;
+		private long firstRoll;
+		private long lastRoll;
+	}
+
+
+	/** The domain of the MBeans of the metrics */
+	public static final String DOMAIN = "Yahtzee";
+
+	/** The name of the system property which names the file the metrics are written to at exit */
+	public static final String METRICS_PROPERTY = "yahtzee.metrics";
+
+	private static final double NANOS_PER_MICRO = 1000.0;
+
+	/* Private instance variables */
+
+	/** The histogram of each phase */
+	private final Map<Phase, Histogram> histograms = new EnumMap<Phase, Histogram>(Phase.class);
+
+	/** The number of games played to the end */
+	private final LongAdder games = new LongAdder();
+
+	/** The number of turns started */
+	private final LongAdder turns = new LongAdder();
+
+	/** The number of batches of updates repainted */
+	private final LongAdder renders = new LongAdder();
+
+	/** The number of objects on the canvas after the last render */
+	private volatile int canvasObjectCount;
+}
@@ -0,0 +1,32 @@
+/**
+ * File: YahtzeeMetricsMXBean.java
+ * -------------------------------
+ * This file declares the management interface of the counters of
+ * YahtzeeMetrics, registered as "Yahtzee:type=Metrics".
+ */
+
+
+import java.io.IOException;
+
+
+public interface YahtzeeMetricsMXBean {
+
+	/** The number of games played to the end */
+	public long getGames();
+
+	/** The number of turns started */
+	public long getTurns();
+
+	/** The number of batches of updates repainted on the UI */
+	public long getRenders();
+
+	/** The number of objects on the canvas after the last render */
+	public int getCanvasObjectCount();
+
+	/**
+	 * Writes the report of the metrics to a file.
+	 *
+	 * @param 	fileName 	A string, the name of the file.
+	 */
+	public void dump(String fileName) throws IOException;
+}
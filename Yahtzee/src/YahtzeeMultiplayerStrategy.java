@@ -0,0 +1,36 @@
+/**
+ * File: YahtzeeMultiplayerStrategy.java
+ * -------------------------------------
+ * This file declares the decisions of a player of the Yahtzee game who
+ * also looks at the scorecards of the other players, e.g. to play for the
+ * win rather than for the highest score. The decisions of YahtzeeStrategy
+ * are those taken without opponents, e.g. in a game of one player.
+ */
+
+public interface YahtzeeMultiplayerStrategy extends YahtzeeStrategy {
+
+	/**
+	 * This method returns the dice to reroll, knowing the states of the opponents.
+	 * Bit i of the returned int is set if the die with index i should be rerolled;
+	 * 0 ends the rolling of the turn.
+	 *
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @param 	opponentStates 	An array of longs, the states of the other players.
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @param 	rollsLeft 		An int, the number of rerolls left in the turn(1 to N_CHANCES).
+	 * @return 	int
+	 */
+	public int chooseRerolls(long playerState, long[] opponentStates, int[] dice, int rollsLeft);
+
+	/**
+	 * This method returns the unused category to fill with the dice, knowing
+	 * the states of the opponents.
+	 *
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @param 	opponentStates 	An array of longs, the states of the other players.
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @return 	int 			A static constant integer representing the category.
+	 */
+	public int chooseCategory(long playerState, long[] opponentStates, int[] dice);
+
+}
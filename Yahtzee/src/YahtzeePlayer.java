@@ -0,0 +1,87 @@
+/**
+ * File: YahtzeePlayer.java
+ * ------------------------
+ * This file describes a seat of a game of the Yahtzee game: a human, who
+ * plays by clicking on the UI, or a bot, whose decisions are taken by a
+ * strategy(see YahtzeeBotDriver).
+ */
+
+
+public final class YahtzeePlayer {
+
+
+	/**
+	 * Constructs a player.
+	 *
+	 * @param 	name 		A string, the name of the player.
+	 * @param 	strategy 	The strategy of a bot, or null for a human.
+	 */
+	private YahtzeePlayer(String name, YahtzeeStrategy strategy) {
+		this.name = name;
+		this.strategy = strategy;
+	}
+
+
+	/**
+	 * This method returns a human player.
+	 *
+	 * @param 	name 			A string, the name of the player.
+	 * @return 	YahtzeePlayer
+	 */
+	public static YahtzeePlayer human(String name) {
+		return new YahtzeePlayer(name, null);
+	}
+
+
+	/**
+	 * This method returns a bot player.
+	 *
+	 * @param 	name 			A string, the name of the player.
+	 * @param 	strategy 		The strategy which takes the decisions of the bot.
+	 * @return 	YahtzeePlayer
+	 */
+	public static YahtzeePlayer bot(String name, YahtzeeStrategy strategy) {
+		if (strategy == null)
+			throw new IllegalArgumentException("A bot needs a strategy");
+		return new YahtzeePlayer(name, strategy);
+	}
+
+
+	/**
+	 * This method returns the name of the player.
+	 *
+	 * @return 	String
+	 */
+	public String getName() {
+		return name;
+	}
+
+
+	/**
+	 * This method returns true if the player is a bot otherwise returns false.
+	 *
+	 * @return 	boolean
+	 */
+	public boolean isBot() {
+		return strategy != null;
+	}
+
+
+	/**
+	 * This method returns the strategy of a bot, or null for a human.
+	 *
+	 * @return 	YahtzeeStrategy
+	 */
+	public YahtzeeStrategy getStrategy() {
+		return strategy;
+	}
+
+
+	/* Private instance variables */
+
+	/** The name of the player */
+	private final String name;
+
+	/** The strategy of a bot, null for a human */
+	private final YahtzeeStrategy strategy;
+}
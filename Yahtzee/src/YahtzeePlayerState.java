@@ -0,0 +1,189 @@
+/**
+ * File: YahtzeePlayerState.java
+ * -----------------------------
+ * This file packs everything the rules need to know about a player of
+ * the Yahtzee game into a single long: the set of used categories and the
+ * upper and lower scores. A state is a plain value, so it is copied,
+ * compared and hashed in constant time and can be used as a cache key
+ * or handed to another thread without any copying.
+ *
+ * Layout of the bits of a state:
+ *   0 - 12 	used categories, bit i for the category with scoring index i
+ *  13 		set if the Yahtzee category holds a score other than 0
+ *  16 - 31 	upper score(without the upper bonus)
+ *  32 - 47 	lower score
+ */
+
+
+public final class YahtzeePlayerState implements YahtzeeConstants {
+
+
+	/** The states are only handled through static methods. */
+	private YahtzeePlayerState() { }
+
+
+	/**
+	 * This method returns the set of used categories of a state.
+	 * Bit i is set if the category with scoring index i is used.
+	 *
+	 * @param 	state 	A long, the state of a player.
+	 * @return 	int
+	 */
+	public static int getUsedMask(long state) {
+		return (int) state & USED_MASK;
+	}
+
+
+	/**
+	 * This method returns true if the category has already been
+	 * filled in the state otherwise returns false.
+	 *
+	 * @param 	state 		A long, the state of a player.
+	 * @param 	category 	A static constant integer representing a scoring category.
+	 * @return 	boolean
+	 */
+	public static boolean isUsed(long state, int category) {
+		return (state & (1L << YahtzeeScorer.toScoringIndex(category))) != 0;
+	}
+
+
+	/**
+	 * This method returns true if every category has been filled otherwise returns false.
+	 *
+	 * @param 	state 	A long, the state of a player.
+	 * @return 	boolean
+	 */
+	public static boolean isComplete(long state) {
+		return getUsedMask(state) == USED_MASK;
+	}
+
+
+	/**
+	 * This method returns the number of categories filled so far.
+	 *
+	 * @param 	state 	A long, the state of a player.
+	 * @return 	int
+	 */
+	public static int getRoundsPlayed(long state) {
+		return Integer.bitCount(getUsedMask(state));
+	}
+
+
+	/**
+	 * This method returns the sum of the scores of the upper categories.
+	 *
+	 * @param 	state 	A long, the state of a player.
+	 * @return 	int
+	 */
+	public static int getUpperScore(long state) {
+		return (int) (state >>> UPPER_SHIFT) & SCORE_MASK;
+	}
+
+
+	/**
+	 * This method returns true if the Yahtzee category has been filled with
+	 * a score other than 0 otherwise returns false.
+	 *
+	 * @param 	state 	A long, the state of a player.
+	 * @return 	boolean
+	 */
+	public static boolean isYahtzeeScored(long state) {
+		return (state & YAHTZEE_SCORED) != 0;
+	}
+
+
+	/**
+	 * This method returns the sum of the scores of the lower categories,
+	 * including the Yahtzee bonuses.
+	 *
+	 * @param 	state 	A long, the state of a player.
+	 * @return 	int
+	 */
+	public static int getLowerScore(long state) {
+		return (int) (state >>> LOWER_SHIFT) & SCORE_MASK;
+	}
+
+
+	/**
+	 * This method returns UPPER_BONUS_SCORE if the upper score has reached
+	 * MIN_UPPER_SCORE_TO_GET_UPPER_BONUS otherwise returns 0.
+	 *
+	 * @param 	state 	A long, the state of a player.
+	 * @return 	int
+	 */
+	public static int getUpperBonus(long state) {
+		return getUpperScore(state) >= MIN_UPPER_SCORE_TO_GET_UPPER_BONUS ? UPPER_BONUS_SCORE : 0;
+	}
+
+
+	/**
+	 * This method returns the total score including the upper bonus.
+	 *
+	 * @param 	state 	A long, the state of a player.
+	 * @return 	int
+	 */
+	public static int getTotal(long state) {
+		return getUpperScore(state) + getUpperBonus(state) + getLowerScore(state);
+	}
+
+
+	/**
+	 * This method returns the state after filling the category with the score.
+	 *
+	 * @param 	state 		A long, the state of a player.
+	 * @param 	category 	A static constant integer representing a scoring category.
+	 * @param 	score 		An int, the score to be filled.
+	 * @return 	long 		The new state.
+	 */
+	public static long fill(long state, int category, int score) {
+		if (isUsed(state, category))
+			throw new IllegalArgumentException("Category " + category + " has already been selected");
+		state |= 1L << YahtzeeScorer.toScoringIndex(category);
+		if (category == YAHTZEE && score > 0)
+			state |= YAHTZEE_SCORED;
+		if (category < UPPER_SCORE)
+			return state + ((long) score << UPPER_SHIFT);
+		return state + ((long) score << LOWER_SHIFT);
+	}
+
+
+	/**
+	 * This method returns the state after adding a bonus to the lower score,
+	 * e.g. the Yahtzee bonus(see YahtzeeRules).
+	 *
+	 * @param 	state 	A long, the state of a player.
+	 * @param 	bonus 	An int, the bonus.
+	 * @return 	long 	The new state.
+	 */
+	public static long addBonus(long state, int bonus) {
+		return state + ((long) bonus << LOWER_SHIFT);
+	}
+
+
+	/**
+	 * This method returns a readable form of a state, for messages and logs.
+	 *
+	 * @param 	state 	A long, the state of a player.
+	 * @return 	String
+	 */
+	public static String toString(long state) {
+		return "used=" + Integer.toBinaryString(getUsedMask(state))
+			   + " upper=" + getUpperScore(state)
+			   + " lower=" + getLowerScore(state);
+	}
+
+
+	/** The state of a player before the first turn */
+	public static final long NEW_STATE = 0L;
+
+	/** The bits of the used categories */
+	private static final int USED_MASK = (1 << N_SCORING_CATEGORIES) - 1;
+
+	/** The bit set if the Yahtzee category holds a score other than 0 */
+	private static final long YAHTZEE_SCORED = 1L << N_SCORING_CATEGORIES;
+
+	/** The position and the width of the scores */
+	private static final int UPPER_SHIFT = 16;
+	private static final int LOWER_SHIFT = 32;
+	private static final int SCORE_MASK = 0xFFFF;
+}
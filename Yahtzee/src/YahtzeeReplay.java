@@ -0,0 +1,501 @@
+/**
+ * File: YahtzeeReplay.java
+ * ------------------------
+ * This file replays the games archived by YahtzeeGameLog and collects
+ * their statistics. Every log file is mapped into memory and decoded in
+ * place, record by record, without allocating anything per record; the
+ * categories are scored again with the standard rules, which are the only
+ * rules the games are logged with, so that a log recorded with wrong scores
+ * is noticed. The files are replayed in
+ * parallel on the fork/join pool.
+ *
+ * Given the value table of the optimal strategy, the replay also measures
+ * the quality of the decisions of the players: how often they held the
+ * dice and chose the category the optimal strategy would have, and how
+ * much expected score their other decisions lost.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+public final class YahtzeeReplay implements YahtzeeConstants {
+
+
+	/**
+	 * Replays log files and prints their statistics. The arguments are the
+	 * log files, optionally preceded by "-values" and the file of the value
+	 * table to rate the decisions with.
+	 *
+	 * @param 	args 	The command line arguments.
+	 */
+	public static void main(String[] args) throws IOException {
+		YahtzeeStrategyTable optimal = null;
+		List<File> files = new ArrayList<File>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-values"))
+				optimal = YahtzeeStrategyTable.open(new File(args[++i]));
+			else
+				files.add(new File(args[i]));
+		}
+
+		long start = System.nanoTime();
+		Report report = replay(files.toArray(new File[files.size()]), optimal);
+		long elapsed = System.nanoTime() - start;
+		System.out.print(report);
+		System.out.println("Records per second: " + (long) (report.getRecords() / (elapsed / 1e9)));
+	}
+
+
+	/** The replay only has static methods, so it is never constructed. */
+	private YahtzeeReplay() { }
+
+
+	/**
+	 * This method replays log files with the common fork/join pool.
+	 *
+	 * @param 	files 		The log files.
+	 * @param 	optimal 	The optimal strategy to rate the decisions with, or null.
+	 * @return 	Report 		The statistics of the games.
+	 */
+	public static Report replay(File[] files, YahtzeeStrategyTable optimal) throws IOException {
+		return replay(files, optimal, ForkJoinPool.commonPool());
+	}
+
+
+	/**
+	 * This method replays log files in parallel, one task per file.
+	 *
+	 * @param 	files 		The log files.
+	 * @param 	optimal 	The optimal strategy of the standard rules to rate the decisions with, or null.
+	 * @param 	pool 		The pool which replays the files.
+	 * @return 	Report 		The statistics of the games.
+	 */
+	public static Report replay(File[] files, YahtzeeStrategyTable optimal, ForkJoinPool pool) throws IOException {
+		if (optimal != null && !optimal.getRules().equals(YahtzeeRules.STANDARD))
+			throw new IllegalArgumentException("The games are logged with the standard rules, not " + optimal.getRules());
+		if (files.length == 0)
+			return new Report();
+		try {
+			return pool.invoke(new ReplayTask(files, optimal, 0, files.length));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+
+	/**
+	 * This task replays a range of files. Bigger ranges are split in two
+	 * halves which are replayed in parallel.
+	 */
+	@SuppressWarnings("serial")
+	private static class ReplayTask extends RecursiveTask<Report> {
+
+		ReplayTask(File[] files, YahtzeeStrategyTable optimal, int from, int to) {
+			this.files = files;
+			this.optimal = optimal;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected Report compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				ReplayTask second = new ReplayTask(files, optimal, middle, to);
+				second.fork();
+				Report report = new ReplayTask(files, optimal, from, middle).compute();
+				report.add(second.join());
+				return report;
+			}
+			Report report = new Report();
+			try {
+				new Decoder(optimal, report).replay(files[from]);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return report;
+		}
+
+		private final File[] files;
+		private final YahtzeeStrategyTable optimal;
+		private final int from;
+		private final int to;
+	}
+
+
+	/** An IOException thrown through a task. */
+	@SuppressWarnings("serial")
+	private static class UncheckedIOException extends RuntimeException {
+
+		UncheckedIOException(IOException cause) {
+			super(cause);
+		}
+
+		public IOException getCause() {
+			return (IOException) super.getCause();
+		}
+	}
+
+
+	/**
+	 * It decodes the records of the files replayed by one task. The state of
+	 * the game being decoded lives in arrays allocated once per task.
+	 */
+	private static final class Decoder {
+
+		Decoder(YahtzeeStrategyTable optimal, Report report) {
+			this.optimal = optimal;
+			this.report = report;
+		}
+
+		/**
+		 * This method maps a log file and decodes all its finished games.
+		 * A file bigger than MAX_MAPPING is mapped piece by piece, every
+		 * piece starting with a game.
+		 */
+		void replay(File file) throws IOException {
+			RandomAccessFile in = new RandomAccessFile(file, "r");
+			try {
+				FileChannel channel = in.getChannel();
+				long size = channel.size();
+				long position = 0;
+				while (position < size) {
+					long length = Math.min(size - position, MAX_MAPPING);
+					MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+					buffer.order(ByteOrder.BIG_ENDIAN);
+					if (position == 0)
+						checkHeader(buffer, file);
+					int end = decode(buffer);
+					if (end == 0 || position + length == size)
+						break;
+					position += end;
+				}
+			} finally {
+				in.close();
+			}
+		}
+
+		/**
+		 * This method checks the header of a log file and skips it.
+		 */
+		private void checkHeader(MappedByteBuffer buffer, File file) throws IOException {
+			if (buffer.remaining() < YahtzeeGameLog.LOG_HEADER_BYTES
+					|| buffer.getInt() != YahtzeeGameLog.LOG_MAGIC
+					|| buffer.getInt() != YahtzeeGameLog.LOG_VERSION)
+				throw new IOException(file + " is not a game log");
+		}
+
+		/**
+		 * This method decodes the records of a mapping from its position and
+		 * returns the offset of the first game which does not end in it.
+		 * The records of that game are counted when it is decoded again.
+		 */
+		private int decode(MappedByteBuffer buffer) {
+			int gameStart = buffer.position();
+			int limit = buffer.limit();
+			gameRecords = 0;
+			int position = gameStart;
+			boolean inGame = false;
+			while (position < limit) {
+				int first = buffer.get(position) & 0xFF;
+				switch (first >>> YahtzeeGameLog.KIND_SHIFT) {
+					case YahtzeeGameLog.GAME:
+						if (position + YahtzeeGameLog.GAME_HEADER_BYTES > limit)
+							return gameStart;
+						gameStart = position;
+						inGame = startGame(buffer.get(position + 1) & 0xFF);
+						position += YahtzeeGameLog.GAME_HEADER_BYTES;
+						break;
+					case YahtzeeGameLog.ROLL:
+						if (position + YahtzeeGameLog.ROLL_BYTES > limit)
+							return gameStart;
+						if (inGame)
+							roll((first << 16) | (buffer.getShort(position + 1) & 0xFFFF));
+						position += YahtzeeGameLog.ROLL_BYTES;
+						break;
+					case YahtzeeGameLog.CATEGORY:
+						if (position + YahtzeeGameLog.CATEGORY_BYTES > limit)
+							return gameStart;
+						if (inGame)
+							inGame = selectCategory(buffer.getShort(position) & 0xFFFF);
+						position += YahtzeeGameLog.CATEGORY_BYTES;
+						break;
+					default:
+						if (inGame)
+							endGame();
+						inGame = false;
+						position += YahtzeeGameLog.GAME_OVER_BYTES;
+						gameStart = position;
+						report.records += gameRecords + 1;
+						gameRecords = -1;
+				}
+				gameRecords++;
+			}
+			return gameStart;
+		}
+
+		/**
+		 * This method starts decoding a game and returns false if the number
+		 * of players is not valid.
+		 */
+		private boolean startGame(int players) {
+			if (players < 1) {
+				report.invalidGames++;
+				return false;
+			}
+			if (players > playerStates.length) {
+				playerStates = new long[players];
+				categoryScores = new int[players][N_SCORING_CATEGORIES];
+			}
+			nPlayers = players;
+			player = 0;
+			for (int i = 0; i < nPlayers; i++) {
+				playerStates[i] = YahtzeePlayerState.NEW_STATE;
+			}
+			return true;
+		}
+
+		/**
+		 * This method decodes a roll and, before a reroll, rates the dice
+		 * the player held against the optimal strategy.
+		 */
+		private void roll(int record) {
+			int rollsLeft = (record >>> 20) & 3;
+			if (optimal != null && rollsLeft < N_CHANCES) {
+				int heldDice = (record >>> 15) & ALL_DICE;
+				int best = optimal.evaluateRerolls(playerStates[player], dice, rollsLeft + 1, rerollValues);
+				double loss = rerollValues[best] - rerollValues[ALL_DICE & ~heldDice];
+				report.holds++;
+				if (loss < TOLERANCE) {
+					report.optimalHolds++;
+				} else {
+					report.holdLoss += loss;
+				}
+			}
+			for (int i = 0; i < N_DICE; i++) {
+				dice[i] = YahtzeeGameLog.getDie(record, i);
+			}
+		}
+
+		/**
+		 * This method decodes the selection of a category, scores the dice again
+		 * and moves to the next player. It returns false if the record is not valid.
+		 */
+		private boolean selectCategory(int record) {
+			int scoringIndex = (record >>> 6) & 0xF;
+			if (scoringIndex >= N_SCORING_CATEGORIES) {
+				report.invalidGames++;
+				return false;
+			}
+			int category = YahtzeeScorer.toCategory(scoringIndex);
+			long state = playerStates[player];
+			if (YahtzeePlayerState.isUsed(state, category)) {
+				report.invalidGames++;
+				return false;
+			}
+			int score = YahtzeeScorer.getScore(dice, category);
+			if (score != (record & 0x3F))
+				report.scoreMismatches++;
+			if (optimal != null) {
+				int best = optimal.chooseCategory(state, dice);
+				double loss = optimal.getCategoryValue(state, dice, best)
+							  - optimal.getCategoryValue(state, dice, category);
+				report.categoryChoices++;
+				if (loss < TOLERANCE) {
+					report.optimalCategories++;
+				} else {
+					report.categoryLoss += loss;
+				}
+			}
+			playerStates[player] = YahtzeePlayerState.fill(state, category, score);
+			categoryScores[player][scoringIndex] = score;
+			player = (player + 1) % nPlayers;
+			return true;
+		}
+
+		/**
+		 * This method records the finished game of every player.
+		 */
+		private void endGame() {
+			for (int i = 0; i < nPlayers; i++) {
+				long state = playerStates[i];
+				if (!YahtzeePlayerState.isComplete(state)) {
+					report.invalidGames++;
+					return;
+				}
+			}
+			for (int i = 0; i < nPlayers; i++) {
+				long state = playerStates[i];
+				report.statistics.addGame(categoryScores[i], YahtzeePlayerState.getUpperBonus(state),
+										  YahtzeePlayerState.getTotal(state));
+			}
+			report.games++;
+		}
+
+		private final YahtzeeStrategyTable optimal;
+		private final Report report;
+		private final int[] dice = new int[N_DICE];
+		private final double[] rerollValues = new double[1 << N_DICE];
+		private long[] playerStates = new long[MAX_PLAYERS];
+		private int[][] categoryScores = new int[MAX_PLAYERS][N_SCORING_CATEGORIES];
+		private int nPlayers;
+		private int player;
+		private long gameRecords;
+	}
+
+
+	/**
+	 * The statistics of replayed games. The scores are collected per player
+	 * in a YahtzeeStatistics; the decisions are rated only if the replay
+	 * was given the optimal strategy.
+	 */
+	public static final class Report {
+
+		/**
+		 * This method adds the games of "other" to this report.
+		 *
+		 * @param 	other 	The report to add.
+		 */
+		public void add(Report other) {
+			statistics.add(other.statistics);
+			records += other.records;
+			games += other.games;
+			invalidGames += other.invalidGames;
+			scoreMismatches += other.scoreMismatches;
+			holds += other.holds;
+			optimalHolds += other.optimalHolds;
+			holdLoss += other.holdLoss;
+			categoryChoices += other.categoryChoices;
+			optimalCategories += other.optimalCategories;
+			categoryLoss += other.categoryLoss;
+		}
+
+		/**
+		 * This method returns the statistics of the final scores, one game per player.
+		 *
+		 * @return 	YahtzeeStatistics
+		 */
+		public YahtzeeStatistics getStatistics() {
+			return statistics;
+		}
+
+		/**
+		 * This method returns the number of decoded records.
+		 *
+		 * @return 	long
+		 */
+		public long getRecords() {
+			return records;
+		}
+
+		/**
+		 * This method returns the number of finished games replayed.
+		 *
+		 * @return 	long
+		 */
+		public long getGames() {
+			return games;
+		}
+
+		/**
+		 * This method returns the number of games which broke the rules and were skipped.
+		 *
+		 * @return 	long
+		 */
+		public long getInvalidGames() {
+			return invalidGames;
+		}
+
+		/**
+		 * This method returns the number of categories whose logged score
+		 * differs from the score of the dice.
+		 *
+		 * @return 	long
+		 */
+		public long getScoreMismatches() {
+			return scoreMismatches;
+		}
+
+		/**
+		 * This method returns the fraction of the rerolls in which the
+		 * optimal dice were held.
+		 *
+		 * @return 	double
+		 */
+		public double getOptimalHoldRate() {
+			return holds == 0 ? 0 : (double) optimalHolds / holds;
+		}
+
+		/**
+		 * This method returns the fraction of the categories which were
+		 * the optimal choice.
+		 *
+		 * @return 	double
+		 */
+		public double getOptimalCategoryRate() {
+			return categoryChoices == 0 ? 0 : (double) optimalCategories / categoryChoices;
+		}
+
+		/**
+		 * This method returns the average expected score lost by the decisions
+		 * of a player in a game, compared with the optimal strategy.
+		 *
+		 * @return 	double
+		 */
+		public double getMeanLossPerGame() {
+			long playerGames = statistics.getGames();
+			return playerGames == 0 ? 0 : (holdLoss + categoryLoss) / playerGames;
+		}
+
+		/**
+		 * This method returns a report of the statistics, one value per line.
+		 *
+		 * @return 	String
+		 */
+		public String toString() {
+			StringBuilder report = new StringBuilder();
+			report.append(String.format("Records:            %d%n", records));
+			report.append(String.format("Replayed games:     %d%n", games));
+			report.append(String.format("Invalid games:      %d%n", invalidGames));
+			report.append(String.format("Score mismatches:   %d%n", scoreMismatches));
+			if (holds + categoryChoices > 0) {
+				report.append(String.format("Optimal holds:      %.4f%n", getOptimalHoldRate()));
+				report.append(String.format("Optimal categories: %.4f%n", getOptimalCategoryRate()));
+				report.append(String.format("Mean loss per game: %.3f%n", getMeanLossPerGame()));
+			}
+			report.append(statistics);
+			return report.toString();
+		}
+
+		private final YahtzeeStatistics statistics = new YahtzeeStatistics();
+		private long records;
+		private long games;
+		private long invalidGames;
+		private long scoreMismatches;
+		private long holds;
+		private long optimalHolds;
+		private double holdLoss;
+		private long categoryChoices;
+		private long optimalCategories;
+		private double categoryLoss;
+	}
+
+
+	/** Every die, as a set of dice */
+	private static final int ALL_DICE = (1 << N_DICE) - 1;
+
+	/** The largest difference of expected scores still counted as equal */
+	private static final double TOLERANCE = 1e-6;
+
+	/** The largest piece of a file mapped at once */
+	private static final long MAX_MAPPING = 1L << 30;
+}
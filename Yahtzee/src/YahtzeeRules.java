@@ -0,0 +1,436 @@
+/**
+ * File: YahtzeeRules.java
+ * -----------------------
+ * This file describes a variant of the rules of the Yahtzee game: the
+ * number of dice and of faces, the Yahtzee bonus and the joker rule.
+ * The scores of the categories keep the values of YahtzeeConstants.
+ *
+ * A rules object builds the tables of its hands and keeps(see YahtzeeHands
+ * and YahtzeeKeeps) when it is constructed, so scoring stays a table lookup
+ * whatever the variant. The tables are never changed afterwards, so a rules
+ * object can be shared by any number of threads.
+ *
+ * Yahtzee bonus: a Yahtzee rolled when the Yahtzee category already holds
+ * YAHTZEE_SCORE earns the bonus, whatever category it is scored in.
+ *
+ * Joker: a Yahtzee rolled when the Yahtzee category is already used scores
+ * full points in FULL_HOUSE, SMALL_STRAIGHT and LARGE_STRAIGHT. With the
+ * FORCED joker it must fill the upper category of its face if it is unused,
+ * otherwise any unused lower category, and only if there is none an upper
+ * category; with the FREE joker it can fill any unused category.
+ */
+
+
+public final class YahtzeeRules implements YahtzeeConstants {
+
+
+	/** The joker rules */
+	public enum Joker {
+		/** A Yahtzee scores like any other hand. */
+		NONE,
+		/** A Yahtzee is a joker in any unused category. */
+		FREE,
+		/** A Yahtzee is a joker, in the categories the official rules allow. */
+		FORCED
+	}
+
+
+	/**
+	 * Constructs the rules of a variant and builds its tables.
+	 *
+	 * @param 	nDice 			An int, the number of dice(1 to MAX_DICE).
+	 * @param 	nFaces 			An int, the number of faces on a die(2 to N_FACES).
+	 * @param 	yahtzeeBonus 	An int, the score of the Yahtzee bonus, 0 for no bonus.
+	 * @param 	joker 			The joker rule.
+	 */
+	public YahtzeeRules(int nDice, int nFaces, int yahtzeeBonus, Joker joker) {
+		if (nDice < 1 || nDice > MAX_DICE)
+			throw new IllegalArgumentException("The number of dice must be between 1 and " + MAX_DICE);
+		if (nFaces < 2 || nFaces > N_FACES)
+			throw new IllegalArgumentException("The number of faces must be between 2 and " + N_FACES);
+		if (yahtzeeBonus < 0 || yahtzeeBonus > MAX_YAHTZEE_BONUS)
+			throw new IllegalArgumentException("The Yahtzee bonus must be between 0 and " + MAX_YAHTZEE_BONUS);
+		this.nDice = nDice;
+		this.nFaces = nFaces;
+		this.yahtzeeBonus = yahtzeeBonus;
+		this.joker = joker;
+		hands = new YahtzeeHands(nDice, nFaces);
+		keeps = new YahtzeeKeeps(hands);
+		reachableUpperScores = YahtzeeSolver.getReachableUpperScores(nDice, nFaces);
+	}
+
+
+	/**
+	 * This method returns the rules named by a string: "standard", "official"
+	 * (Yahtzee bonus and forced joker), "free-joker"(Yahtzee bonus and free
+	 * joker) or "bonus-<bonus>-joker-<none, free or forced>" for any other
+	 * Yahtzee bonus and joker rule, optionally followed by the dice, e.g.
+	 * "official,6d6" for six dice with six faces. Every name toString
+	 * returns is accepted.
+	 *
+	 * @param 	name 			A string, the name of the rules.
+	 * @return 	YahtzeeRules
+	 */
+	public static YahtzeeRules forName(String name) {
+		String[] parts = name.split(",");
+		int nDice = N_DICE;
+		int nFaces = N_FACES;
+		if (parts.length > 2)
+			throw new IllegalArgumentException("Unknown rules: " + name);
+		if (parts.length == 2) {
+			String[] dice = parts[1].split("d");
+			try {
+				nDice = Integer.parseInt(dice[0]);
+				nFaces = Integer.parseInt(dice[1]);
+			} catch (RuntimeException e) {
+				throw new IllegalArgumentException("The dice must be written like 5d6: " + parts[1]);
+			}
+		}
+
+		if (parts[0].equals("standard")) {
+			if (nDice == N_DICE && nFaces == N_FACES)
+				return STANDARD;
+			return new YahtzeeRules(nDice, nFaces, 0, Joker.NONE);
+		}
+		if (parts[0].equals("official"))
+			return new YahtzeeRules(nDice, nFaces, OFFICIAL_YAHTZEE_BONUS, Joker.FORCED);
+		if (parts[0].equals("free-joker"))
+			return new YahtzeeRules(nDice, nFaces, OFFICIAL_YAHTZEE_BONUS, Joker.FREE);
+		String[] variant = parts[0].split("-");
+		if (variant.length == 4 && variant[0].equals("bonus") && variant[2].equals("joker")) {
+			for (Joker joker : Joker.values()) {
+				if (variant[3].equals(joker.name().toLowerCase())) {
+					try {
+						return new YahtzeeRules(nDice, nFaces, Integer.parseInt(variant[1]), joker);
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException("The Yahtzee bonus must be a number: " + variant[1]);
+					}
+				}
+			}
+		}
+		throw new IllegalArgumentException("Unknown rules: " + name);
+	}
+
+
+	/**
+	 * This method returns the number of dice.
+	 *
+	 * @return 	int
+	 */
+	public int getDiceCount() {
+		return nDice;
+	}
+
+
+	/**
+	 * This method returns the number of faces on a die.
+	 *
+	 * @return 	int
+	 */
+	public int getFaceCount() {
+		return nFaces;
+	}
+
+
+	/**
+	 * This method returns the score of the Yahtzee bonus, 0 if there is no bonus.
+	 *
+	 * @return 	int
+	 */
+	public int getYahtzeeBonus() {
+		return yahtzeeBonus;
+	}
+
+
+	/**
+	 * This method returns the joker rule.
+	 *
+	 * @return 	Joker
+	 */
+	public Joker getJoker() {
+		return joker;
+	}
+
+
+	/**
+	 * This method returns the hands of the rules, with their scores.
+	 *
+	 * @return 	YahtzeeHands
+	 */
+	public YahtzeeHands getHands() {
+		return hands;
+	}
+
+
+	/**
+	 * This method returns the keeps of the rules, with their outcomes.
+	 *
+	 * @return 	YahtzeeKeeps
+	 */
+	public YahtzeeKeeps getKeeps() {
+		return keeps;
+	}
+
+
+	/**
+	 * This method returns true if the dice are those of the standard game,
+	 * N_DICE dice with N_FACES faces, otherwise returns false.
+	 *
+	 * @return 	boolean
+	 */
+	public boolean hasStandardDice() {
+		return nDice == N_DICE && nFaces == N_FACES;
+	}
+
+
+	/**
+	 * This method returns true if a hand is a joker for a player otherwise returns
+	 * false, i.e., if it is a Yahtzee and the Yahtzee category is already used.
+	 *
+	 * @param 	usedMask 	An int, the set of used categories(see YahtzeePlayerState.getUsedMask).
+	 * @param 	hand 		An int, the index of the hand.
+	 * @return 	boolean
+	 */
+	public boolean isJoker(int usedMask, int hand) {
+		return joker != Joker.NONE && (usedMask & YAHTZEE_BIT) != 0 && hands.isYahtzee(hand);
+	}
+
+
+	/**
+	 * This method returns the score of a hand for a scoring category, with the
+	 * joker if the hand is a joker for the player. The Yahtzee bonus is not included.
+	 *
+	 * @param 	usedMask 		An int, the set of used categories.
+	 * @param 	hand 			An int, the index of the hand.
+	 * @param 	scoringIndex 	An int, the index of the category(see YahtzeeScorer.toScoringIndex).
+	 * @return 	int
+	 */
+	public int getScore(int usedMask, int hand, int scoringIndex) {
+		if (isJoker(usedMask, hand))
+			return hands.getJokerScore(hand, scoringIndex);
+		return hands.getScore(hand, scoringIndex);
+	}
+
+
+	/**
+	 * This method returns the set of the categories a player can fill with a hand:
+	 * bit i is set if the category with scoring index i can be filled.
+	 *
+	 * @param 	usedMask 	An int, the set of used categories.
+	 * @param 	hand 		An int, the index of the hand.
+	 * @return 	int
+	 */
+	public int getAllowedMask(int usedMask, int hand) {
+		int unused = ~usedMask & ALL_CATEGORIES;
+		if (joker != Joker.FORCED || !isJoker(usedMask, hand))
+			return unused;
+		int face = 1 << (YahtzeeScorer.toScoringIndex(hands.getYahtzeeFace(hand)));
+		if ((unused & face) != 0)
+			return face;
+		if ((unused & LOWER_CATEGORIES) != 0)
+			return unused & LOWER_CATEGORIES;
+		return unused;
+	}
+
+
+	/**
+	 * This method returns the Yahtzee bonus a hand earns a player.
+	 *
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @param 	hand 			An int, the index of the hand.
+	 * @return 	int
+	 */
+	public int getBonus(long playerState, int hand) {
+		if (yahtzeeBonus == 0 || !YahtzeePlayerState.isYahtzeeScored(playerState) || !hands.isYahtzee(hand))
+			return 0;
+		return yahtzeeBonus;
+	}
+
+
+	/**
+	 * This method returns true if a player can fill the category with the dice
+	 * otherwise returns false.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @param 	category 		A static constant integer representing a scoring category.
+	 * @return 	boolean
+	 */
+	public boolean isAllowed(long playerState, int[] dice, int category) {
+		int allowed = getAllowedMask(YahtzeePlayerState.getUsedMask(playerState), hands.indexOf(dice));
+		return (allowed & (1 << YahtzeeScorer.toScoringIndex(category))) != 0;
+	}
+
+
+	/**
+	 * This method returns the score of the dice for the category, for a player.
+	 * The Yahtzee bonus is not included.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @param 	category 		A static constant integer representing a scoring category.
+	 * @return 	int
+	 */
+	public int getScore(long playerState, int[] dice, int category) {
+		return getScore(YahtzeePlayerState.getUsedMask(playerState), hands.indexOf(dice),
+						YahtzeeScorer.toScoringIndex(category));
+	}
+
+
+	/**
+	 * This method returns the state of a player after filling the category with
+	 * a hand, the Yahtzee bonus included.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	hand 			An int, the index of the hand.
+	 * @param 	scoringIndex 	An int, the index of the category.
+	 * @return 	long 			The new state.
+	 */
+	public long fill(long playerState, int hand, int scoringIndex) {
+		int usedMask = YahtzeePlayerState.getUsedMask(playerState);
+		if ((getAllowedMask(usedMask, hand) & (1 << scoringIndex)) == 0)
+			throw new IllegalArgumentException("Category " + YahtzeeScorer.toCategory(scoringIndex)
+											   + " can not be filled with this hand");
+		int bonus = getBonus(playerState, hand);
+		playerState = YahtzeePlayerState.fill(playerState, YahtzeeScorer.toCategory(scoringIndex),
+											  getScore(usedMask, hand, scoringIndex));
+		return YahtzeePlayerState.addBonus(playerState, bonus);
+	}
+
+
+	/**
+	 * This method returns the state of a player after filling the category with
+	 * the dice, the Yahtzee bonus included.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @param 	category 		A static constant integer representing a scoring category.
+	 * @return 	long 			The new state.
+	 */
+	public long fill(long playerState, int[] dice, int category) {
+		return fill(playerState, hands.indexOf(dice), YahtzeeScorer.toScoringIndex(category));
+	}
+
+
+	/**
+	 * This method returns the index of the state of a player in the value table
+	 * of these rules(see YahtzeeSolver).
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @return 	int
+	 */
+	public int getSolverIndex(long playerState) {
+		return YahtzeeSolver.stateIndex(YahtzeePlayerState.getUsedMask(playerState),
+										YahtzeePlayerState.getUpperScore(playerState),
+										yahtzeeBonus > 0 && YahtzeePlayerState.isYahtzeeScored(playerState));
+	}
+
+
+	/**
+	 * This method returns a number which identifies the rules in the files
+	 * written for them, e.g. the value tables.
+	 *
+	 * @return 	int
+	 */
+	public int getKey() {
+		return nDice | (nFaces << 4) | (joker.ordinal() << 8) | (yahtzeeBonus << 16);
+	}
+
+
+	/**
+	 * This method returns the default file of the value table of the rules:
+	 * YahtzeeSolver.DEFAULT_VALUES_FILE for the standard rules, otherwise a
+	 * file named after the rules.
+	 *
+	 * @return 	String
+	 */
+	public String getValuesFile() {
+		if (equals(STANDARD))
+			return YahtzeeSolver.DEFAULT_VALUES_FILE;
+		return "yahtzee-values-" + toString().replace(',', '-') + ".bin";
+	}
+
+
+	/**
+	 * This method returns the default file of the second moments of the rules
+	 * (see YahtzeeSolver.solveSecondMoments), named after the file of the value table.
+	 *
+	 * @return 	String
+	 */
+	public String getMomentsFile() {
+		String valuesFile = getValuesFile();
+		return valuesFile.substring(0, valuesFile.length() - ".bin".length()) + "-moments.bin";
+	}
+
+
+	public boolean equals(Object other) {
+		return other instanceof YahtzeeRules && ((YahtzeeRules) other).getKey() == getKey();
+	}
+
+
+	public int hashCode() {
+		return getKey();
+	}
+
+
+	/**
+	 * This method returns the name of the rules, which forName accepts.
+	 *
+	 * @return 	String
+	 */
+	public String toString() {
+		String name;
+		if (yahtzeeBonus == 0 && joker == Joker.NONE)
+			name = "standard";
+		else if (yahtzeeBonus == OFFICIAL_YAHTZEE_BONUS && joker == Joker.FORCED)
+			name = "official";
+		else if (yahtzeeBonus == OFFICIAL_YAHTZEE_BONUS && joker == Joker.FREE)
+			name = "free-joker";
+		else
+			name = "bonus-" + yahtzeeBonus + "-joker-" + joker.name().toLowerCase();
+		if (hasStandardDice())
+			return name;
+		return name + "," + nDice + "d" + nFaces;
+	}
+
+
+	/** The largest number of dice, since a count of dice is stored in YahtzeeScorer.BITS_PER_FACE bits */
+	public static final int MAX_DICE = 7;
+
+	/** The largest Yahtzee bonus */
+	public static final int MAX_YAHTZEE_BONUS = 1000;
+
+	/** The Yahtzee bonus of the official rules */
+	public static final int OFFICIAL_YAHTZEE_BONUS = 100;
+
+	/** The rules this game has always been played with: N_DICE dice, no Yahtzee bonus and no joker */
+	public static final YahtzeeRules STANDARD = new YahtzeeRules(N_DICE, N_FACES, 0, Joker.NONE);
+
+	/** The sets of categories, by scoring index */
+	private static final int ALL_CATEGORIES = (1 << N_SCORING_CATEGORIES) - 1;
+	private static final int LOWER_CATEGORIES = ALL_CATEGORIES & ~((1 << SIXES) - 1);
+	private static final int YAHTZEE_BIT = 1 << (YAHTZEE - THREE_OF_A_KIND + SIXES);
+
+	/* Private instance variables */
+
+	/** The number of dice */
+	private final int nDice;
+
+	/** The number of faces on a die */
+	private final int nFaces;
+
+	/** The score of the Yahtzee bonus, 0 for no bonus */
+	private final int yahtzeeBonus;
+
+	/** The joker rule */
+	private final Joker joker;
+
+	/** The hands and their scores */
+	private final YahtzeeHands hands;
+
+	/** The keeps and their outcomes */
+	private final YahtzeeKeeps keeps;
+
+	/** For each set of used upper categories, a bit set of the capped upper scores which can be reached */
+	final long[] reachableUpperScores;
+}
@@ -0,0 +1,656 @@
+/**
+ * File: YahtzeeScoreDistributions.java
+ * ------------------------------------
+ * This file computes the exact distribution of the final total of a
+ * player of the Yahtzee game from any state, when every decision is the
+ * one of a value table(see YahtzeeStrategyTable), e.g. the optimal
+ * strategy. The upper bonus and the Yahtzee bonus are included.
+ *
+ * The distributions of the score of the rest of the game are propagated
+ * backwards through the states like the values(see YahtzeeSolver): the
+ * distribution of a hand after the last roll is the one of the next state
+ * of its best category shifted by the score of the move, the distribution
+ * of a keep is the mixture of the distributions of its outcomes, and a
+ * hand before a reroll takes the distribution of its best keep. The best
+ * categories and keeps are computed exactly as by the solver, so the
+ * mean of a distribution is the value of its state. Of keeps of the same
+ * value a hand takes the one of the lowest index, like the strategy table,
+ * so a distribution is the one of the strategy the table plays. The states
+ * of a level are computed in parallel, each thread in histograms of its own
+ * which are reused from state to state, and only the keeps some hand
+ * chooses are mixed.
+ *
+ * A distribution is stored in 16 bits per score, relative to its highest
+ * probability, from its lowest to its highest score with a probability not
+ * rounded to 0. The table of the standard rules holds about 120 MB.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+public final class YahtzeeScoreDistributions implements YahtzeeConstants {
+
+
+	/**
+	 * Computes the distributions of the optimal strategy and prints the
+	 * distribution of the final total of a game. The arguments are "-rules"
+	 * and the name of the rules(default "standard", see YahtzeeRules.forName),
+	 * then the file of the value table(default the file of the rules, which is
+	 * solved first if it does not exist).
+	 *
+	 * @param 	args 	The command line arguments.
+	 */
+	public static void main(String[] args) throws IOException {
+		YahtzeeRules rules = YahtzeeRules.STANDARD;
+		int first = 0;
+		if (args.length > 1 && args[0].equals("-rules")) {
+			rules = YahtzeeRules.forName(args[1]);
+			first = 2;
+		}
+		File file = new File(args.length > first ? args[first] : rules.getValuesFile());
+		YahtzeeStrategyTable table = YahtzeeStrategyTable.open(rules, file);
+		long start = System.nanoTime();
+		YahtzeeScoreDistributions distributions = solve(table);
+		long elapsed = System.nanoTime() - start;
+
+		long state = YahtzeePlayerState.NEW_STATE;
+		System.out.println("Computed the distributions of the rules " + rules + " in " + (elapsed / 1000000)
+						   + " ms, " + (distributions.getStoredBytes() >> 20) + " MB");
+		System.out.println("Mean final total:   " + distributions.getMean(state)
+						   + " (value table: " + table.getExpectedScore(state) + ")");
+		System.out.println("Lowest and highest: " + distributions.getLowestTotal(state) + " - "
+						   + distributions.getHighestTotal(state));
+		double[] probabilities = new double[distributions.getHighestTotal(state) + 1];
+		distributions.getDistribution(state, probabilities);
+		double cumulative = 0;
+		int percentile = 0;
+		for (int total = 0; total < probabilities.length && percentile < PERCENTILES.length; total++) {
+			cumulative += probabilities[total];
+			while (percentile < PERCENTILES.length && cumulative >= PERCENTILES[percentile] / 100.0) {
+				System.out.println(String.format("%2d%% of the games:  %d or less", PERCENTILES[percentile], total));
+				percentile++;
+			}
+		}
+	}
+
+
+	/**
+	 * Constructs the table of the distributions of the states of some rules.
+	 *
+	 * @param 	rules 	The rules.
+	 */
+	private YahtzeeScoreDistributions(YahtzeeRules rules) {
+		this.rules = rules;
+		int states = YahtzeeSolver.getStateCount(rules);
+		histograms = new short[states][];
+		lowestScores = new int[states];
+		scales = new float[states];
+	}
+
+
+	/**
+	 * This method computes the distributions of the strategy of a value table
+	 * using the common fork/join pool.
+	 *
+	 * @param 	table 						The value table.
+	 * @return 	YahtzeeScoreDistributions
+	 */
+	public static YahtzeeScoreDistributions solve(YahtzeeStrategyTable table) {
+		return solve(table, ForkJoinPool.commonPool());
+	}
+
+
+	/**
+	 * This method computes the distributions of the strategy of a value table.
+	 * The states are computed level by level, starting with the states which
+	 * have every category used, whose score of the rest of the game is 0.
+	 *
+	 * @param 	table 						The value table.
+	 * @param 	pool 						The pool which computes the states of a level in parallel.
+	 * @return 	YahtzeeScoreDistributions
+	 */
+	public static YahtzeeScoreDistributions solve(YahtzeeStrategyTable table, ForkJoinPool pool) {
+		final YahtzeeRules rules = table.getRules();
+		YahtzeeScoreDistributions distributions = new YahtzeeScoreDistributions(rules);
+		int[][] masksByLevel = new int[N_SCORING_CATEGORIES + 1][];
+		for (int level = 0; level <= N_SCORING_CATEGORIES; level++) {
+			masksByLevel[level] = getMasks(level);
+		}
+		for (int upperScore = 0; upperScore <= YahtzeeSolver.UPPER_SCORE_CAP; upperScore++) {
+			for (int flag = 0; flag < 2; flag++) {
+				int index = YahtzeeSolver.stateIndex(ALL_USED, upperScore, flag != 0);
+				if (index < distributions.histograms.length) {
+					distributions.histograms[index] = new short[] {(short) QUANTA};
+					distributions.scales[index] = 1.0f;
+				}
+			}
+		}
+		ThreadLocal<Histograms> histograms = new ThreadLocal<Histograms>() {
+			protected Histograms initialValue() {
+				return new Histograms(rules);
+			}
+		};
+		for (int level = N_SCORING_CATEGORIES - 1; level >= 0; level--) {
+			int[] masks = masksByLevel[level];
+			pool.invoke(new DistributionTask(distributions, table.getValues(), histograms, masks, 0, masks.length));
+		}
+		return distributions;
+	}
+
+
+	/**
+	 * This method returns the sets of used categories with a number of used categories.
+	 *
+	 * @param 	level 	An int, the number of used categories.
+	 * @return 	int[]
+	 */
+	private static int[] getMasks(int level) {
+		int count = 0;
+		for (int mask = 0; mask < YahtzeeSolver.N_MASKS; mask++) {
+			if (Integer.bitCount(mask) == level)
+				count++;
+		}
+		int[] masks = new int[count];
+		for (int mask = 0, i = 0; mask < YahtzeeSolver.N_MASKS; mask++) {
+			if (Integer.bitCount(mask) == level)
+				masks[i++] = mask;
+		}
+		return masks;
+	}
+
+
+	/**
+	 * This method returns the rules of the distributions.
+	 *
+	 * @return 	YahtzeeRules
+	 */
+	public YahtzeeRules getRules() {
+		return rules;
+	}
+
+
+	/**
+	 * This method returns the probability that a player finishes the game with
+	 * a final total, from the start of a turn in the state of the player.
+	 *
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @param 	finalTotal 		An int, the final total.
+	 * @return 	double
+	 */
+	public double getProbability(long playerState, int finalTotal) {
+		int index = rules.getSolverIndex(playerState);
+		int i = finalTotal - YahtzeePlayerState.getTotal(playerState) - lowestScores[index];
+		short[] histogram = histograms[index];
+		if (i < 0 || i >= histogram.length)
+			return 0.0;
+		return (histogram[i] & 0xFFFF) * (double) scales[index] / QUANTA;
+	}
+
+
+	/**
+	 * This method fills "probabilities" with the distribution of the final total
+	 * of a player from the start of a turn in the state of the player: element t
+	 * gets the probability of the final total t.
+	 *
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @param 	probabilities 	An array of doubles to fill, by final total.
+	 */
+	public void getDistribution(long playerState, double[] probabilities) {
+		Arrays.fill(probabilities, 0.0);
+		int index = rules.getSolverIndex(playerState);
+		short[] histogram = histograms[index];
+		double scale = (double) scales[index] / QUANTA;
+		int lowest = YahtzeePlayerState.getTotal(playerState) + lowestScores[index];
+		for (int i = Math.max(0, -lowest); i < histogram.length && lowest + i < probabilities.length; i++) {
+			probabilities[lowest + i] = (histogram[i] & 0xFFFF) * scale;
+		}
+	}
+
+
+	/**
+	 * This method returns the lowest final total a player can finish with from
+	 * the start of a turn in the state of the player, apart from the totals whose
+	 * probability is too small to be stored.
+	 *
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @return 	int
+	 */
+	public int getLowestTotal(long playerState) {
+		return YahtzeePlayerState.getTotal(playerState) + lowestScores[rules.getSolverIndex(playerState)];
+	}
+
+
+	/**
+	 * This method returns the highest final total a player can finish with from
+	 * the start of a turn in the state of the player, apart from the totals whose
+	 * probability is too small to be stored.
+	 *
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @return 	int
+	 */
+	public int getHighestTotal(long playerState) {
+		return getLowestTotal(playerState) + histograms[rules.getSolverIndex(playerState)].length - 1;
+	}
+
+
+	/**
+	 * This method returns the mean final total of a player from the start of a
+	 * turn in the state of the player.
+	 *
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @return 	double
+	 */
+	public double getMean(long playerState) {
+		int index = rules.getSolverIndex(playerState);
+		short[] histogram = histograms[index];
+		double sum = 0;
+		double weighted = 0;
+		for (int i = 0; i < histogram.length; i++) {
+			sum += histogram[i] & 0xFFFF;
+			weighted += (double) i * (histogram[i] & 0xFFFF);
+		}
+		return YahtzeePlayerState.getTotal(playerState) + lowestScores[index] + weighted / sum;
+	}
+
+
+	/**
+	 * This method returns the number of bytes the distributions are stored in.
+	 *
+	 * @return 	long
+	 */
+	public long getStoredBytes() {
+		long bytes = (4L + 4L + 4L) * histograms.length;
+		for (int i = 0; i < histograms.length; i++) {
+			if (histograms[i] != null)
+				bytes += 2L * histograms[i].length;
+		}
+		return bytes;
+	}
+
+
+	/**
+	 * This method returns the highest score of the rest of a game from its
+	 * start under the rules, every bonus included.
+	 *
+	 * @param 	rules 	The rules.
+	 * @return 	int
+	 */
+	static int getMaxScore(YahtzeeRules rules) {
+		int nDice = rules.getDiceCount();
+		int nFaces = rules.getFaceCount();
+		return nDice * nFaces * (nFaces + 1) / 2 + UPPER_BONUS_SCORE
+			   + 3 * nDice * nFaces + FULL_HOUSE_SCORE + SMALL_STRAIGHT_SCORE + LARGE_STRAIGHT_SCORE + YAHTZEE_SCORE
+			   + (N_ROUNDS - 1) * rules.getYahtzeeBonus();
+	}
+
+
+	/**
+	 * This task computes the distributions of all the reachable states of a range
+	 * of sets of used categories. Bigger ranges are split in two halves which are
+	 * computed in parallel.
+	 */
+	@SuppressWarnings("serial")
+	private static class DistributionTask extends RecursiveAction {
+
+		DistributionTask(YahtzeeScoreDistributions distributions, FloatBuffer values,
+						 ThreadLocal<Histograms> histograms, int[] masks, int from, int to) {
+			this.distributions = distributions;
+			this.values = values;
+			this.histograms = histograms;
+			this.masks = masks;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from > MASKS_PER_TASK) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new DistributionTask(distributions, values, histograms, masks, from, middle),
+						  new DistributionTask(distributions, values, histograms, masks, middle, to));
+				return;
+			}
+			YahtzeeRules rules = distributions.rules;
+			Histograms workspace = histograms.get();
+			for (int i = from; i < to; i++) {
+				int mask = masks[i];
+				int flags = (rules.getYahtzeeBonus() > 0 && (mask & YAHTZEE_BIT) != 0) ? 2 : 1;
+				for (int upperScore = 0; upperScore <= YahtzeeSolver.UPPER_SCORE_CAP; upperScore++) {
+					if (!YahtzeeSolver.isReachable(rules, mask, upperScore))
+						continue;
+					for (int flag = 0; flag < flags; flag++) {
+						distributions.solveState(values, mask, upperScore, flag != 0, workspace);
+					}
+				}
+			}
+		}
+
+		private final YahtzeeScoreDistributions distributions;
+		private final FloatBuffer values;
+		private final ThreadLocal<Histograms> histograms;
+		private final int[] masks;
+		private final int from;
+		private final int to;
+	}
+
+
+	/**
+	 * This method computes and stores the distribution of the score of the rest
+	 * of the game from the start of a turn in a state, from the distributions of
+	 * the states with one more category used.
+	 *
+	 * @param 	values 			The value table.
+	 * @param 	usedMask 		An int, the set of used categories.
+	 * @param 	upperScore 		An int, the capped upper score.
+	 * @param 	yahtzeeScored 	A boolean, true if the Yahtzee category holds a score other than 0.
+	 * @param 	workspace 		The histograms to compute in.
+	 */
+	private void solveState(FloatBuffer values, int usedMask, int upperScore, boolean yahtzeeScored,
+							Histograms workspace) {
+		YahtzeeKeeps keeps = rules.getKeeps();
+		chooseCategories(values, usedMask, upperScore, yahtzeeScored, workspace);
+		YahtzeeSolver.expectKeeps(keeps, workspace.handValues, workspace.keepValues);
+		chooseKeeps(keeps, workspace.keepValues, workspace.handValues, workspace.firstKeeps);
+		YahtzeeSolver.expectKeeps(keeps, workspace.handValues, workspace.keepValues);
+		chooseKeeps(keeps, workspace.keepValues, workspace.handValues, workspace.secondKeeps);
+
+		// The keeps chosen from some hand of the first roll, then from some hand of the second roll
+		int keepCount = keeps.getKeepCount();
+		boolean[] firstNeeded = workspace.firstNeeded;
+		boolean[] secondNeeded = workspace.secondNeeded;
+		Arrays.fill(firstNeeded, false);
+		Arrays.fill(secondNeeded, false);
+		for (int j = keeps.outcomeStart[YahtzeeKeeps.EMPTY_KEEP]; j < keeps.outcomeStart[YahtzeeKeeps.EMPTY_KEEP + 1]; j++) {
+			secondNeeded[workspace.secondKeeps[keeps.outcomeHand[j]]] = true;
+		}
+		for (int keep = 0; keep < keepCount; keep++) {
+			if (!secondNeeded[keep])
+				continue;
+			for (int j = keeps.outcomeStart[keep]; j < keeps.outcomeStart[keep + 1]; j++) {
+				firstNeeded[workspace.firstKeeps[keeps.outcomeHand[j]]] = true;
+			}
+		}
+		for (int keep = 0; keep < keepCount; keep++) {
+			if (firstNeeded[keep])
+				workspace.first[keep].mixFinalHands(keep, keeps, workspace, this);
+		}
+		for (int keep = 0; keep < keepCount; keep++) {
+			if (secondNeeded[keep])
+				workspace.second[keep].mixKeeps(keeps, keep, workspace.firstKeeps, workspace.first);
+		}
+		workspace.start.mixKeeps(keeps, YahtzeeKeeps.EMPTY_KEEP, workspace.secondKeeps, workspace.second);
+		store(YahtzeeSolver.stateIndex(usedMask, upperScore, yahtzeeScored), workspace.start);
+	}
+
+
+	/**
+	 * This method fills "handValues" like YahtzeeSolver.scoreFinalHands, and the
+	 * next state and the score of the move of the best category of each hand.
+	 *
+	 * @param 	values 			The value table.
+	 * @param 	usedMask 		An int, the set of used categories.
+	 * @param 	upperScore 		An int, the capped upper score.
+	 * @param 	yahtzeeScored 	A boolean, true if the Yahtzee category holds a score other than 0.
+	 * @param 	workspace 		The histograms to compute in.
+	 */
+	private void chooseCategories(FloatBuffer values, int usedMask, int upperScore, boolean yahtzeeScored,
+								  Histograms workspace) {
+		YahtzeeHands hands = rules.getHands();
+		boolean hasBonus = rules.getYahtzeeBonus() > 0;
+		int bonus = yahtzeeScored ? rules.getYahtzeeBonus() : 0;
+		for (int hand = 0, handCount = hands.getHandCount(); hand < handCount; hand++) {
+			int allowed = rules.getAllowedMask(usedMask, hand);
+			short[] scores = rules.isJoker(usedMask, hand) ? hands.jokerScores : hands.scores;
+			double handBonus = hands.isYahtzee(hand) ? bonus : 0;
+			double best = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < N_SCORING_CATEGORIES; i++) {
+				if ((allowed & (1 << i)) == 0)
+					continue;
+				int score = scores[hand * N_SCORING_CATEGORIES + i];
+				boolean scored = yahtzeeScored || (hasBonus && i == YAHTZEE_INDEX && score > 0);
+				int next = YahtzeeSolver.stateIndex(usedMask | (1 << i),
+													YahtzeeSolver.upperScoreAfter(upperScore, i, score), scored);
+				double value = YahtzeeSolver.moveScore(upperScore, i, score) + values.get(next) + handBonus;
+				if (value > best) {
+					best = value;
+					workspace.handStates[hand] = next;
+					workspace.handScores[hand] = YahtzeeSolver.moveScore(upperScore, i, score) + (int) handBonus;
+				}
+			}
+			workspace.handValues[hand] = best;
+		}
+	}
+
+
+	/**
+	 * This method fills "handValues" like YahtzeeSolver.bestKeeps, and "bestKeeps"
+	 * with the best keep of each hand, the one of the lowest index of the keeps
+	 * of the same value like YahtzeeStrategyTable.evaluateRerolls.
+	 *
+	 * @param 	keeps 		The keeps of the rules.
+	 * @param 	keepValues 	The expected value of each keep.
+	 * @param 	handValues 	An array of doubles to fill, one per hand.
+	 * @param 	bestKeeps 	An array of integers to fill, one per hand.
+	 */
+	private static void chooseKeeps(YahtzeeKeeps keeps, double[] keepValues, double[] handValues, int[] bestKeeps) {
+		int[] subKeepStart = keeps.subKeepStart;
+		int[] subKeep = keeps.subKeep;
+		for (int hand = 0, handCount = keeps.getHands().getHandCount(); hand < handCount; hand++) {
+			double best = Double.NEGATIVE_INFINITY;
+			for (int j = subKeepStart[hand], end = subKeepStart[hand + 1]; j < end; j++) {
+				int keep = subKeep[j];
+				double value = keepValues[keep];
+				if (value > best || (value == best && keep < bestKeeps[hand])) {
+					best = value;
+					bestKeeps[hand] = keep;
+				}
+			}
+			handValues[hand] = best;
+		}
+	}
+
+
+	/**
+	 * This method stores a distribution in 16 bits per score relative to its
+	 * highest probability, without the scores at both ends rounded to 0.
+	 *
+	 * @param 	index 		An int, the index of the state.
+	 * @param 	histogram 	The distribution.
+	 */
+	private void store(int index, Histogram histogram) {
+		double[] probabilities = histogram.probabilities;
+		double highest = 0;
+		for (int score = histogram.low; score < histogram.high; score++) {
+			highest = Math.max(highest, probabilities[score]);
+		}
+		int low = histogram.low;
+		int high = histogram.high;
+		while (Math.round(probabilities[low] / highest * QUANTA) == 0) {
+			low++;
+		}
+		while (Math.round(probabilities[high - 1] / highest * QUANTA) == 0) {
+			high--;
+		}
+		short[] quantized = new short[high - low];
+		for (int i = 0; i < quantized.length; i++) {
+			quantized[i] = (short) Math.round(probabilities[low + i] / highest * QUANTA);
+		}
+		histograms[index] = quantized;
+		lowestScores[index] = low;
+		scales[index] = (float) highest;
+	}
+
+
+	/** A distribution of scores being computed, which is zero outside [low, high). */
+	static final class Histogram {
+
+		Histogram(int length) {
+			probabilities = new double[length];
+			low = length;
+		}
+
+		/**
+		 * This method empties the histogram.
+		 */
+		void clear() {
+			if (low < high)
+				Arrays.fill(probabilities, low, high, 0.0);
+			low = probabilities.length;
+			high = 0;
+		}
+
+		/**
+		 * This method adds a distribution times a weight to the histogram.
+		 *
+		 * @param 	weight 	A double, the weight.
+		 * @param 	other 	The distribution to add.
+		 */
+		void add(double weight, Histogram other) {
+			double[] source = other.probabilities;
+			for (int score = other.low; score < other.high; score++) {
+				probabilities[score] += weight * source[score];
+			}
+			low = Math.min(low, other.low);
+			high = Math.max(high, other.high);
+		}
+
+		/**
+		 * This method adds a stored distribution, shifted by a score, times a weight to the histogram.
+		 *
+		 * @param 	weight 		A double, the weight.
+		 * @param 	quantized 	An array of shorts, the stored probabilities.
+		 * @param 	offset 		An int, the score of the first stored probability.
+		 */
+		void add(double weight, short[] quantized, int offset) {
+			for (int i = 0; i < quantized.length; i++) {
+				probabilities[offset + i] += weight * (quantized[i] & 0xFFFF);
+			}
+			low = Math.min(low, offset);
+			high = Math.max(high, offset + quantized.length);
+		}
+
+		/**
+		 * This method sets the histogram to the distribution of the hand after
+		 * rerolling the dice not in a keep, the hands after the last roll being
+		 * scored in their best category.
+		 *
+		 * @param 	keep 			An int, the index of the keep.
+		 * @param 	keeps 			The keeps of the rules.
+		 * @param 	workspace 		The histograms, with the best category of each hand.
+		 * @param 	distributions 	The distributions of the next states.
+		 */
+		void mixFinalHands(int keep, YahtzeeKeeps keeps, Histograms workspace,
+						   YahtzeeScoreDistributions distributions) {
+			clear();
+			for (int j = keeps.outcomeStart[keep], end = keeps.outcomeStart[keep + 1]; j < end; j++) {
+				int hand = keeps.outcomeHand[j];
+				int next = workspace.handStates[hand];
+				add(keeps.outcomeProbability[j] * distributions.scales[next] / QUANTA,
+					distributions.histograms[next], distributions.lowestScores[next] + workspace.handScores[hand]);
+			}
+		}
+
+		/**
+		 * This method sets the histogram to the distribution of the hand after
+		 * rerolling the dice not in a keep, the hands rolled taking the distribution
+		 * of their best keep.
+		 *
+		 * @param 	keeps 			The keeps of the rules.
+		 * @param 	keep 			An int, the index of the keep.
+		 * @param 	bestKeeps 		An array of integers, the best keep of each hand.
+		 * @param 	keepHistograms 	The distributions of the keeps.
+		 */
+		void mixKeeps(YahtzeeKeeps keeps, int keep, int[] bestKeeps, Histogram[] keepHistograms) {
+			clear();
+			for (int j = keeps.outcomeStart[keep], end = keeps.outcomeStart[keep + 1]; j < end; j++) {
+				add(keeps.outcomeProbability[j], keepHistograms[bestKeeps[keeps.outcomeHand[j]]]);
+			}
+		}
+
+		final double[] probabilities;
+		int low;
+		int high;
+	}
+
+
+	/** The histograms a thread computes the distributions of its states in, reused from state to state. */
+	static final class Histograms {
+
+		Histograms(YahtzeeRules rules) {
+			int handCount = rules.getHands().getHandCount();
+			int keepCount = rules.getKeeps().getKeepCount();
+			int length = getMaxScore(rules) + 1;
+			handValues = new double[handCount];
+			keepValues = new double[keepCount];
+			handStates = new int[handCount];
+			handScores = new int[handCount];
+			firstKeeps = new int[handCount];
+			secondKeeps = new int[handCount];
+			firstNeeded = new boolean[keepCount];
+			secondNeeded = new boolean[keepCount];
+			first = new Histogram[keepCount];
+			second = new Histogram[keepCount];
+			for (int keep = 0; keep < keepCount; keep++) {
+				first[keep] = new Histogram(length);
+				second[keep] = new Histogram(length);
+			}
+			start = new Histogram(length);
+		}
+
+		final double[] handValues;
+		final double[] keepValues;
+
+		/** The next state and the score of the move of the best category of each hand */
+		final int[] handStates;
+		final int[] handScores;
+
+		/** The best keep of each hand of the second and of the first roll */
+		final int[] firstKeeps;
+		final int[] secondKeeps;
+
+		/** The keeps whose distribution is needed, of the second and of the first reroll */
+		final boolean[] firstNeeded;
+		final boolean[] secondNeeded;
+
+		/** The distributions of the keeps of the second and of the first reroll, and of the turn */
+		final Histogram[] first;
+		final Histogram[] second;
+		final Histogram start;
+	}
+
+
+	/** The number of quanta of the highest probability of a stored distribution */
+	static final int QUANTA = 0xFFFF;
+
+	/** The percentiles printed by main */
+	private static final int[] PERCENTILES = {1, 5, 10, 25, 50, 75, 90, 95, 99};
+
+	/** The set of all the categories */
+	private static final int ALL_USED = (1 << N_SCORING_CATEGORIES) - 1;
+
+	/** The scoring index of the Yahtzee category and its bit in a set of used categories */
+	private static final int YAHTZEE_INDEX = YAHTZEE - THREE_OF_A_KIND + SIXES;
+	private static final int YAHTZEE_BIT = 1 << YAHTZEE_INDEX;
+
+	/** The number of sets of used categories computed by one task without splitting */
+	private static final int MASKS_PER_TASK = 4;
+
+	/* Private instance variables */
+
+	/** The rules */
+	private final YahtzeeRules rules;
+
+	/** The stored distribution of the score of the rest of the game of every state, null if unreachable */
+	private final short[][] histograms;
+
+	/** The score of the first stored probability of every state */
+	private final int[] lowestScores;
+
+	/** The highest probability of every state, which the stored probabilities are relative to */
+	private final float[] scales;
+}
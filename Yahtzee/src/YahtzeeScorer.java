@@ -0,0 +1,308 @@
+/**
+ * File: YahtzeeScorer.java
+ * ------------------------
+ * This file scores a hand of dice for every category of the Yahtzee game.
+ * It does not depend on the UI and keeps no state, so it can be used
+ * by the game as well as by headless players and simulations.
+ */
+
+
+public final class YahtzeeScorer implements YahtzeeConstants {
+
+
+	/** The scorer only has static methods, so it is never constructed. */
+	private YahtzeeScorer() { }
+
+
+	/**
+	 * This method returns the occurrence of each face packed into a single int.
+	 * The count of face "f" is stored in the bits starting at (f - 1) * BITS_PER_FACE.
+	 * for example: if the dice has values -  2, 4, 4, 5, 3
+	 * then the counts 0, 1, 1, 2, 1, 0 are stored for the faces 1 to 6.
+	 * No array is allocated, so it can be called as often as needed.
+	 *
+	 * @param 	dice 	An array of integers, the numbers on the dice.
+	 * @return 	int 	The packed counts of the faces.
+	 */
+	public static int countFaces(int[] dice) {
+		int counts = 0;
+		for (int i = 0; i < dice.length; i++) {
+			counts += 1 << ((dice[i] - 1) * BITS_PER_FACE);
+		}
+		return counts;
+	}
+
+
+	/**
+	 * This method returns the number of dice showing "face".
+	 *
+	 * @param 	counts 	An int, the packed counts of the faces.
+	 * @param 	face 	An int, number between 1 and 6(both including).
+	 * @return 	int
+	 */
+	public static int countOf(int counts, int face) {
+		return (counts >>> ((face - 1) * BITS_PER_FACE)) & FACE_MASK;
+	}
+
+
+	/**
+	 * This method returns the number of dice.
+	 *
+	 * @param 	counts 	An int, the packed counts of the faces.
+	 * @return 	int
+	 */
+	public static int countDice(int counts) {
+		int n = 0;
+		for (int face = 1; face <= N_FACES; face++) {
+			n += countOf(counts, face);
+		}
+		return n;
+	}
+
+
+	/**
+	 * This method returns a bit set of the faces which have come up
+	 * at least once. Bit (f - 1) is set if the face "f" is present.
+	 *
+	 * @param 	counts 	An int, the packed counts of the faces.
+	 * @return 	int
+	 */
+	public static int facesPresent(int counts) {
+		int present = 0;
+		for (int face = 1; face <= N_FACES; face++) {
+			if (countOf(counts, face) > 0)
+				present |= 1 << (face - 1);
+		}
+		return present;
+	}
+
+
+	/**
+	 * This method returns the largest number of dice showing the same face.
+	 *
+	 * @param 	counts 	An int, the packed counts of the faces.
+	 * @return 	int
+	 */
+	public static int maxOfAKind(int counts) {
+		int max = 0;
+		for (int face = 1; face <= N_FACES; face++) {
+			int count = countOf(counts, face);
+			if (count > max)
+				max = count;
+		}
+		return max;
+	}
+
+
+	/**
+	 * This method returns true if the dice configuration is
+	 * three of a kind otherwise returns false.
+	 *
+	 * @param 	counts 	An int, the packed counts of the faces.
+	 * @return 	boolean
+	 */
+	public static boolean isThreeOfAKind(int counts) {
+		return maxOfAKind(counts) >= 3;
+	}
+
+
+	/**
+	 * This method returns true if the dice configuration is
+	 * four of a kind otherwise returns false.
+	 *
+	 * @param 	counts 	An int, the packed counts of the faces.
+	 * @return 	boolean
+	 */
+	public static boolean isFourOfAKind(int counts) {
+		return maxOfAKind(counts) >= 4;
+	}
+
+
+	/**
+	 * This method returns true if the dice configuration is
+	 * full house(three of one face and two of another) otherwise returns false.
+	 *
+	 * @param 	counts 	An int, the packed counts of the faces.
+	 * @return 	boolean
+	 */
+	public static boolean isFullHouse(int counts) {
+		boolean hasPair = false;
+		boolean hasTriple = false;
+		for (int face = 1; face <= N_FACES; face++) {
+			int count = countOf(counts, face);
+			if (count == 2)
+				hasPair = true;
+			else if (count == 3)
+				hasTriple = true;
+		}
+		return hasPair && hasTriple;
+	}
+
+
+	/**
+	 * This method returns true if dice configuration is
+	 * a small straight(1234, 2345 or 3456) otherwise returns false.
+	 *
+	 * @param 	counts 	An int, the packed counts of the faces.
+	 * @return 	boolean
+	 */
+	public static boolean isSmallStraight(int counts) {
+		int present = facesPresent(counts);
+		return (present & 0x0F) == 0x0F
+			|| (present & 0x1E) == 0x1E
+			|| (present & 0x3C) == 0x3C;
+	}
+
+
+	/**
+	 * This method returns true if dice configuration is
+	 * a large straight(12345 or 23456) otherwise returns false.
+	 *
+	 * @param 	counts 	An int, the packed counts of the faces.
+	 * @return 	boolean
+	 */
+	public static boolean isLargeStraight(int counts) {
+		int present = facesPresent(counts);
+		return (present & 0x1F) == 0x1F
+			|| (present & 0x3E) == 0x3E;
+	}
+
+
+	/**
+	 * This method returns true if dice configuration is
+	 * yahtzee(every die shows the same face) otherwise returns false.
+	 *
+	 * @param 	counts 	An int, the packed counts of the faces.
+	 * @return 	boolean
+	 */
+	public static boolean isYahtzee(int counts) {
+		return maxOfAKind(counts) == countDice(counts);
+	}
+
+
+	/**
+	 * This method returns true if the dice configuration matches
+	 * the category otherwise returns false. The upper categories
+	 * and chance match every configuration.
+	 *
+	 * @param 	counts 		An int, the packed counts of the faces.
+	 * @param 	category 	A static constant integer representing the category.
+	 * @return 	boolean
+	 */
+	public static boolean matchesCategory(int counts, int category) {
+		switch (category) {
+			case THREE_OF_A_KIND:	return isThreeOfAKind(counts);
+			case FOUR_OF_A_KIND:	return isFourOfAKind(counts);
+			case FULL_HOUSE:		return isFullHouse(counts);
+			case SMALL_STRAIGHT:	return isSmallStraight(counts);
+			case LARGE_STRAIGHT:	return isLargeStraight(counts);
+			case YAHTZEE:			return isYahtzee(counts);
+			default:				return true;
+		}
+	}
+
+
+	/**
+	 * This method returns the sum of all the numbers on the dice.
+	 *
+	 * @param 	counts 	An int, the packed counts of the faces.
+	 * @return 	int
+	 */
+	public static int sumOfDice(int counts) {
+		int sum = 0;
+		for (int face = 1; face <= N_FACES; face++) {
+			sum += face * countOf(counts, face);
+		}
+		return sum;
+	}
+
+
+	/**
+	 * This method returns the score of the dice for the category.
+	 * The score is 0 if the dice do not match the category.
+	 *
+	 * @param 	counts 		An int, the packed counts of the faces.
+	 * @param 	category 	A static constant integer representing the category.
+	 * @return 	int 		The score of the category.
+	 */
+	public static int getScore(int counts, int category) {
+		if (!matchesCategory(counts, category))
+			return 0;
+
+		switch (category) {
+			case THREE_OF_A_KIND:
+			case FOUR_OF_A_KIND:
+			case CHANCE:			return sumOfDice(counts);
+			case FULL_HOUSE:		return FULL_HOUSE_SCORE;
+			case SMALL_STRAIGHT:	return SMALL_STRAIGHT_SCORE;
+			case LARGE_STRAIGHT:	return LARGE_STRAIGHT_SCORE;
+			case YAHTZEE:			return YAHTZEE_SCORE;
+			default:
+				if (category < UPPER_SCORE)
+					return category * countOf(counts, category);
+				return 0;
+		}
+	}
+
+
+	/**
+	 * This method returns the score of the dice for the category under the
+	 * standard rules. The score is looked up in the precomputed table of YahtzeeHands.
+	 *
+	 * @param 	dice 		An array of integers, the numbers on the dice.
+	 * @param 	category 	A static constant integer representing the category.
+	 * @return 	int 		The score of the category.
+	 */
+	public static int getScore(int[] dice, int category) {
+		YahtzeeHands hands = YahtzeeRules.STANDARD.getHands();
+		return hands.getScore(hands.indexOf(dice), toScoringIndex(category));
+	}
+
+
+	/**
+	 * This method fills "scores" with the score of the dice for every
+	 * scoring category under the standard rules. The score of a category is stored at the index
+	 * returned by "toScoringIndex".
+	 *
+	 * @param 	dice 		An array of integers, the numbers on the dice.
+	 * @param 	scores 		An array of at least N_SCORING_CATEGORIES integers to fill.
+	 */
+	public static void getScores(int[] dice, int[] scores) {
+		YahtzeeHands hands = YahtzeeRules.STANDARD.getHands();
+		hands.getScores(hands.indexOf(dice), scores);
+	}
+
+
+	/**
+	 * This method converts a category to its index among the scoring categories,
+	 * i.e., ONES to SIXES become 0 to 5 and THREE_OF_A_KIND to CHANCE become 6 to 12.
+	 *
+	 * @param 	category 	A static constant integer representing a scoring category.
+	 * @return 	int
+	 */
+	public static int toScoringIndex(int category) {
+		if (category < UPPER_SCORE)
+			return category - ONES;
+		return category - THREE_OF_A_KIND + SIXES;
+	}
+
+
+	/**
+	 * This method converts an index among the scoring categories back to the category.
+	 *
+	 * @param 	index 	An int, number between 0 and 12(both including).
+	 * @return 	int 	A static constant integer representing the category.
+	 */
+	public static int toCategory(int index) {
+		if (index < SIXES)
+			return index + ONES;
+		return index - SIXES + THREE_OF_A_KIND;
+	}
+
+
+	/** Number of bits used to store the count of one face in the packed counts */
+	public static final int BITS_PER_FACE = 3;
+
+	/** Mask to extract the count of one face from the packed counts */
+	private static final int FACE_MASK = (1 << BITS_PER_FACE) - 1;
+}
@@ -0,0 +1,447 @@
+/**
+ * File: YahtzeeServer.java
+ * ------------------------
+ * This file hosts many tables of the Yahtzee game at once without any UI.
+ * Every table(see YahtzeeTable) has its own thread which plays the actions
+ * of its players on a YahtzeeGame. On a Java runtime with virtual threads
+ * these are virtual threads, so thousands of tables only cost a few
+ * carrier threads; on older runtimes they are platform threads with a
+ * small stack.
+ *
+ * Players act through the methods of the server, or through the local
+ * socket front end, which reads one command per line and writes one reply
+ * per line:
+ *   OPEN <players> [seed] 				opens a table
+ *   ROLL <table> <player> 				rolls(or rerolls) the dice
+ *   HOLD <table> <player> <held> 		holds dice, e.g. 10100 holds the first and third die
+ *   CATEGORY <table> <player> <category> 	fills a category(ONES = 1 ... CHANCE = 15)
+ *   STATUS <table> 					shows the table
+ *   CLOSE <table> 						closes the table
+ *   QUIT 								closes the connection
+ * Every reply starts with "OK" or "ERROR" and ends with the status of the table.
+ * A table is closed and removed once its game is over, and the tables a
+ * connection opened are closed when the connection closes.
+ */
+
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+public class YahtzeeServer implements YahtzeeConstants {
+
+
+	/**
+	 * Starts a server and listens on the local port given as the first argument(default 7777).
+	 * The finished games are logged to the file given as the second argument, if any.
+	 *
+	 * @param 	args 	The command line arguments.
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		final YahtzeeGameLog log = args.length > 1 ? new YahtzeeGameLog(new File(args[1])) : null;
+		if (log != null) {
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				public void run() {
+					try {
+						log.close();
+					} catch (IOException e) {
+						System.err.println("The game log could not be closed: " + e);
+					}
+				}
+			});
+		}
+		YahtzeeServer server = new YahtzeeServer(log);
+		System.out.println("Yahtzee server on port " + port + ", "
+						   + (server.hasVirtualThreads() ? "virtual" : "platform") + " threads");
+		server.listen(port);
+	}
+
+
+	/**
+	 * Constructs a server without any table, which does not log the games.
+	 */
+	public YahtzeeServer() {
+		this(null);
+	}
+
+
+	/**
+	 * Constructs a server without any table.
+	 *
+	 * @param 	log 	The log which records the finished games of the tables, or null.
+	 */
+	public YahtzeeServer(YahtzeeGameLog log) {
+		this.log = log;
+		ThreadFactory virtualThreads = newVirtualThreadFactory();
+		virtual = virtualThreads != null;
+		threadFactory = virtual ? virtualThreads : newPlatformThreadFactory("yahtzee-table-");
+		connectionThreadFactory = virtual ? virtualThreads : newPlatformThreadFactory("yahtzee-connection-");
+	}
+
+
+	/**
+	 * This method returns a factory of virtual threads, or null if the Java
+	 * runtime has none. It is looked up by reflection so that the game
+	 * still builds and runs on older runtimes.
+	 *
+	 * @return 	ThreadFactory
+	 */
+	private static ThreadFactory newVirtualThreadFactory() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+
+	/**
+	 * This method returns a factory of daemon platform threads with a small stack.
+	 *
+	 * @param 	prefix 			A string, the start of the names of the threads.
+	 * @return 	ThreadFactory
+	 */
+	private static ThreadFactory newPlatformThreadFactory(final String prefix) {
+		final AtomicInteger count = new AtomicInteger();
+		return new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(null, runnable, prefix + count.incrementAndGet(), PLATFORM_STACK_SIZE);
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+
+	/**
+	 * This method returns true if the tables run on virtual threads otherwise returns false.
+	 *
+	 * @return 	boolean
+	 */
+	public boolean hasVirtualThreads() {
+		return virtual;
+	}
+
+
+	/**
+	 * This method opens a table with a random seed and starts its game.
+	 *
+	 * @param 	nPlayers 		An int, the number of players(1 to MAX_PLAYERS).
+	 * @return 	YahtzeeTable
+	 */
+	public YahtzeeTable openTable(int nPlayers) {
+		return openTable(nPlayers, seeds.getAndAdd(SEED_INCREMENT));
+	}
+
+
+	/**
+	 * This method opens a table and starts its game. The table is removed
+	 * from the server when it closes, e.g. once its game is over.
+	 *
+	 * @param 	nPlayers 		An int, the number of players(1 to MAX_PLAYERS).
+	 * @param 	seed 			A long, the seed of the dice of the table.
+	 * @return 	YahtzeeTable
+	 */
+	public YahtzeeTable openTable(int nPlayers, long seed) {
+		if (nPlayers < 1 || nPlayers > MAX_PLAYERS)
+			throw new IllegalArgumentException("A table has 1 to " + MAX_PLAYERS + " players");
+		final int id = nextTableId.incrementAndGet();
+		YahtzeeTable table = new YahtzeeTable(id, nPlayers, seed, threadFactory, log, new Runnable() {
+			public void run() {
+				tables.remove(id);
+			}
+		});
+		tables.put(id, table);
+		return table;
+	}
+
+
+	/**
+	 * This method rolls the dice for a player: all the dice at the start
+	 * of a turn, the dice which are not held afterwards.
+	 *
+	 * @param 	table 						An int, the number of the table.
+	 * @param 	player 						An int representing the player.
+	 * @return 	CompletableFuture<String> 	The reply of the table.
+	 */
+	public CompletableFuture<String> roll(int table, int player) {
+		return submit(table, player, YahtzeeTable.ROLL, 0);
+	}
+
+
+	/**
+	 * This method chooses the dice a player holds for the next reroll.
+	 *
+	 * @param 	table 						An int, the number of the table.
+	 * @param 	player 						An int representing the player.
+	 * @param 	heldDice 					An int, bit i is set if the die with index i is held.
+	 * @return 	CompletableFuture<String> 	The reply of the table.
+	 */
+	public CompletableFuture<String> hold(int table, int player, int heldDice) {
+		return submit(table, player, YahtzeeTable.HOLD, heldDice);
+	}
+
+
+	/**
+	 * This method fills a category for a player.
+	 *
+	 * @param 	table 						An int, the number of the table.
+	 * @param 	player 						An int representing the player.
+	 * @param 	category 					A static constant integer representing the category.
+	 * @return 	CompletableFuture<String> 	The reply of the table.
+	 */
+	public CompletableFuture<String> selectCategory(int table, int player, int category) {
+		return submit(table, player, YahtzeeTable.CATEGORY, category);
+	}
+
+
+	/**
+	 * This method returns the status of a table.
+	 *
+	 * @param 	table 						An int, the number of the table.
+	 * @return 	CompletableFuture<String> 	The reply of the table.
+	 */
+	public CompletableFuture<String> getStatus(int table) {
+		return submit(table, 0, YahtzeeTable.STATUS, 0);
+	}
+
+
+	/**
+	 * This method closes a table and removes it from the server.
+	 *
+	 * @param 	table 						An int, the number of the table.
+	 * @return 	CompletableFuture<String> 	The reply of the table.
+	 */
+	public CompletableFuture<String> closeTable(int table) {
+		YahtzeeTable removed = tables.remove(table);
+		if (removed == null)
+			return noSuchTable(table);
+		return removed.close();
+	}
+
+
+	/**
+	 * This method returns the number of open tables.
+	 *
+	 * @return 	int
+	 */
+	public int getTableCount() {
+		return tables.size();
+	}
+
+
+	/**
+	 * This method queues an action at a table.
+	 *
+	 * @param 	table 						An int, the number of the table.
+	 * @param 	player 						An int representing the player.
+	 * @param 	command 					An int, the command of the action(see YahtzeeTable).
+	 * @param 	argument 					An int, the argument of the command.
+	 * @return 	CompletableFuture<String> 	The reply of the table.
+	 */
+	private CompletableFuture<String> submit(int table, int player, int command, int argument) {
+		YahtzeeTable yahtzeeTable = tables.get(table);
+		if (yahtzeeTable == null)
+			return noSuchTable(table);
+		return yahtzeeTable.submit(player, command, argument);
+	}
+
+
+	/**
+	 * This method returns the reply to an action at a table which does not exist.
+	 *
+	 * @param 	table 						An int, the number of the table.
+	 * @return 	CompletableFuture<String>
+	 */
+	private static CompletableFuture<String> noSuchTable(int table) {
+		CompletableFuture<String> reply = new CompletableFuture<String>();
+		reply.complete(YahtzeeTable.ERROR + " no table " + table);
+		return reply;
+	}
+
+
+	/**
+	 * This method accepts connections on a port of the loopback address
+	 * and serves each connection on its own thread. It never returns.
+	 *
+	 * @param 	port 	An int, the port to listen on.
+	 */
+	public void listen(int port) throws IOException {
+		ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+		try {
+			while (true) {
+				final Socket socket = serverSocket.accept();
+				connectionThreadFactory.newThread(new Runnable() {
+					public void run() {
+						serve(socket);
+					}
+				}).start();
+			}
+		} finally {
+			serverSocket.close();
+		}
+	}
+
+
+	/**
+	 * This method reads the commands of a connection and writes the replies
+	 * until the connection is closed or the command QUIT is read. Then the
+	 * tables the connection opened are closed.
+	 *
+	 * @param 	socket 	The connection.
+	 */
+	private void serve(Socket socket) {
+		Set<Integer> openedTables = new HashSet<Integer>();
+		try {
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+			PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"));
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.trim().equalsIgnoreCase("QUIT"))
+					break;
+				out.print(execute(line, openedTables));
+				out.print("\n");
+				out.flush();
+			}
+		} catch (IOException e) {
+			// The connection was lost, its tables are closed below.
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) { }
+			for (int table : openedTables) {
+				closeTable(table);
+			}
+		}
+	}
+
+
+	/**
+	 * This method executes one command line of the socket front end
+	 * and returns the reply.
+	 *
+	 * @param 	line 		A string, the command.
+	 * @return 	String 		The reply.
+	 */
+	public String execute(String line) {
+		return execute(line, null);
+	}
+
+
+	/**
+	 * This method executes one command line of a connection and returns the
+	 * reply, recording the number of a table it opens.
+	 *
+	 * @param 	line 			A string, the command.
+	 * @param 	openedTables 	The numbers of the tables the connection opened, or null.
+	 * @return 	String 			The reply.
+	 */
+	private String execute(String line, Set<Integer> openedTables) {
+		String[] words = line.trim().split("\\s+");
+		try {
+			String command = words[0].toUpperCase();
+			CompletableFuture<String> reply;
+			if (command.equals("OPEN")) {
+				int nPlayers = Integer.parseInt(words[1]);
+				YahtzeeTable table = words.length > 2 ? openTable(nPlayers, Long.parseLong(words[2]))
+													  : openTable(nPlayers);
+				if (openedTables != null)
+					openedTables.add(table.getId());
+				reply = table.submit(0, YahtzeeTable.STATUS, 0);
+			} else if (command.equals("ROLL")) {
+				reply = roll(Integer.parseInt(words[1]), Integer.parseInt(words[2]));
+			} else if (command.equals("HOLD")) {
+				reply = hold(Integer.parseInt(words[1]), Integer.parseInt(words[2]), parseHeldDice(words[3]));
+			} else if (command.equals("CATEGORY")) {
+				reply = selectCategory(Integer.parseInt(words[1]), Integer.parseInt(words[2]),
+									   Integer.parseInt(words[3]));
+			} else if (command.equals("STATUS")) {
+				reply = getStatus(Integer.parseInt(words[1]));
+			} else if (command.equals("CLOSE")) {
+				reply = closeTable(Integer.parseInt(words[1]));
+			} else {
+				return YahtzeeTable.ERROR + " unknown command " + words[0];
+			}
+			return reply.get();
+		} catch (ArrayIndexOutOfBoundsException e) {
+			return YahtzeeTable.ERROR + " missing argument in " + line;
+		} catch (IllegalArgumentException e) {
+			return YahtzeeTable.ERROR + " " + e.getMessage();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return YahtzeeTable.ERROR + " interrupted";
+		} catch (ExecutionException e) {
+			return YahtzeeTable.ERROR + " " + e.getCause();
+		}
+	}
+
+
+	/**
+	 * This method converts held dice written as N_DICE digits, e.g. 10100,
+	 * to a bit set where bit i is set if the die with index i is held.
+	 *
+	 * @param 	heldDice 	A string of N_DICE digits 0 and 1.
+	 * @return 	int
+	 */
+	private static int parseHeldDice(String heldDice) {
+		if (heldDice.length() != N_DICE || !heldDice.matches("[01]+"))
+			throw new IllegalArgumentException("held dice must be " + N_DICE + " digits 0 or 1: " + heldDice);
+		int held = 0;
+		for (int i = 0; i < N_DICE; i++) {
+			if (heldDice.charAt(i) == '1')
+				held |= 1 << i;
+		}
+		return held;
+	}
+
+
+	/** The default port of the socket front end */
+	public static final int DEFAULT_PORT = 7777;
+
+	/** The stack size of the platform threads, when there are no virtual threads */
+	private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+
+	/** The seeds of tables opened without a seed are spaced by this odd constant */
+	private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+	/* Private instance variables */
+
+	/** It stores whether the threads are virtual threads. */
+	private final boolean virtual;
+
+	/** The log of the games, or null */
+	private final YahtzeeGameLog log;
+
+	/** The factory of the threads of the tables */
+	private final ThreadFactory threadFactory;
+
+	/** The factory of the threads of the connections */
+	private final ThreadFactory connectionThreadFactory;
+
+	/** The open tables by number */
+	private final ConcurrentMap<Integer, YahtzeeTable> tables = new ConcurrentHashMap<Integer, YahtzeeTable>();
+
+	/** The number of the last opened table */
+	private final AtomicInteger nextTableId = new AtomicInteger();
+
+	/** The seed of the next table opened without a seed */
+	private final AtomicLong seeds = new AtomicLong(System.nanoTime());
+}
@@ -0,0 +1,220 @@
+/**
+ * File: YahtzeeSimulator.java
+ * ---------------------------
+ * This file plays complete games of the Yahtzee game without the UI,
+ * on all the cores, to measure how well a strategy does.
+ *
+ * The games are cut into blocks of GAMES_PER_STREAM games and each block
+ * gets its own random dice(see YahtzeeDice), split in order from a single seed. A block
+ * always gets the same stream whichever thread plays it, so a simulation
+ * is reproducible from its seed on any number of cores, and no two threads
+ * ever share the dice.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+public final class YahtzeeSimulator implements YahtzeeConstants {
+
+
+	/**
+	 * Simulates games and prints their statistics. The arguments are optionally
+	 * "-rules" and the name of the rules(default "standard", see YahtzeeRules.forName),
+	 * then the number of games(default 1000000), the seed(default the current time)
+	 * and the strategy: "greedy", or the file of a value table(default the file
+	 * of the rules, e.g. "yahtzee-values.bin").
+	 *
+	 * @param 	args 	The command line arguments.
+	 */
+	public static void main(String[] args) throws IOException {
+		YahtzeeRules rules = YahtzeeRules.STANDARD;
+		int first = 0;
+		if (args.length > 1 && args[0].equals("-rules")) {
+			rules = YahtzeeRules.forName(args[1]);
+			first = 2;
+		}
+		long games = args.length > first ? Long.parseLong(args[first]) : 1000000;
+		long seed = args.length > first + 1 ? Long.parseLong(args[first + 1]) : System.nanoTime();
+		String strategyName = args.length > first + 2 ? args[first + 2] : rules.getValuesFile();
+
+		YahtzeeStrategy strategy;
+		if (strategyName.equals("greedy"))
+			strategy = new YahtzeeGreedyStrategy(rules);
+		else
+			strategy = YahtzeeStrategyTable.open(rules, new File(strategyName));
+
+		long start = System.nanoTime();
+		YahtzeeStatistics statistics = simulate(rules, strategy, games, seed);
+		System.out.println("Rules:              " + rules);
+		long elapsed = System.nanoTime() - start;
+		System.out.println("Seed:               " + seed);
+		System.out.print(statistics);
+		System.out.println("Games per second:   " + (long) (games / (elapsed / 1e9)));
+	}
+
+
+	/** The simulator only has static methods, so it is never constructed. */
+	private YahtzeeSimulator() { }
+
+
+	/**
+	 * This method plays games of the standard rules with the common fork/join pool.
+	 *
+	 * @param 	strategy 			The strategy which takes the decisions; it is shared by all the threads.
+	 * @param 	games 				A long, the number of games to play.
+	 * @param 	seed 				A long, the seed of the random streams.
+	 * @return 	YahtzeeStatistics 	The statistics of the games.
+	 */
+	public static YahtzeeStatistics simulate(YahtzeeStrategy strategy, long games, long seed) {
+		return simulate(YahtzeeRules.STANDARD, strategy, games, seed);
+	}
+
+
+	/**
+	 * This method plays games with the common fork/join pool.
+	 *
+	 * @param 	rules 				The rules.
+	 * @param 	strategy 			The strategy which takes the decisions; it is shared by all the threads.
+	 * @param 	games 				A long, the number of games to play.
+	 * @param 	seed 				A long, the seed of the random streams.
+	 * @return 	YahtzeeStatistics 	The statistics of the games.
+	 */
+	public static YahtzeeStatistics simulate(YahtzeeRules rules, YahtzeeStrategy strategy, long games, long seed) {
+		return simulate(rules, strategy, games, seed, ForkJoinPool.commonPool());
+	}
+
+
+	/**
+	 * This method plays games in parallel and returns their statistics.
+	 *
+	 * @param 	rules 				The rules.
+	 * @param 	strategy 			The strategy which takes the decisions; it is shared by all the threads.
+	 * @param 	games 				A long, the number of games to play.
+	 * @param 	seed 				A long, the seed of the random streams.
+	 * @param 	pool 				The pool which plays the blocks of games.
+	 * @return 	YahtzeeStatistics 	The statistics of the games.
+	 */
+	public static YahtzeeStatistics simulate(YahtzeeRules rules, YahtzeeStrategy strategy, long games, long seed,
+											 ForkJoinPool pool) {
+		int nStreams = (int) ((games + GAMES_PER_STREAM - 1) / GAMES_PER_STREAM);
+		YahtzeeDice[] streams = new YahtzeeDice[nStreams];
+		YahtzeeDice root = new YahtzeeDice(seed, rules.getFaceCount());
+		for (int i = 0; i < nStreams; i++) {
+			streams[i] = root.split();
+		}
+		return pool.invoke(new SimulateTask(rules, strategy, streams, games, 0, nStreams));
+	}
+
+
+	/**
+	 * This task plays the blocks of games of a range of random streams.
+	 * Bigger ranges are split in two halves which are played in parallel.
+	 */
+	@SuppressWarnings("serial")
+	private static class SimulateTask extends RecursiveTask<YahtzeeStatistics> {
+
+		SimulateTask(YahtzeeRules rules, YahtzeeStrategy strategy, YahtzeeDice[] streams, long games,
+					 int from, int to) {
+			this.rules = rules;
+			this.strategy = strategy;
+			this.streams = streams;
+			this.games = games;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected YahtzeeStatistics compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				SimulateTask second = new SimulateTask(rules, strategy, streams, games, middle, to);
+				second.fork();
+				YahtzeeStatistics statistics = new SimulateTask(rules, strategy, streams, games, from, middle).compute();
+				statistics.add(second.join());
+				return statistics;
+			}
+			YahtzeeStatistics statistics = new YahtzeeStatistics();
+			int[] dice = new int[rules.getDiceCount()];
+			int[] categoryScores = new int[N_SCORING_CATEGORIES];
+			long first = (long) from * GAMES_PER_STREAM;
+			long count = Math.min(GAMES_PER_STREAM, games - first);
+			for (long i = 0; i < count; i++) {
+				playGame(rules, strategy, streams[from], dice, categoryScores, statistics);
+			}
+			return statistics;
+		}
+
+		private final YahtzeeRules rules;
+		private final YahtzeeStrategy strategy;
+		private final YahtzeeDice[] streams;
+		private final long games;
+		private final int from;
+		private final int to;
+	}
+
+
+	/**
+	 * This method plays one complete game of N_ROUNDS turns and records it.
+	 *
+	 * @param 	rules 			The rules.
+	 * @param 	strategy 		The strategy which takes the decisions.
+	 * @param 	random 			The random dice, with the faces of the rules.
+	 * @param 	dice 			An array of integers to roll in, one per die of the rules.
+	 * @param 	categoryScores 	An array of N_SCORING_CATEGORIES integers to store the scores in.
+	 * @param 	statistics 		The statistics to record the game in.
+	 * @return 	int 			The final score.
+	 */
+	public static int playGame(YahtzeeRules rules, YahtzeeStrategy strategy, YahtzeeDice random, int[] dice,
+							   int[] categoryScores, YahtzeeStatistics statistics) {
+		long state = YahtzeePlayerState.NEW_STATE;
+		for (int round = 0; round < N_ROUNDS; round++) {
+			state = playTurn(rules, strategy, state, null, random, dice, categoryScores);
+		}
+
+		int total = YahtzeePlayerState.getTotal(state);
+		statistics.addGame(categoryScores, YahtzeePlayerState.getUpperBonus(state), total);
+		return total;
+	}
+
+
+	/**
+	 * This method plays one turn of a player and returns the new state of the
+	 * player. A YahtzeeMultiplayerStrategy gets the states of the opponents,
+	 * if they are given.
+	 *
+	 * @param 	rules 			The rules.
+	 * @param 	strategy 		The strategy which takes the decisions.
+	 * @param 	state 			A long, the state of the player(see YahtzeePlayerState).
+	 * @param 	opponentStates 	An array of longs, the states of the other players, or null.
+	 * @param 	random 			The random dice, with the faces of the rules.
+	 * @param 	dice 			An array of integers to roll in, one per die of the rules.
+	 * @param 	categoryScores 	An array of N_SCORING_CATEGORIES integers to store the score in.
+	 * @return 	long 			The new state.
+	 */
+	public static long playTurn(YahtzeeRules rules, YahtzeeStrategy strategy, long state, long[] opponentStates,
+								YahtzeeDice random, int[] dice, int[] categoryScores) {
+		YahtzeeMultiplayerStrategy multiplayer = null;
+		if (opponentStates != null && strategy instanceof YahtzeeMultiplayerStrategy)
+			multiplayer = (YahtzeeMultiplayerStrategy) strategy;
+		random.roll(dice);
+		for (int rollsLeft = N_CHANCES; rollsLeft > 0; rollsLeft--) {
+			int rerolls = (multiplayer != null) ? multiplayer.chooseRerolls(state, opponentStates, dice, rollsLeft)
+												: strategy.chooseRerolls(state, dice, rollsLeft);
+			if (rerolls == 0)
+				break;
+			random.roll(dice, rerolls);
+		}
+
+		int category = (multiplayer != null) ? multiplayer.chooseCategory(state, opponentStates, dice)
+											 : strategy.chooseCategory(state, dice);
+		categoryScores[YahtzeeScorer.toScoringIndex(category)] = rules.getScore(state, dice, category);
+		return rules.fill(state, dice, category);
+	}
+
+
+	/** The number of games played with one random stream */
+	public static final int GAMES_PER_STREAM = 4096;
+}
@@ -0,0 +1,295 @@
+/**
+ * File: YahtzeeSnapshot.java
+ * --------------------------
+ * This file saves a game of the Yahtzee game in progress to a small file,
+ * and reads it back to resume the game after a restart.
+ *
+ * A snapshot holds getSnapshotBytes(players) bytes: SNAPSHOT_MAGIC,
+ * SNAPSHOT_VERSION and the key of the rules(see YahtzeeRules.getKey) as an
+ * int each, the state of the game(see YahtzeeGame.writeState), which starts
+ * with the number of players, and the names of the players, NAME_BYTES bytes
+ * each: the length, then the name in UTF-8. A snapshot is written to a
+ * temporary file which then replaces the snapshot file in one move, so the
+ * file always holds either the previous snapshot or the new one, never a
+ * part of each.
+ *
+ * A Writer writes the snapshots on a thread of its own and keeps only the
+ * latest one which is not written yet, so the game copies its state into a
+ * buffer(see encode) and never waits for the disk.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+public final class YahtzeeSnapshot implements YahtzeeConstants {
+
+
+	/**
+	 * Constructs a snapshot from the bytes read from a file.
+	 *
+	 * @param 	rulesKey 	An int, the key of the rules of the game.
+	 * @param 	snapshot 	A buffer holding the snapshot, after the key of the rules.
+	 */
+	private YahtzeeSnapshot(int rulesKey, ByteBuffer snapshot) {
+		this.rulesKey = rulesKey;
+		this.snapshot = snapshot;
+	}
+
+
+	/**
+	 * This method saves a game and the names of its players to a file.
+	 *
+	 * @param 	file 			The file of the snapshot.
+	 * @param 	game 			The game.
+	 * @param 	playerNames 	An array of strings, the names of the players.
+	 */
+	public static void write(File file, YahtzeeGame game, String[] playerNames) throws IOException {
+		write(file, encode(game, playerNames));
+	}
+
+
+	/**
+	 * This method returns the snapshot of a game and the names of its players,
+	 * ready to be written to a file.
+	 *
+	 * @param 	game 			The game.
+	 * @param 	playerNames 	An array of strings, the names of the players.
+	 * @return 	ByteBuffer
+	 */
+	public static ByteBuffer encode(YahtzeeGame game, String[] playerNames) {
+		ByteBuffer buffer = ByteBuffer.allocate(getSnapshotBytes(game.getPlayerCount()));
+		buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putInt(game.getRules().getKey());
+		game.writeState(buffer);
+		for (int i = 0; i < game.getPlayerCount(); i++) {
+			byte[] name = i < playerNames.length ? encodeName(playerNames[i]) : new byte[0];
+			buffer.put((byte) name.length).put(name);
+			buffer.position(buffer.position() + NAME_BYTES - 1 - name.length);
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+
+	/**
+	 * This method writes a snapshot(see encode) to a file.
+	 *
+	 * @param 	file 			The file of the snapshot.
+	 * @param 	buffer 			A buffer holding the snapshot.
+	 */
+	public static void write(File file, ByteBuffer buffer) throws IOException {
+		Path target = file.toPath();
+		Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+		FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+											   StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+		} finally {
+			channel.close();
+		}
+		try {
+			Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+
+	/**
+	 * This method returns the number of bytes of the snapshot of a game.
+	 *
+	 * @param 	nPlayers 	An int, the number of players of the game.
+	 * @return 	int
+	 */
+	public static int getSnapshotBytes(int nPlayers) {
+		return HEADER_BYTES + YahtzeeGame.getStateBytes(nPlayers) + nPlayers * NAME_BYTES;
+	}
+
+
+	/**
+	 * This method returns a name in UTF-8, shortened to fit in NAME_BYTES - 1 bytes.
+	 *
+	 * @param 	name 		A string, the name of a player.
+	 * @return 	byte[]
+	 */
+	private static byte[] encodeName(String name) {
+		byte[] bytes = name.getBytes(UTF_8);
+		while (bytes.length > NAME_BYTES - 1) {
+			name = name.substring(0, name.length() - 1);
+			bytes = name.getBytes(UTF_8);
+		}
+		return bytes;
+	}
+
+
+	/**
+	 * This method reads a snapshot from a file.
+	 *
+	 * @param 	file 				The file of the snapshot.
+	 * @return 	YahtzeeSnapshot
+	 */
+	public static YahtzeeSnapshot read(File file) throws IOException {
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		int nPlayers = bytes.length > HEADER_BYTES ? buffer.get(HEADER_BYTES) : 0;
+		if (nPlayers < 1 || nPlayers > MAX_PLAYERS || bytes.length != getSnapshotBytes(nPlayers)
+				|| buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION)
+			throw new IOException(file + " is not a snapshot of a game");
+		int rulesKey = buffer.getInt();
+		return new YahtzeeSnapshot(rulesKey, buffer.slice());
+	}
+
+
+	/**
+	 * This method returns a game in the saved state. The game must have been
+	 * played with the same rules.
+	 *
+	 * @param 	rules 			The rules of the game.
+	 * @param 	random 			The random dice which roll the dice of the game.
+	 * @param 	listener 		The listener which is told about the events of the game.
+	 * @return 	YahtzeeGame
+	 */
+	public YahtzeeGame resume(YahtzeeRules rules, YahtzeeDice random, YahtzeeGameListener listener) {
+		if (rules.getKey() != rulesKey)
+			throw new IllegalArgumentException("The game was played with other rules than " + rules);
+		return new YahtzeeGame(snapshot.duplicate(), rules, random, listener);
+	}
+
+
+	/**
+	 * This method returns the names of the players of the saved game.
+	 *
+	 * @return 	String[]
+	 */
+	public String[] getPlayerNames() {
+		int nPlayers = snapshot.get(0);
+		String[] names = new String[nPlayers];
+		for (int i = 0; i < nPlayers; i++) {
+			int offset = YahtzeeGame.getStateBytes(nPlayers) + i * NAME_BYTES;
+			int length = Math.min(snapshot.get(offset) & 0xFF, NAME_BYTES - 1);
+			byte[] name = new byte[length];
+			ByteBuffer field = snapshot.duplicate();
+			field.position(offset + 1);
+			field.get(name);
+			names[i] = new String(name, UTF_8);
+		}
+		return names;
+	}
+
+
+	/**
+	 * The writer of the snapshots of a game to a file, on a daemon thread.
+	 * The snapshots are written in the order they are saved, but one which
+	 * is replaced by a newer one before its turn is not written at all.
+	 */
+	public static final class Writer {
+
+
+		/**
+		 * Constructs a writer of the snapshots to a file.
+		 *
+		 * @param 	file 		The file of the snapshots.
+		 */
+		public Writer(File file) {
+			this.file = file;
+			executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "yahtzee-snapshot");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+
+
+		/**
+		 * This method saves a snapshot(see encode) to the file, later. The
+		 * buffer must not be changed afterwards.
+		 *
+		 * @param 	snapshot 	A buffer holding the snapshot.
+		 */
+		public void save(ByteBuffer snapshot) {
+			if (latest.getAndSet(snapshot) == null)
+				executor.execute(writeLatest);
+		}
+
+
+		/**
+		 * This method deletes the file, after the snapshots being written, and
+		 * drops the ones which are not written yet.
+		 */
+		public void delete() {
+			latest.set(null);
+			executor.execute(new Runnable() {
+				public void run() {
+					file.delete();
+				}
+			});
+		}
+
+
+		/** The task which writes the latest snapshot, if it is not written yet */
+		private final Runnable writeLatest = new Runnable() {
+			public void run() {
+				ByteBuffer snapshot = latest.getAndSet(null);
+				if (snapshot == null)
+					return;
+				try {
+					write(file, snapshot);
+				} catch (IOException e) {
+					System.err.println("The game could not be saved: " + e.getMessage());
+				}
+			}
+		};
+
+		/* Private instance variables */
+
+		/** The file of the snapshots */
+		private final File file;
+
+		/** The thread which writes the snapshots */
+		private final ExecutorService executor;
+
+		/** The latest snapshot which is not written yet, null if there is none */
+		private final AtomicReference<ByteBuffer> latest = new AtomicReference<ByteBuffer>();
+	}
+
+
+	/** The first int of a snapshot file */
+	public static final int SNAPSHOT_MAGIC = 0x595A534E;
+
+	/** The version of the format of the snapshots */
+	public static final int SNAPSHOT_VERSION = 4;
+
+	/** The number of bytes of the name of a player */
+	public static final int NAME_BYTES = 32;
+
+	/** The number of bytes before the state of the game */
+	private static final int HEADER_BYTES = 12;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/* Private instance variables */
+
+	/** The key of the rules of the game */
+	private final int rulesKey;
+
+	/** The snapshot, after the key of the rules */
+	private final ByteBuffer snapshot;
+}
@@ -0,0 +1,713 @@
+/**
+ * File: YahtzeeSolver.java
+ * ------------------------
+ * This file computes the optimal strategy for a single player of the
+ * Yahtzee game, i.e., the strategy which maximises the expected final score.
+ *
+ * A state of the game at the start of a turn is the set of categories
+ * already used(13 bits) together with the upper score so far, capped at
+ * MIN_UPPER_SCORE_TO_GET_UPPER_BONUS since a higher upper score does not
+ * change the bonus. The solver works backwards from the states with every
+ * category used and stores, for each state, the expected score of the rest
+ * of the game when playing optimally. All the states with the same number
+ * of used categories are independent, so they are solved in parallel.
+ *
+ * Any variant of the rules can be solved(see YahtzeeRules). With a Yahtzee
+ * bonus, a state also tells whether the Yahtzee category holds a score, and
+ * the table holds the states with that flag after those without it.
+ *
+ * The same backward pass also gives, for the strategy of a value table,
+ * the second moment of the score of the rest of the game(the expectation
+ * of its square), from which its variance follows(see YahtzeeWinStrategy).
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.RecursiveAction;
+
+
+public final class YahtzeeSolver implements YahtzeeConstants {
+
+
+	/**
+	 * Solves the game and writes the value table to a file, then prints the
+	 * expected score. The arguments are "-rules" and the name of the rules
+	 * (default "standard", see YahtzeeRules.forName), then the file(default
+	 * the file of the rules, e.g. "yahtzee-values.bin").
+	 *
+	 * @param 	args 	The command line arguments.
+	 */
+	public static void main(String[] args) throws IOException {
+		YahtzeeRules rules = YahtzeeRules.STANDARD;
+		int first = 0;
+		if (args.length > 1 && args[0].equals("-rules")) {
+			rules = YahtzeeRules.forName(args[1]);
+			first = 2;
+		}
+		File file = new File(args.length > first ? args[first] : rules.getValuesFile());
+		long start = System.nanoTime();
+		float[] values = solve(rules);
+		long elapsed = System.nanoTime() - start;
+		writeValues(rules, values, file);
+		System.out.println("Solved " + getStateCount(rules) + " states of the rules " + rules + " in "
+						   + (elapsed / 1000000) + " ms, expected score: " + values[stateIndex(0, 0)]);
+	}
+
+
+	/** The solver only has static methods, so it is never constructed. */
+	private YahtzeeSolver() { }
+
+
+	/**
+	 * This method returns the index of a state in the value table.
+	 *
+	 * @param 	usedMask 	An int, bit i is set if the category with scoring index i is used.
+	 * @param 	upperScore 	An int, the upper score so far(it is capped by this method).
+	 * @return 	int
+	 */
+	public static int stateIndex(int usedMask, int upperScore) {
+		return usedMask * N_UPPER_SCORES + Math.min(upperScore, UPPER_SCORE_CAP);
+	}
+
+
+	/**
+	 * This method returns the index of a state in the value table of rules
+	 * with a Yahtzee bonus.
+	 *
+	 * @param 	usedMask 		An int, bit i is set if the category with scoring index i is used.
+	 * @param 	upperScore 		An int, the upper score so far(it is capped by this method).
+	 * @param 	yahtzeeScored 	A boolean, true if the Yahtzee category holds a score other than 0.
+	 * @return 	int
+	 */
+	public static int stateIndex(int usedMask, int upperScore, boolean yahtzeeScored) {
+		return stateIndex(usedMask, upperScore) + (yahtzeeScored ? N_STATES : 0);
+	}
+
+
+	/**
+	 * This method returns the number of states in the value table of the rules.
+	 *
+	 * @param 	rules 	The rules.
+	 * @return 	int
+	 */
+	public static int getStateCount(YahtzeeRules rules) {
+		return rules.getYahtzeeBonus() > 0 ? 2 * N_STATES : N_STATES;
+	}
+
+
+	/**
+	 * This method returns the upper score after scoring "score" in the
+	 * category with scoring index "scoringIndex", capped at UPPER_SCORE_CAP.
+	 *
+	 * @param 	upperScore 		An int, the capped upper score before scoring.
+	 * @param 	scoringIndex 	An int, the scoring index of the category.
+	 * @param 	score 			An int, the score of the category.
+	 * @return 	int
+	 */
+	public static int upperScoreAfter(int upperScore, int scoringIndex, int score) {
+		if (scoringIndex >= SIXES)
+			return upperScore;
+		return Math.min(upperScore + score, UPPER_SCORE_CAP);
+	}
+
+
+	/**
+	 * This method returns the score of a move including the upper bonus,
+	 * if the move takes the upper score to MIN_UPPER_SCORE_TO_GET_UPPER_BONUS.
+	 *
+	 * @param 	upperScore 		An int, the capped upper score before scoring.
+	 * @param 	scoringIndex 	An int, the scoring index of the category.
+	 * @param 	score 			An int, the score of the category.
+	 * @return 	int
+	 */
+	public static int moveScore(int upperScore, int scoringIndex, int score) {
+		if (upperScore < UPPER_SCORE_CAP && upperScoreAfter(upperScore, scoringIndex, score) == UPPER_SCORE_CAP)
+			return score + UPPER_BONUS_SCORE;
+		return score;
+	}
+
+
+	/**
+	 * This method returns true if the capped upper score can be reached
+	 * with the used categories otherwise returns false. The solver skips
+	 * the states which can not be reached.
+	 *
+	 * @param 	rules 		The rules.
+	 * @param 	usedMask 	An int, the set of used categories.
+	 * @param 	upperScore 	An int, the capped upper score.
+	 * @return 	boolean
+	 */
+	public static boolean isReachable(YahtzeeRules rules, int usedMask, int upperScore) {
+		return (rules.reachableUpperScores[usedMask & UPPER_MASK] & (1L << upperScore)) != 0;
+	}
+
+
+	/**
+	 * This method returns, for each set of used upper categories, a bit set of
+	 * the capped upper scores which can be reached with nDice dice of nFaces faces.
+	 *
+	 * @param 	nDice 		An int, the number of dice.
+	 * @param 	nFaces 		An int, the number of faces on a die.
+	 * @return 	long[]
+	 */
+	static long[] getReachableUpperScores(int nDice, int nFaces) {
+		long[] reachableUpperScores = new long[1 << SIXES];
+		reachableUpperScores[0] = 1L;
+		for (int mask = 1; mask <= UPPER_MASK; mask++) {
+			int face = Integer.numberOfTrailingZeros(mask) + 1;
+			long previous = reachableUpperScores[mask & (mask - 1)];
+			long reachable = 0;
+			for (int upperScore = 0; upperScore <= UPPER_SCORE_CAP; upperScore++) {
+				if ((previous & (1L << upperScore)) == 0)
+					continue;
+				for (int count = 0; count <= (face <= nFaces ? nDice : 0); count++) {
+					reachable |= 1L << Math.min(upperScore + face * count, UPPER_SCORE_CAP);
+				}
+			}
+			reachableUpperScores[mask] = reachable;
+		}
+		return reachableUpperScores;
+	}
+
+
+	/**
+	 * This method computes the value table of the standard rules using the
+	 * common fork/join pool.
+	 *
+	 * @return 	float[] 	The expected score of the rest of the game for every state.
+	 */
+	public static float[] solve() {
+		return solve(YahtzeeRules.STANDARD);
+	}
+
+
+	/**
+	 * This method computes the value table of the rules using the common fork/join pool.
+	 *
+	 * @param 	rules 		The rules.
+	 * @return 	float[] 	The expected score of the rest of the game for every state.
+	 */
+	public static float[] solve(YahtzeeRules rules) {
+		return solve(rules, ForkJoinPool.commonPool());
+	}
+
+
+	/**
+	 * This method computes the value table. The states are solved level by
+	 * level, starting with the states which have every category used.
+	 *
+	 * @param 	rules 		The rules.
+	 * @param 	pool 		The pool which solves the states of a level in parallel.
+	 * @return 	float[] 	The expected score of the rest of the game for every state.
+	 */
+	public static float[] solve(YahtzeeRules rules, ForkJoinPool pool) {
+		float[] values = new float[getStateCount(rules)];
+		solveLevels(rules, null, values, pool);
+		return values;
+	}
+
+
+	/**
+	 * This method computes the second moment of the score of the rest of the
+	 * game from every state, i.e., the expectation of its square, when every
+	 * decision is the one of the value table(see YahtzeeStrategyTable). The
+	 * variance of the score of the rest of the game from a state is its second
+	 * moment minus the square of its value.
+	 *
+	 * @param 	rules 		The rules.
+	 * @param 	values 		A buffer holding the value table of the rules, starting at index 0.
+	 * @param 	pool 		The pool which solves the states of a level in parallel.
+	 * @return 	float[] 	The second moment of the score of the rest of the game for every state.
+	 */
+	public static float[] solveSecondMoments(YahtzeeRules rules, FloatBuffer values, ForkJoinPool pool) {
+		float[] moments = new float[getStateCount(rules)];
+		solveLevels(rules, values, moments, pool);
+		return moments;
+	}
+
+
+	/**
+	 * This method fills a table level by level, starting with the states
+	 * which have every category used: the value table if "values" is null,
+	 * otherwise the second moments of the strategy of "values".
+	 *
+	 * @param 	rules 		The rules.
+	 * @param 	values 		The value table, or null to solve the value table.
+	 * @param 	table 		An array of floats to fill, one per state.
+	 * @param 	pool 		The pool which solves the states of a level in parallel.
+	 */
+	private static void solveLevels(YahtzeeRules rules, FloatBuffer values, float[] table, ForkJoinPool pool) {
+		int[][] masksByLevel = getMasksByLevel();
+		for (int level = N_SCORING_CATEGORIES - 1; level >= 0; level--) {
+			int[] masks = masksByLevel[level];
+			pool.invoke(new SolveTask(rules, values, table, masks, 0, masks.length));
+		}
+	}
+
+
+	/**
+	 * This method groups the sets of used categories by the number of used categories.
+	 *
+	 * @return 	int[][] 	The sets of used categories for each number of used categories.
+	 */
+	private static int[][] getMasksByLevel() {
+		int[][] masksByLevel = new int[N_SCORING_CATEGORIES + 1][];
+		int[] sizes = new int[N_SCORING_CATEGORIES + 1];
+		for (int mask = 0; mask < N_MASKS; mask++) {
+			sizes[Integer.bitCount(mask)]++;
+		}
+		for (int level = 0; level <= N_SCORING_CATEGORIES; level++) {
+			masksByLevel[level] = new int[sizes[level]];
+			sizes[level] = 0;
+		}
+		for (int mask = 0; mask < N_MASKS; mask++) {
+			int level = Integer.bitCount(mask);
+			masksByLevel[level][sizes[level]++] = mask;
+		}
+		return masksByLevel;
+	}
+
+
+	/**
+	 * This task solves all the reachable states of a range of sets of used categories,
+	 * into the value table or, if the values are given, into the table of second moments.
+	 * Bigger ranges are split in two halves which are solved in parallel.
+	 */
+	@SuppressWarnings("serial")
+	private static class SolveTask extends RecursiveAction {
+
+		SolveTask(YahtzeeRules rules, FloatBuffer values, float[] table, int[] masks, int from, int to) {
+			this.rules = rules;
+			this.values = values;
+			this.table = table;
+			this.tableBuffer = FloatBuffer.wrap(table);
+			this.masks = masks;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from > MASKS_PER_TASK) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new SolveTask(rules, values, table, masks, from, middle),
+						  new SolveTask(rules, values, table, masks, middle, to));
+				return;
+			}
+			Workspace workspace = new Workspace(rules);
+			for (int i = from; i < to; i++) {
+				int mask = masks[i];
+				int flags = (rules.getYahtzeeBonus() > 0 && (mask & YAHTZEE_BIT) != 0) ? 2 : 1;
+				for (int upperScore = 0; upperScore <= UPPER_SCORE_CAP; upperScore++) {
+					if (!isReachable(rules, mask, upperScore))
+						continue;
+					for (int flag = 0; flag < flags; flag++) {
+						if (values == null)
+							table[stateIndex(mask, upperScore, flag != 0)] =
+									(float) solveState(rules, tableBuffer, mask, upperScore, flag != 0, workspace);
+						else
+							table[stateIndex(mask, upperScore, flag != 0)] =
+									(float) solveSecondMoment(rules, values, tableBuffer, mask, upperScore, flag != 0,
+															  workspace);
+					}
+				}
+			}
+		}
+
+		private final YahtzeeRules rules;
+		private final FloatBuffer values;
+		private final float[] table;
+		private final FloatBuffer tableBuffer;
+		private final int[] masks;
+		private final int from;
+		private final int to;
+	}
+
+
+	/**
+	 * This method returns the expected score of the rest of the game
+	 * from the start of a turn in the state, using the values of the states
+	 * with one more category used.
+	 *
+	 * @param 	rules 			The rules.
+	 * @param 	values 			The value table.
+	 * @param 	usedMask 		An int, the set of used categories.
+	 * @param 	upperScore 		An int, the capped upper score.
+	 * @param 	yahtzeeScored 	A boolean, true if the Yahtzee category holds a score other than 0.
+	 * @param 	workspace 		The arrays to compute in.
+	 * @return 	double
+	 */
+	static double solveState(YahtzeeRules rules, FloatBuffer values, int usedMask, int upperScore,
+							 boolean yahtzeeScored, Workspace workspace) {
+		YahtzeeKeeps keeps = rules.getKeeps();
+		scoreFinalHands(rules, values, usedMask, upperScore, yahtzeeScored, workspace.handValues);
+		expectKeeps(keeps, workspace.handValues, workspace.keepValues);
+		bestKeeps(keeps, workspace.keepValues, workspace.handValues);
+		expectKeeps(keeps, workspace.handValues, workspace.keepValues);
+		bestKeeps(keeps, workspace.keepValues, workspace.handValues);
+		expectKeeps(keeps, workspace.handValues, workspace.keepValues);
+		return workspace.keepValues[YahtzeeKeeps.EMPTY_KEEP];
+	}
+
+
+	/**
+	 * This method returns the second moment of the score of the rest of the game
+	 * from the start of a turn in the state, when taking the decisions of the value
+	 * table, using the second moments of the states with one more category used.
+	 *
+	 * @param 	rules 			The rules.
+	 * @param 	values 			The value table.
+	 * @param 	moments 		The table of second moments.
+	 * @param 	usedMask 		An int, the set of used categories.
+	 * @param 	upperScore 		An int, the capped upper score.
+	 * @param 	yahtzeeScored 	A boolean, true if the Yahtzee category holds a score other than 0.
+	 * @param 	workspace 		The arrays to compute in.
+	 * @return 	double
+	 */
+	static double solveSecondMoment(YahtzeeRules rules, FloatBuffer values, FloatBuffer moments, int usedMask,
+									int upperScore, boolean yahtzeeScored, Workspace workspace) {
+		YahtzeeKeeps keeps = rules.getKeeps();
+		scoreFinalHands(rules, values, moments, usedMask, upperScore, yahtzeeScored, workspace.handValues,
+						workspace.handMoments);
+		expectKeeps(keeps, workspace.handValues, workspace.keepValues);
+		expectKeeps(keeps, workspace.handMoments, workspace.keepMoments);
+		for (int i = 0; i < N_CHANCES; i++) {
+			bestKeeps(keeps, workspace.keepValues, workspace.keepMoments, workspace.handValues, workspace.handMoments);
+			expectKeeps(keeps, workspace.handValues, workspace.keepValues);
+			expectKeeps(keeps, workspace.handMoments, workspace.keepMoments);
+		}
+		return workspace.keepMoments[YahtzeeKeeps.EMPTY_KEEP];
+	}
+
+
+	/**
+	 * This method fills "handValues" with the value of each hand after the last
+	 * roll, i.e., the best score plus value of the next state over the categories
+	 * the hand can fill, with the joker and the Yahtzee bonus of the rules.
+	 *
+	 * @param 	rules 			The rules.
+	 * @param 	values 			The value table.
+	 * @param 	usedMask 		An int, the set of used categories.
+	 * @param 	upperScore 		An int, the capped upper score.
+	 * @param 	yahtzeeScored 	A boolean, true if the Yahtzee category holds a score other than 0.
+	 * @param 	handValues 		An array of doubles to fill, one per hand.
+	 */
+	static void scoreFinalHands(YahtzeeRules rules, FloatBuffer values, int usedMask, int upperScore,
+								boolean yahtzeeScored, double[] handValues) {
+		scoreFinalHands(rules, values, null, usedMask, upperScore, yahtzeeScored, handValues, null);
+	}
+
+
+	/**
+	 * This method fills "handValues" like scoreFinalHands and, if "moments" is not
+	 * null, "handMoments" with the second moment of the score of the rest of the
+	 * game after filling the best category with each hand.
+	 *
+	 * @param 	rules 			The rules.
+	 * @param 	values 			The value table.
+	 * @param 	moments 		The table of second moments, or null.
+	 * @param 	usedMask 		An int, the set of used categories.
+	 * @param 	upperScore 		An int, the capped upper score.
+	 * @param 	yahtzeeScored 	A boolean, true if the Yahtzee category holds a score other than 0.
+	 * @param 	handValues 		An array of doubles to fill, one per hand.
+	 * @param 	handMoments 	An array of doubles to fill, one per hand, or null.
+	 */
+	static void scoreFinalHands(YahtzeeRules rules, FloatBuffer values, FloatBuffer moments, int usedMask,
+								int upperScore, boolean yahtzeeScored, double[] handValues, double[] handMoments) {
+		YahtzeeHands hands = rules.getHands();
+		boolean hasBonus = rules.getYahtzeeBonus() > 0;
+		int bonus = yahtzeeScored ? rules.getYahtzeeBonus() : 0;
+		for (int hand = 0, handCount = hands.getHandCount(); hand < handCount; hand++) {
+			int allowed = rules.getAllowedMask(usedMask, hand);
+			short[] scores = rules.isJoker(usedMask, hand) ? hands.jokerScores : hands.scores;
+			double handBonus = hands.isYahtzee(hand) ? bonus : 0;
+			double best = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < N_SCORING_CATEGORIES; i++) {
+				if ((allowed & (1 << i)) == 0)
+					continue;
+				int score = scores[hand * N_SCORING_CATEGORIES + i];
+				boolean scored = yahtzeeScored || (hasBonus && i == YAHTZEE_INDEX && score > 0);
+				int next = stateIndex(usedMask | (1 << i), upperScoreAfter(upperScore, i, score), scored);
+				double value = moveScore(upperScore, i, score) + values.get(next) + handBonus;
+				if (value > best) {
+					best = value;
+					if (moments != null) {
+						double move = moveScore(upperScore, i, score) + handBonus;
+						handMoments[hand] = move * move + 2 * move * values.get(next) + moments.get(next);
+					}
+				}
+			}
+			handValues[hand] = best;
+		}
+	}
+
+
+	/**
+	 * This method fills "keepValues" with the expected value of each keep,
+	 * i.e., the average value of the hands the reroll of the other dice leads to.
+	 *
+	 * @param 	keeps 		The keeps of the rules.
+	 * @param 	handValues 	The value of each hand.
+	 * @param 	keepValues 	An array of doubles to fill, one per keep.
+	 */
+	static void expectKeeps(YahtzeeKeeps keeps, double[] handValues, double[] keepValues) {
+		int[] outcomeStart = keeps.outcomeStart;
+		int[] outcomeHand = keeps.outcomeHand;
+		double[] outcomeProbability = keeps.outcomeProbability;
+		for (int keep = 0, keepCount = keeps.getKeepCount(); keep < keepCount; keep++) {
+			double value = 0;
+			for (int j = outcomeStart[keep], end = outcomeStart[keep + 1]; j < end; j++) {
+				value += outcomeProbability[j] * handValues[outcomeHand[j]];
+			}
+			keepValues[keep] = value;
+		}
+	}
+
+
+	/**
+	 * This method fills "handValues" with the value of each hand before a
+	 * reroll, i.e., the best expected value over the keeps of the hand.
+	 *
+	 * @param 	keeps 		The keeps of the rules.
+	 * @param 	keepValues 	The expected value of each keep.
+	 * @param 	handValues 	An array of doubles to fill, one per hand.
+	 */
+	static void bestKeeps(YahtzeeKeeps keeps, double[] keepValues, double[] handValues) {
+		int[] subKeepStart = keeps.subKeepStart;
+		int[] subKeep = keeps.subKeep;
+		for (int hand = 0, handCount = keeps.getHands().getHandCount(); hand < handCount; hand++) {
+			double best = Double.NEGATIVE_INFINITY;
+			for (int j = subKeepStart[hand], end = subKeepStart[hand + 1]; j < end; j++) {
+				double value = keepValues[subKeep[j]];
+				if (value > best)
+					best = value;
+			}
+			handValues[hand] = best;
+		}
+	}
+
+
+	/**
+	 * This method fills "handValues" like bestKeeps, and "handMoments" with the
+	 * second moment of the best keep of each hand, the one of the lowest index of
+	 * the keeps of the same value like YahtzeeStrategyTable.evaluateRerolls.
+	 *
+	 * @param 	keeps 		The keeps of the rules.
+	 * @param 	keepValues 	The expected value of each keep.
+	 * @param 	keepMoments The second moment of each keep.
+	 * @param 	handValues 	An array of doubles to fill, one per hand.
+	 * @param 	handMoments An array of doubles to fill, one per hand.
+	 */
+	static void bestKeeps(YahtzeeKeeps keeps, double[] keepValues, double[] keepMoments, double[] handValues,
+						  double[] handMoments) {
+		int[] subKeepStart = keeps.subKeepStart;
+		int[] subKeep = keeps.subKeep;
+		for (int hand = 0, handCount = keeps.getHands().getHandCount(); hand < handCount; hand++) {
+			double best = Double.NEGATIVE_INFINITY;
+			int bestKeep = 0;
+			double moment = 0;
+			for (int j = subKeepStart[hand], end = subKeepStart[hand + 1]; j < end; j++) {
+				int keep = subKeep[j];
+				double value = keepValues[keep];
+				if (value > best || (value == best && keep < bestKeep)) {
+					best = value;
+					bestKeep = keep;
+					moment = keepMoments[keep];
+				}
+			}
+			handValues[hand] = best;
+			handMoments[hand] = moment;
+		}
+	}
+
+
+	/**
+	 * This method writes the value table of the rules to a file: a header of four
+	 * ints(magic number, version, number of states and the key of the rules, see
+	 * YahtzeeRules.getKey) followed by one float per state. The table is written
+	 * to a temporary file of its own which then replaces the file in one move, so
+	 * the file is never seen half written, and the processes which have mapped
+	 * the previous file keep reading it.
+	 *
+	 * @param 	rules 	The rules.
+	 * @param 	values 	The value table.
+	 * @param 	file 	The file to write.
+	 */
+	public static void writeValues(YahtzeeRules rules, float[] values, File file) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 4 * values.length).order(ByteOrder.BIG_ENDIAN);
+		buffer.putInt(VALUES_MAGIC).putInt(VALUES_VERSION).putInt(values.length).putInt(rules.getKey());
+		buffer.asFloatBuffer().put(values);
+		buffer.clear();
+		Path target = file.getAbsoluteFile().toPath();
+		Path temporary = target.resolveSibling(target.getFileName() + "."
+											   + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+		try {
+			FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW,
+												   StandardOpenOption.WRITE);
+			try {
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(false);
+			} finally {
+				channel.close();
+			}
+			try {
+				Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+
+	/**
+	 * This method reads a value table written by "writeValues".
+	 *
+	 * @param 	rules 		The rules the table must have been solved for.
+	 * @param 	file 		The file to read.
+	 * @return 	float[] 	The value table.
+	 */
+	public static float[] readValues(YahtzeeRules rules, File file) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = in.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.BIG_ENDIAN);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) { }
+			buffer.flip();
+			checkHeader(rules, buffer, file);
+			float[] values = new float[getStateCount(rules)];
+			buffer.asFloatBuffer().get(values);
+			return values;
+		} finally {
+			in.close();
+		}
+	}
+
+
+	/**
+	 * This method reads and checks the header of a value table file
+	 * and leaves "buffer" positioned at the first value. The tables of the
+	 * first version, which had no key, are tables of the standard rules.
+	 *
+	 * @param 	rules 	The rules the table must have been solved for.
+	 * @param 	buffer 	The contents of the file.
+	 * @param 	file 	The file, for the error message.
+	 */
+	static void checkHeader(YahtzeeRules rules, ByteBuffer buffer, File file) throws IOException {
+		int states = getStateCount(rules);
+		if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != VALUES_MAGIC)
+			throw new IOException(file + " is not a Yahtzee value table");
+		int version = buffer.getInt();
+		if ((version != VALUES_VERSION && (version != 1 || !rules.equals(YahtzeeRules.STANDARD)))
+				|| buffer.getInt() != states
+				|| (version == VALUES_VERSION && buffer.getInt() != rules.getKey())
+				|| buffer.remaining() < 4 * states)
+			throw new IOException(file + " is not a Yahtzee value table of the rules " + rules);
+	}
+
+
+	/**
+	 * This method reads the value table from the file if it exists,
+	 * otherwise solves the game and writes the table to the file.
+	 *
+	 * @param 	rules 		The rules.
+	 * @param 	file 		The file of the value table.
+	 * @return 	float[] 	The value table.
+	 */
+	public static float[] readOrSolve(YahtzeeRules rules, File file) throws IOException {
+		if (file.exists())
+			return readValues(rules, file);
+		float[] values = solve(rules);
+		writeValues(rules, values, file);
+		return values;
+	}
+
+
+	/**
+	 * This method reads the second moments of the strategy of a value table from
+	 * the file if it holds them, otherwise solves them and writes them to the file.
+	 * The file has the format of a value table(see writeValues), so a file which
+	 * is damaged or was written for other rules is solved again and replaced.
+	 *
+	 * @param 	rules 		The rules.
+	 * @param 	values 		A buffer holding the value table of the rules, starting at index 0.
+	 * @param 	file 		The file of the second moments.
+	 * @return 	float[] 	The second moment of the score of the rest of the game for every state.
+	 */
+	public static float[] readOrSolveSecondMoments(YahtzeeRules rules, FloatBuffer values, File file)
+			throws IOException {
+		if (file.exists()) {
+			try {
+				return readValues(rules, file);
+			} catch (IOException e) {
+				System.err.println(e.getMessage() + ", solving it again");
+			}
+		}
+		float[] moments = solveSecondMoments(rules, values, ForkJoinPool.commonPool());
+		writeValues(rules, moments, file);
+		return moments;
+	}
+
+
+	/** The arrays a thread needs to solve a state or to take a decision. */
+	static final class Workspace {
+
+		Workspace(YahtzeeRules rules) {
+			handValues = new double[rules.getHands().getHandCount()];
+			keepValues = new double[rules.getKeeps().getKeepCount()];
+			handMoments = new double[handValues.length];
+			keepMoments = new double[keepValues.length];
+		}
+
+		final double[] handValues;
+		final double[] keepValues;
+		final double[] handMoments;
+		final double[] keepMoments;
+	}
+
+
+	/** The default file of the value table */
+	public static final String DEFAULT_VALUES_FILE = "yahtzee-values.bin";
+
+	/** The upper score from which the upper bonus is given; higher upper scores are stored as this */
+	public static final int UPPER_SCORE_CAP = MIN_UPPER_SCORE_TO_GET_UPPER_BONUS;
+
+	/** The number of distinct capped upper scores */
+	public static final int N_UPPER_SCORES = UPPER_SCORE_CAP + 1;
+
+	/** The number of sets of used categories */
+	public static final int N_MASKS = 1 << N_SCORING_CATEGORIES;
+
+	/** The number of states in the value table of rules without a Yahtzee bonus */
+	public static final int N_STATES = N_MASKS * N_UPPER_SCORES;
+
+	/** The bits of the upper categories in a set of used categories */
+	private static final int UPPER_MASK = (1 << SIXES) - 1;
+
+	/** The scoring index of the Yahtzee category and its bit in a set of used categories */
+	private static final int YAHTZEE_INDEX = YAHTZEE - THREE_OF_A_KIND + SIXES;
+	private static final int YAHTZEE_BIT = 1 << YAHTZEE_INDEX;
+
+	/** The number of sets of used categories solved by one task without splitting */
+	private static final int MASKS_PER_TASK = 4;
+
+	/** The value table file format */
+	private static final int VALUES_MAGIC = 0x595A5654;
+	private static final int VALUES_VERSION = 2;
+	private static final int HEADER_BYTES = 16;
+}
@@ -0,0 +1,209 @@
+/**
+ * File: YahtzeeStatistics.java
+ * ----------------------------
+ * This file collects statistics of many finished games of the Yahtzee game:
+ * the distribution of the final scores, how often the upper bonus and
+ * a Yahtzee were scored, and the average score of each category.
+ * Statistics collected by different threads are combined with "add".
+ */
+
+
+public final class YahtzeeStatistics implements YahtzeeConstants {
+
+
+	/**
+	 * This method records one finished game.
+	 *
+	 * @param 	categoryScores 	An array of the scores of the categories, by scoring index.
+	 * @param 	upperBonus 		An int, the upper bonus of the game(0 if not given).
+	 * @param 	total 			An int, the final score of the game.
+	 */
+	public void addGame(int[] categoryScores, int upperBonus, int total) {
+		games++;
+		sumOfScores += total;
+		sumOfSquares += (long) total * total;
+		scoreCounts[Math.min(total, MAX_SCORE)]++;
+		if (upperBonus > 0)
+			upperBonuses++;
+		if (categoryScores[YahtzeeScorer.toScoringIndex(YAHTZEE)] > 0)
+			yahtzees++;
+		for (int i = 0; i < N_SCORING_CATEGORIES; i++) {
+			categorySums[i] += categoryScores[i];
+		}
+	}
+
+
+	/**
+	 * This method adds the games recorded in "other" to these statistics.
+	 *
+	 * @param 	other 	The statistics to add.
+	 */
+	public void add(YahtzeeStatistics other) {
+		games += other.games;
+		sumOfScores += other.sumOfScores;
+		sumOfSquares += other.sumOfSquares;
+		upperBonuses += other.upperBonuses;
+		yahtzees += other.yahtzees;
+		for (int i = 0; i <= MAX_SCORE; i++) {
+			scoreCounts[i] += other.scoreCounts[i];
+		}
+		for (int i = 0; i < N_SCORING_CATEGORIES; i++) {
+			categorySums[i] += other.categorySums[i];
+		}
+	}
+
+
+	/**
+	 * This method returns the number of recorded games.
+	 *
+	 * @return 	long
+	 */
+	public long getGames() {
+		return games;
+	}
+
+
+	/**
+	 * This method returns the average final score.
+	 *
+	 * @return 	double
+	 */
+	public double getMeanScore() {
+		return games == 0 ? 0 : (double) sumOfScores / games;
+	}
+
+
+	/**
+	 * This method returns the standard deviation of the final scores.
+	 *
+	 * @return 	double
+	 */
+	public double getStandardDeviation() {
+		if (games == 0)
+			return 0;
+		double mean = getMeanScore();
+		return Math.sqrt(Math.max(0, (double) sumOfSquares / games - mean * mean));
+	}
+
+
+	/**
+	 * This method returns the smallest final score which at least the
+	 * fraction "p" of the games did not exceed.
+	 *
+	 * @param 	p 		A double, number between 0 and 1(both including).
+	 * @return 	int
+	 */
+	public int getPercentile(double p) {
+		long needed = (long) Math.ceil(p * games);
+		long seen = 0;
+		for (int score = 0; score <= MAX_SCORE; score++) {
+			seen += scoreCounts[score];
+			if (seen >= needed && seen > 0)
+				return score;
+		}
+		return MAX_SCORE;
+	}
+
+
+	/**
+	 * This method returns the number of games which ended with the final score.
+	 *
+	 * @param 	score 	An int, a final score.
+	 * @return 	long
+	 */
+	public long getScoreCount(int score) {
+		return score < 0 || score > MAX_SCORE ? 0 : scoreCounts[score];
+	}
+
+
+	/**
+	 * This method returns the fraction of the games in which the upper bonus was given.
+	 *
+	 * @return 	double
+	 */
+	public double getUpperBonusRate() {
+		return games == 0 ? 0 : (double) upperBonuses / games;
+	}
+
+
+	/**
+	 * This method returns the fraction of the games in which a Yahtzee was scored.
+	 *
+	 * @return 	double
+	 */
+	public double getYahtzeeRate() {
+		return games == 0 ? 0 : (double) yahtzees / games;
+	}
+
+
+	/**
+	 * This method returns the average score of a category.
+	 *
+	 * @param 	category 	A static constant integer representing a scoring category.
+	 * @return 	double
+	 */
+	public double getMeanCategoryScore(int category) {
+		return games == 0 ? 0 : (double) categorySums[YahtzeeScorer.toScoringIndex(category)] / games;
+	}
+
+
+	/**
+	 * This method returns a report of the statistics, one value per line.
+	 *
+	 * @return 	String
+	 */
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("Games:              %d%n", games));
+		report.append(String.format("Mean score:         %.3f%n", getMeanScore()));
+		report.append(String.format("Standard deviation: %.3f%n", getStandardDeviation()));
+		report.append(String.format("Percentiles:        p1 %d, p10 %d, p50 %d, p90 %d, p99 %d%n",
+									getPercentile(0.01), getPercentile(0.10), getPercentile(0.50),
+									getPercentile(0.90), getPercentile(0.99)));
+		report.append(String.format("Upper bonus rate:   %.4f%n", getUpperBonusRate()));
+		report.append(String.format("Yahtzee rate:       %.4f%n", getYahtzeeRate()));
+		for (int i = 0; i < N_SCORING_CATEGORIES; i++) {
+			int category = YahtzeeScorer.toCategory(i);
+			report.append(String.format("  %-18s %.3f%n", CATEGORY_NAMES[i] + ":", getMeanCategoryScore(category)));
+		}
+		return report.toString();
+	}
+
+
+	/**
+	 * The highest final score of a game with up to MAX_DICE dice and the Yahtzee bonus
+	 * of the official rules(see YahtzeeRules); higher scores are counted as this one.
+	 */
+	public static final int MAX_SCORE = YahtzeeRules.MAX_DICE * (ONES + TWOS + THREES + FOURS + FIVES + SIXES)
+										+ UPPER_BONUS_SCORE + 3 * YahtzeeRules.MAX_DICE * SIXES + FULL_HOUSE_SCORE
+										+ SMALL_STRAIGHT_SCORE + LARGE_STRAIGHT_SCORE + YAHTZEE_SCORE
+										+ (N_ROUNDS - 1) * YahtzeeRules.OFFICIAL_YAHTZEE_BONUS;
+
+	/** The names of the scoring categories, by scoring index */
+	private static final String[] CATEGORY_NAMES = {"Ones", "Twos", "Threes", "Fours", "Fives", "Sixes",
+													"Three of a Kind", "Four of a Kind", "Full House",
+													"Small Straight", "Large Straight", "Yahtzee", "Chance"};
+
+	/* Private instance variables */
+
+	/** The number of recorded games */
+	private long games;
+
+	/** The sum of the final scores */
+	private long sumOfScores;
+
+	/** The sum of the squares of the final scores */
+	private long sumOfSquares;
+
+	/** The number of games in which the upper bonus was given */
+	private long upperBonuses;
+
+	/** The number of games in which a Yahtzee was scored */
+	private long yahtzees;
+
+	/** The number of games for each final score */
+	private final long[] scoreCounts = new long[MAX_SCORE + 1];
+
+	/** The sum of the scores of each category, by scoring index */
+	private final long[] categorySums = new long[N_SCORING_CATEGORIES];
+}
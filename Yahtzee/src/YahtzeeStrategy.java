@@ -0,0 +1,30 @@
+/** 
+ * File: YahtzeeStrategy.java
+ * --------------------------
+ * This file declares the decisions a player of the Yahtzee game takes
+ * in a turn, so that headless games can be played by any strategy.
+ */
+
+public interface YahtzeeStrategy {
+
+	/**
+	 * This method returns the dice to reroll. Bit i of the returned int is set
+	 * if the die with index i should be rerolled; 0 ends the rolling of the turn.
+	 * 
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @param 	rollsLeft 		An int, the number of rerolls left in the turn(1 to N_CHANCES).
+	 * @return 	int
+	 */
+	public int chooseRerolls(long playerState, int[] dice, int rollsLeft);
+
+	/**
+	 * This method returns the unused category to fill with the dice.
+	 * 
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @return 	int 			A static constant integer representing the category.
+	 */
+	public int chooseCategory(long playerState, int[] dice);
+	
+}
@@ -0,0 +1,303 @@
+/**
+ * File: YahtzeeStrategyTable.java
+ * -------------------------------
+ * This file takes the decisions of the optimal strategy for a single
+ * player from the value table computed by YahtzeeSolver: which dice
+ * to reroll and which category to fill, under the rules the table was
+ * solved for.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+
+public final class YahtzeeStrategyTable implements YahtzeeConstants, YahtzeeStrategy {
+
+
+	/**
+	 * Constructs a strategy table from the values computed by YahtzeeSolver
+	 * for the standard rules.
+	 *
+	 * @param 	values 	The expected score of the rest of the game for every state.
+	 */
+	public YahtzeeStrategyTable(float[] values) {
+		this(YahtzeeRules.STANDARD, values);
+	}
+
+
+	/**
+	 * Constructs a strategy table from the values computed by YahtzeeSolver.
+	 *
+	 * @param 	rules 	The rules the values were computed for.
+	 * @param 	values 	The expected score of the rest of the game for every state.
+	 */
+	public YahtzeeStrategyTable(YahtzeeRules rules, float[] values) {
+		this(rules, FloatBuffer.wrap(values));
+	}
+
+
+	/**
+	 * Constructs a strategy table which reads the values from a buffer.
+	 *
+	 * @param 	rules 	The rules the values were computed for.
+	 * @param 	values 	A buffer holding the value of every state, starting at index 0.
+	 */
+	YahtzeeStrategyTable(YahtzeeRules rules, FloatBuffer values) {
+		this.rules = rules;
+		this.values = values;
+	}
+
+
+	/**
+	 * This method reads a strategy table from a file written by YahtzeeSolver.
+	 *
+	 * @param 	rules 					The rules the table was solved for.
+	 * @param 	file 					The file of the value table.
+	 * @return 	YahtzeeStrategyTable
+	 */
+	public static YahtzeeStrategyTable load(YahtzeeRules rules, File file) throws IOException {
+		return new YahtzeeStrategyTable(rules, YahtzeeSolver.readValues(rules, file));
+	}
+
+
+	/**
+	 * This method maps a file written by YahtzeeSolver into memory and reads
+	 * the values directly from the mapping, so nothing is copied to the heap and
+	 * every JVM mapping the same file shares its pages in the page cache.
+	 * The mapping stays valid after the file is closed.
+	 *
+	 * @param 	rules 					The rules the table was solved for.
+	 * @param 	file 					The file of the value table.
+	 * @return 	YahtzeeStrategyTable
+	 */
+	public static YahtzeeStrategyTable map(YahtzeeRules rules, File file) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			MappedByteBuffer buffer = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length());
+			YahtzeeSolver.checkHeader(rules, buffer, file);
+			return new YahtzeeStrategyTable(rules, buffer.slice().asFloatBuffer());
+		} finally {
+			in.close();
+		}
+	}
+
+
+	/**
+	 * This method maps the value table file of the standard rules, solving
+	 * the game and writing the file first if it does not exist yet.
+	 *
+	 * @param 	file 					The file of the value table.
+	 * @return 	YahtzeeStrategyTable
+	 */
+	public static YahtzeeStrategyTable open(File file) throws IOException {
+		return open(YahtzeeRules.STANDARD, file);
+	}
+
+
+	/**
+	 * This method maps the value table file of the rules, solving the game
+	 * and writing the file first if it does not exist yet. Processes which
+	 * open the file at the same time may each solve the game, but the file
+	 * only ever holds a whole table(see YahtzeeSolver.writeValues).
+	 *
+	 * @param 	rules 					The rules.
+	 * @param 	file 					The file of the value table.
+	 * @return 	YahtzeeStrategyTable
+	 */
+	public static YahtzeeStrategyTable open(YahtzeeRules rules, File file) throws IOException {
+		if (!file.exists())
+			YahtzeeSolver.writeValues(rules, YahtzeeSolver.solve(rules), file);
+		return map(rules, file);
+	}
+
+
+	/**
+	 * This method returns the rules the table was solved for.
+	 *
+	 * @return 	YahtzeeRules
+	 */
+	public YahtzeeRules getRules() {
+		return rules;
+	}
+
+
+	/**
+	 * This method returns the buffer of the values, which is only read with
+	 * absolute gets, so it can be shared like the table.
+	 *
+	 * @return 	FloatBuffer
+	 */
+	FloatBuffer getValues() {
+		return values;
+	}
+
+
+	/**
+	 * This method returns the expected score of the rest of the game from
+	 * the start of a turn, when playing optimally, before any Yahtzee is scored.
+	 *
+	 * @param 	usedMask 	An int, bit i is set if the category with scoring index i is used.
+	 * @param 	upperScore 	An int, the upper score so far.
+	 * @return 	float
+	 */
+	public float getExpectedScore(int usedMask, int upperScore) {
+		return values.get(YahtzeeSolver.stateIndex(usedMask, upperScore));
+	}
+
+
+	/**
+	 * This method returns the expected score of the rest of the game from
+	 * the start of a turn in the state of a player, when playing optimally.
+	 *
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @return 	float
+	 */
+	public float getExpectedScore(long playerState) {
+		return values.get(rules.getSolverIndex(playerState));
+	}
+
+
+	/**
+	 * This method returns the category the dice can fill which maximises the
+	 * score of the dice plus the expected score of the rest of the game.
+	 *
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @return 	int 			A static constant integer representing the category.
+	 */
+	public int chooseCategory(long playerState, int[] dice) {
+		int hand = rules.getHands().indexOf(dice);
+		int allowed = rules.getAllowedMask(YahtzeePlayerState.getUsedMask(playerState), hand);
+		int best = -1;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < N_SCORING_CATEGORIES; i++) {
+			if ((allowed & (1 << i)) == 0)
+				continue;
+			double value = getCategoryValue(playerState, hand, i);
+			if (value > bestValue) {
+				bestValue = value;
+				best = i;
+			}
+		}
+		if (best < 0)
+			throw new IllegalArgumentException("Every category is already used");
+		return YahtzeeScorer.toCategory(best);
+	}
+
+
+	/**
+	 * This method returns the score of filling an unused category with the dice,
+	 * upper bonus and Yahtzee bonus included, plus the expected score of the rest
+	 * of the game.
+	 *
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @param 	category 		A static constant integer representing the category.
+	 * @return 	double
+	 */
+	public double getCategoryValue(long playerState, int[] dice, int category) {
+		return getCategoryValue(playerState, rules.getHands().indexOf(dice), YahtzeeScorer.toScoringIndex(category));
+	}
+
+
+	/**
+	 * This method returns the score of filling an unused category with a hand
+	 * plus the expected score of the rest of the game.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	hand 			An int, the index of the hand.
+	 * @param 	scoringIndex 	An int, the scoring index of the category.
+	 * @return 	double
+	 */
+	private double getCategoryValue(long playerState, int hand, int scoringIndex) {
+		int usedMask = YahtzeePlayerState.getUsedMask(playerState);
+		int upper = Math.min(YahtzeePlayerState.getUpperScore(playerState), YahtzeeSolver.UPPER_SCORE_CAP);
+		int score = rules.getScore(usedMask, hand, scoringIndex);
+		long next = rules.fill(playerState, hand, scoringIndex);
+		return rules.getBonus(playerState, hand) + YahtzeeSolver.moveScore(upper, scoringIndex, score)
+				+ values.get(rules.getSolverIndex(next));
+	}
+
+
+	/**
+	 * This method returns the dice to reroll which maximise the expected score.
+	 * Bit i of the returned int is set if the die with index i should be rerolled,
+	 * and 0 means that the dice should be kept as they are.
+	 *
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @param 	rollsLeft 		An int, the number of rerolls left in the turn(1 to N_CHANCES).
+	 * @return 	int
+	 */
+	public int chooseRerolls(long playerState, int[] dice, int rollsLeft) {
+		return evaluateRerolls(playerState, dice, rollsLeft, null);
+	}
+
+
+	/**
+	 * This method evaluates every subset of the dice to reroll by its exact expected
+	 * score, and returns the best one like chooseRerolls. Of subsets of the same
+	 * value, the one which keeps the dice of the lowest keep index is returned,
+	 * whatever the order of the dice. The expectation over the
+	 * rerolled dice is taken on the keep tables of the rules, so a call costs a
+	 * few thousand additions instead of enumerating all the rolls.
+	 * If "rerollValues" is not null, element i gets the expected score of the rest
+	 * of the game(this turn included) when rerolling the dice of the subset i.
+	 *
+	 * @param 	playerState 	A long, the state of the player(see YahtzeePlayerState).
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @param 	rollsLeft 		An int, the number of rerolls left in the turn(1 to N_CHANCES).
+	 * @param 	rerollValues 	An array of 2 to the power of the number of dice doubles, or null.
+	 * @return 	int
+	 */
+	public int evaluateRerolls(long playerState, int[] dice, int rollsLeft, double[] rerollValues) {
+		YahtzeeSolver.Workspace workspace = workspaces.get();
+		YahtzeeKeeps keeps = rules.getKeeps();
+		int usedMask = YahtzeePlayerState.getUsedMask(playerState);
+		int upper = Math.min(YahtzeePlayerState.getUpperScore(playerState), YahtzeeSolver.UPPER_SCORE_CAP);
+		boolean yahtzeeScored = rules.getYahtzeeBonus() > 0 && YahtzeePlayerState.isYahtzeeScored(playerState);
+		YahtzeeSolver.scoreFinalHands(rules, values, usedMask, upper, yahtzeeScored, workspace.handValues);
+		YahtzeeSolver.expectKeeps(keeps, workspace.handValues, workspace.keepValues);
+		for (int i = 1; i < rollsLeft; i++) {
+			YahtzeeSolver.bestKeeps(keeps, workspace.keepValues, workspace.handValues);
+			YahtzeeSolver.expectKeeps(keeps, workspace.handValues, workspace.keepValues);
+		}
+
+		int best = 0;
+		int bestKeep = 0;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int rerolls = 0; rerolls < (1 << dice.length); rerolls++) {
+			int keep = keeps.indexOf(dice, ~rerolls);
+			double value = workspace.keepValues[keep];
+			if (rerollValues != null)
+				rerollValues[rerolls] = value;
+			if (value > bestValue || (value == bestValue && keep < bestKeep)) {
+				bestValue = value;
+				bestKeep = keep;
+				best = rerolls;
+			}
+		}
+		return best;
+	}
+
+
+	/* Private instance variables */
+
+	/** The rules the table was solved for */
+	private final YahtzeeRules rules;
+
+	/** The expected score of the rest of the game for every state */
+	private final FloatBuffer values;
+
+	/** The arrays each thread takes its decisions in */
+	private final ThreadLocal<YahtzeeSolver.Workspace> workspaces = new ThreadLocal<YahtzeeSolver.Workspace>() {
+		protected YahtzeeSolver.Workspace initialValue() {
+			return new YahtzeeSolver.Workspace(rules);
+		}
+	};
+}
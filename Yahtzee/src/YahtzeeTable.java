@@ -0,0 +1,310 @@
+/**
+ * File: YahtzeeTable.java
+ * -----------------------
+ * This file hosts one game of the Yahtzee game for YahtzeeServer.
+ * The actions of the players are queued in the mailbox of the table and
+ * played by the thread of the table, one at a time, on a YahtzeeGame.
+ * So the game itself is only ever touched by that thread, and players on
+ * any thread get the outcome of their action through a future. The table
+ * closes itself once its game is over, and its thread ends.
+ */
+
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+
+public class YahtzeeTable implements YahtzeeConstants, YahtzeeGameListener {
+
+
+	/**
+	 * Constructs a table, starts its thread and the game.
+	 *
+	 * @param 	id 				An int, the number of the table on the server.
+	 * @param 	nPlayers 		An int, the number of players.
+	 * @param 	seed 			A long, the seed of the dice, so that a table can be replayed.
+	 * @param 	threadFactory 	The factory of the thread of the table.
+	 * @param 	log 			The log which records the game, or null.
+	 * @param 	onClose 		The action run on the thread of the table when it closes,
+	 * 							before the reply to the last action.
+	 */
+	public YahtzeeTable(int id, int nPlayers, long seed, ThreadFactory threadFactory, YahtzeeGameLog log,
+						Runnable onClose) {
+		this.id = id;
+		this.seed = seed;
+		this.onClose = onClose;
+		YahtzeeGameListener listener = YahtzeeMetrics.get().newTimer(this);
+		game = new YahtzeeGame(nPlayers, new YahtzeeDice(seed), log == null ? listener : log.newRecorder(nPlayers, listener));
+		thread = threadFactory.newThread(new Runnable() {
+			public void run() {
+				playActions();
+			}
+		});
+		thread.start();
+		mailbox.add(new Action(START, 0, 0));
+	}
+
+
+	/**
+	 * This method plays the actions of the mailbox until the table is closed
+	 * or its game is over.
+	 */
+	private void playActions() {
+		while (true) {
+			Action action;
+			try {
+				action = mailbox.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (action.command == CLOSE) {
+				finish(action, OK + " closed");
+				return;
+			}
+			String reply;
+			try {
+				reply = play(action);
+			} catch (RuntimeException e) {
+				action.reply.completeExceptionally(e);
+				continue;
+			}
+			if (game.getPhase() == YahtzeeGame.Phase.GAME_OVER) {
+				finish(action, reply);
+				return;
+			}
+			action.reply.complete(reply);
+		}
+	}
+
+
+	/**
+	 * This method closes the table on its thread: the owner is told first,
+	 * then the last action gets its reply and the actions left are rejected.
+	 *
+	 * @param 	action 	The last action played.
+	 * @param 	reply 	A string, the reply to the last action.
+	 */
+	private void finish(Action action, String reply) {
+		closed = true;
+		onClose.run();
+		action.reply.complete(reply);
+		rejectQueuedActions();
+	}
+
+
+	/**
+	 * This method queues an action of a player and returns the future reply:
+	 * "OK" or "ERROR <reason>", followed by the status of the table.
+	 *
+	 * @param 	player 		An int representing the player(ignored for STATUS).
+	 * @param 	command 	An int, one of START, ROLL, HOLD, CATEGORY, STATUS and CLOSE.
+	 * @param 	argument 	An int, the held dice(bit i for the die with index i) for HOLD,
+	 * 						the category for CATEGORY.
+	 * @return 	CompletableFuture<String>
+	 */
+	public CompletableFuture<String> submit(int player, int command, int argument) {
+		Action action = new Action(command, player, argument);
+		mailbox.add(action);
+		if (closed)
+			rejectQueuedActions();
+		return action.reply;
+	}
+
+
+	/**
+	 * This method replies to the actions left in the mailbox of a closed table.
+	 * Either the thread of the table or the player who queued an action after
+	 * the table was closed finds the action, so every action gets a reply.
+	 */
+	private void rejectQueuedActions() {
+		Action action;
+		while ((action = mailbox.poll()) != null) {
+			action.reply.complete(ERROR + " table " + id + " is closed");
+		}
+	}
+
+
+	/**
+	 * This method plays one action on the game. It runs on the thread of the table.
+	 *
+	 * @param 	action 	The action.
+	 * @return 	String 	The reply to the action.
+	 */
+	private String play(Action action) {
+		if (action.command == STATUS)
+			return OK + " " + getStatus();
+		if (action.command == START)
+			return reply(game.start(), "the game has already started");
+		if (action.player != game.getPlayer())
+			return ERROR + " it is the turn of player " + game.getPlayer() + " " + getStatus();
+
+		switch (action.command) {
+			case ROLL:
+				return reply(game.roll(), "the dice can not be rolled now");
+			case HOLD:
+				if (game.getPhase() != YahtzeeGame.Phase.SELECTING_DICE)
+					return reply(false, "dice can not be held now");
+				for (int i = 0; i < N_DICE; i++) {
+					boolean reroll = (action.argument & (1 << i)) == 0;
+					if (game.isDieSelected(i) != reroll)
+						game.toggleDie(i);
+				}
+				return reply(true, null);
+			case CATEGORY:
+				categoryRejected = false;
+				boolean filled = game.selectCategory(action.argument);
+				return reply(filled, categoryRejected ? "that category has already been selected"
+													  : "a category can not be selected now");
+			default:
+				return reply(false, "unknown command " + action.command);
+		}
+	}
+
+
+	/**
+	 * This method returns the reply to an action.
+	 *
+	 * @param 	accepted 	A boolean, true if the game accepted the action.
+	 * @param 	reason 		A string, why the action was not accepted.
+	 * @return 	String
+	 */
+	private String reply(boolean accepted, String reason) {
+		if (accepted)
+			return OK + " " + getStatus();
+		return ERROR + " " + reason + " " + getStatus();
+	}
+
+
+	/**
+	 * This method returns the status of the table on one line, for example
+	 * "table=3 phase=SELECTING_DICE round=2 player=1 rolls=2 dice=35561 held=10100 totals=48,12".
+	 * It runs on the thread of the table.
+	 *
+	 * @return 	String
+	 */
+	private String getStatus() {
+		StringBuilder status = new StringBuilder();
+		status.append("table=").append(id)
+			  .append(" phase=").append(game.getPhase())
+			  .append(" round=").append(game.getRound())
+			  .append(" player=").append(game.getPlayer())
+			  .append(" rolls=").append(game.getRollsLeft())
+			  .append(" dice=");
+		for (int i = 0; i < N_DICE; i++) {
+			status.append(game.getDie(i));
+		}
+		status.append(" held=");
+		for (int i = 0; i < N_DICE; i++) {
+			status.append(game.isDieSelected(i) ? '0' : '1');
+		}
+		status.append(" totals=");
+		for (int player = 1; player <= game.getPlayerCount(); player++) {
+			if (player > 1)
+				status.append(',');
+			status.append(YahtzeePlayerState.getTotal(game.getPlayerState(player)));
+		}
+		return status.toString();
+	}
+
+
+	/**
+	 * This method closes the table: the actions queued before are still
+	 * played, then the thread of the table ends.
+	 *
+	 * @return 	CompletableFuture<String>
+	 */
+	public CompletableFuture<String> close() {
+		return submit(0, CLOSE, 0);
+	}
+
+
+	/**
+	 * This method returns the number of the table.
+	 *
+	 * @return 	int
+	 */
+	public int getId() {
+		return id;
+	}
+
+
+	/**
+	 * This method returns the seed of the dice of the table.
+	 *
+	 * @return 	long
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+
+	/* The events of the game are reported through the status of the table. */
+
+	public void turnStarted(int player) { }
+	public void diceRolled(int player, int[] dice, int rollsLeft) { }
+	public void dieSelected(int die, boolean selected) { }
+	public void categorySelected(int player, int category, int score, long playerState) { }
+	public void gameOver(long[] playerStates) { }
+
+
+	public void categoryRejected(int player, int category) {
+		categoryRejected = true;
+	}
+
+
+	/** An action of a player, queued in the mailbox of the table. */
+	private static final class Action {
+
+		Action(int command, int player, int argument) {
+			this.command = command;
+			this.player = player;
+			this.argument = argument;
+		}
+
+		final int command;
+		final int player;
+		final int argument;
+		final CompletableFuture<String> reply = new CompletableFuture<String>();
+	}
+
+
+	/** The commands of the actions */
+	public static final int START = 0;
+	public static final int ROLL = 1;
+	public static final int HOLD = 2;
+	public static final int CATEGORY = 3;
+	public static final int STATUS = 4;
+	public static final int CLOSE = 5;
+
+	/** The first word of the replies */
+	public static final String OK = "OK";
+	public static final String ERROR = "ERROR";
+
+	/* Private instance variables */
+
+	/** The number of the table on the server */
+	private final int id;
+
+	/** The seed of the dice */
+	private final long seed;
+
+	/** The game of the table, only touched by the thread of the table */
+	private final YahtzeeGame game;
+
+	/** The thread which plays the actions */
+	private final Thread thread;
+
+	/** The action run when the table closes */
+	private final Runnable onClose;
+
+	/** The actions waiting to be played */
+	private final BlockingQueue<Action> mailbox = new LinkedBlockingQueue<Action>();
+
+	/** It stores whether the table has been closed. */
+	private volatile boolean closed = false;
+
+	/** It stores whether the game rejected the last selected category as already used. */
+	private boolean categoryRejected;
+}
@@ -0,0 +1,500 @@
+/**
+ * File: YahtzeeTournament.java
+ * ----------------------------
+ * This file plays a round-robin tournament between strategies of the
+ * Yahtzee game and rates them. Every pair of strategies plays the same
+ * number of deals on tables of TABLE_SEATS seats by default, the two
+ * strategies taking every other seat. A deal is played twice with the
+ * seats swapped, and each seat rolls its dice from its own random stream,
+ * the same in both games: both strategies see the same dice(common random
+ * numbers), so the luck of the dice mostly cancels out of the comparison.
+ *
+ * The seats play their turns in order, round by round, and a strategy
+ * which plays for the win(see YahtzeeMultiplayerStrategy) gets the states
+ * of the other seats before each decision.
+ *
+ * In a game, every seat of one strategy is compared with every seat of
+ * the other; a higher total wins, an equal total is half a win. The score
+ * of a deal is the average over both games. The deals of all the pairs
+ * are played in parallel on the fork/join pool, and the strategies are
+ * shared by all the threads, so they must be thread safe.
+ *
+ * The Elo ratings are fitted to the scores of all the pairs(Bradley-Terry
+ * model), with an approximate 95% confidence interval from the variance
+ * of the scores of the deals.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+public final class YahtzeeTournament implements YahtzeeConstants {
+
+
+	/**
+	 * Plays a tournament and prints the ratings. The arguments are optionally
+	 * "-rules" and the name of the rules(default "standard", see YahtzeeRules.forName),
+	 * optionally "-seats" and the even number of seats of a table(default TABLE_SEATS,
+	 * e.g. 2 for heads-up games), then the number of deals per pair(default 100000), the seed(default the
+	 * current time) and the strategies: "greedy", "win" for the win strategy of
+	 * the value table of the rules(see YahtzeeWinStrategy), or files of value
+	 * tables(default "greedy" and the file of the rules, e.g. "yahtzee-values.bin").
+	 *
+	 * @param 	args 	The command line arguments.
+	 */
+	public static void main(String[] args) throws IOException {
+		YahtzeeRules rules = YahtzeeRules.STANDARD;
+		int seats = TABLE_SEATS;
+		int first = 0;
+		if (args.length > first + 1 && args[first].equals("-rules")) {
+			rules = YahtzeeRules.forName(args[first + 1]);
+			first += 2;
+		}
+		if (args.length > first + 1 && args[first].equals("-seats")) {
+			seats = Integer.parseInt(args[first + 1]);
+			first += 2;
+		}
+		int deals = args.length > first ? Integer.parseInt(args[first]) : 100000;
+		long seed = args.length > first + 1 ? Long.parseLong(args[first + 1]) : System.nanoTime();
+		String[] names = args.length > first + 2 ? new String[args.length - first - 2]
+												 : new String[] {"greedy", rules.getValuesFile()};
+		if (args.length > first + 2)
+			System.arraycopy(args, first + 2, names, 0, names.length);
+
+		YahtzeeStrategy[] strategies = new YahtzeeStrategy[names.length];
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals("greedy"))
+				strategies[i] = new YahtzeeGreedyStrategy(rules);
+			else if (names[i].equals("win"))
+				strategies[i] = new YahtzeeWinStrategy(YahtzeeStrategyTable.open(rules, new File(rules.getValuesFile())),
+													   new File(rules.getMomentsFile()));
+			else
+				strategies[i] = YahtzeeStrategyTable.open(rules, new File(names[i]));
+		}
+
+		long start = System.nanoTime();
+		Result result = play(rules, strategies, deals, seed, seats, ForkJoinPool.commonPool());
+		long elapsed = System.nanoTime() - start;
+		System.out.println("Rules:              " + rules);
+		System.out.println("Seed:               " + seed);
+		System.out.println("Seats:              " + seats);
+		System.out.print(result.getReport(names));
+		System.out.println("Games per second:   " + (long) (result.getGames() / (elapsed / 1e9)));
+	}
+
+
+	/** The tournament only has static methods, so it is never constructed. */
+	private YahtzeeTournament() { }
+
+
+	/**
+	 * This method plays a tournament with the common fork/join pool.
+	 *
+	 * @param 	rules 		The rules.
+	 * @param 	strategies 	The strategies, shared by all the threads.
+	 * @param 	deals 		An int, the number of deals each pair of strategies plays(at least 1).
+	 * @param 	seed 		A long, the seed of the dice.
+	 * @return 	Result
+	 */
+	public static Result play(YahtzeeRules rules, YahtzeeStrategy[] strategies, int deals, long seed) {
+		return play(rules, strategies, deals, seed, ForkJoinPool.commonPool());
+	}
+
+
+	/**
+	 * This method plays a tournament in parallel. The result only depends on
+	 * the seed, not on the number of threads.
+	 *
+	 * @param 	rules 		The rules.
+	 * @param 	strategies 	The strategies, shared by all the threads.
+	 * @param 	deals 		An int, the number of deals each pair of strategies plays(at least 1).
+	 * @param 	seed 		A long, the seed of the dice.
+	 * @param 	pool 		The pool which plays the deals.
+	 * @return 	Result
+	 */
+	public static Result play(YahtzeeRules rules, YahtzeeStrategy[] strategies, int deals, long seed,
+							  ForkJoinPool pool) {
+		return play(rules, strategies, deals, seed, TABLE_SEATS, pool);
+	}
+
+
+	/**
+	 * This method plays a tournament in parallel on tables of a number of seats.
+	 * The result only depends on the seed, not on the number of threads.
+	 *
+	 * @param 	rules 		The rules.
+	 * @param 	strategies 	The strategies, shared by all the threads.
+	 * @param 	deals 		An int, the number of deals each pair of strategies plays(at least 1).
+	 * @param 	seed 		A long, the seed of the dice.
+	 * @param 	seats 		An int, the even number of seats of a table.
+	 * @param 	pool 		The pool which plays the deals.
+	 * @return 	Result
+	 */
+	public static Result play(YahtzeeRules rules, YahtzeeStrategy[] strategies, int deals, long seed, int seats,
+							  ForkJoinPool pool) {
+		if (strategies.length < 2)
+			throw new IllegalArgumentException("A tournament needs at least two strategies");
+		if (deals < 1)
+			throw new IllegalArgumentException("A tournament needs at least one deal, not " + deals);
+		if (seats < 2 || seats % 2 != 0)
+			throw new IllegalArgumentException("A table needs an even number of seats, not " + seats);
+		int blocks = (deals + DEALS_PER_TASK - 1) / DEALS_PER_TASK;
+		int pairs = strategies.length * (strategies.length - 1) / 2;
+		return pool.invoke(new TournamentTask(rules, strategies, deals, seed, seats, blocks, 0, pairs * blocks));
+	}
+
+
+	/**
+	 * This task plays a range of blocks of deals; the blocks of all the pairs
+	 * are numbered one after the other. Bigger ranges are split in two halves
+	 * which are played in parallel.
+	 */
+	@SuppressWarnings("serial")
+	private static class TournamentTask extends RecursiveTask<Result> {
+
+		TournamentTask(YahtzeeRules rules, YahtzeeStrategy[] strategies, int deals, long seed, int seats,
+					   int blocks, int from, int to) {
+			this.rules = rules;
+			this.strategies = strategies;
+			this.deals = deals;
+			this.seed = seed;
+			this.seats = seats;
+			this.blocks = blocks;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected Result compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				TournamentTask second = new TournamentTask(rules, strategies, deals, seed, seats, blocks, middle, to);
+				second.fork();
+				Result result = new TournamentTask(rules, strategies, deals, seed, seats, blocks, from, middle)
+								.compute();
+				result.add(second.join());
+				return result;
+			}
+			Result result = new Result(strategies.length);
+			int pair = from / blocks;
+			int first = 0;
+			while (pair >= strategies.length - 1 - first) {
+				pair -= strategies.length - 1 - first;
+				first++;
+			}
+			int second = first + 1 + pair;
+			int firstDeal = (from % blocks) * DEALS_PER_TASK;
+			int lastDeal = Math.min(firstDeal + DEALS_PER_TASK, deals);
+			for (int deal = firstDeal; deal < lastDeal; deal++) {
+				playDeal(rules, strategies, first, second, seed, seats, deal, result);
+			}
+			return result;
+		}
+
+		private final YahtzeeRules rules;
+		private final YahtzeeStrategy[] strategies;
+		private final int deals;
+		private final long seed;
+		private final int seats;
+		private final int blocks;
+		private final int from;
+		private final int to;
+	}
+
+
+	/**
+	 * This method plays a deal twice, with the seats of the strategies swapped,
+	 * and records the score of the first strategy against the second.
+	 *
+	 * @param 	rules 		The rules.
+	 * @param 	strategies 	The strategies.
+	 * @param 	first 		An int, the index of the first strategy.
+	 * @param 	second 		An int, the index of the second strategy.
+	 * @param 	seed 		A long, the seed of the tournament.
+	 * @param 	seats 		An int, the number of seats of the table.
+	 * @param 	deal 		An int, the number of the deal.
+	 * @param 	result 		The result to record the deal in.
+	 */
+	private static void playDeal(YahtzeeRules rules, YahtzeeStrategy[] strategies, int first, int second,
+								 long seed, int seats, int deal, Result result) {
+		int[] dice = new int[rules.getDiceCount()];
+		int[][] categoryScores = new int[seats][N_SCORING_CATEGORIES];
+		YahtzeeDice[] streams = new YahtzeeDice[seats];
+		long[] states = new long[seats];
+		long[] opponentStates = new long[seats - 1];
+		int[] totals = new int[seats];
+		double score = 0;
+		for (int swap = 0; swap < 2; swap++) {
+			YahtzeeDice deck = new YahtzeeDice(seed + deal * DEAL_SEED_INCREMENT, rules.getFaceCount());
+			for (int seat = 0; seat < seats; seat++) {
+				streams[seat] = deck.split();
+				states[seat] = YahtzeePlayerState.NEW_STATE;
+			}
+			for (int round = 0; round < N_ROUNDS; round++) {
+				for (int seat = 0; seat < seats; seat++) {
+					YahtzeeStrategy strategy = strategies[((seat + swap) % 2 == 0) ? first : second];
+					for (int other = 0, i = 0; other < seats; other++) {
+						if (other != seat)
+							opponentStates[i++] = states[other];
+					}
+					states[seat] = YahtzeeSimulator.playTurn(rules, strategy, states[seat], opponentStates,
+															 streams[seat], dice, categoryScores[seat]);
+				}
+			}
+			for (int seat = 0; seat < seats; seat++) {
+				int strategy = ((seat + swap) % 2 == 0) ? first : second;
+				totals[seat] = YahtzeePlayerState.getTotal(states[seat]);
+				result.statistics[strategy].addGame(categoryScores[seat],
+													YahtzeePlayerState.getUpperBonus(states[seat]), totals[seat]);
+			}
+			int comparisons = 0;
+			double wins = 0;
+			for (int seat = 0; seat < seats; seat++) {
+				if ((seat + swap) % 2 != 0)
+					continue;
+				for (int other = 0; other < seats; other++) {
+					if ((other + swap) % 2 == 0)
+						continue;
+					comparisons++;
+					if (totals[seat] > totals[other])
+						wins += 1;
+					else if (totals[seat] == totals[other])
+						wins += 0.5;
+				}
+			}
+			score += wins / comparisons / 2;
+		}
+		result.deals[first][second]++;
+		result.scores[first][second] += score;
+		result.squares[first][second] += score * score;
+	}
+
+
+	/**
+	 * The result of a tournament: the scores of every pair of strategies and
+	 * the statistics of the games of each strategy. Results collected by
+	 * different threads are combined with "add".
+	 */
+	public static final class Result {
+
+		Result(int nStrategies) {
+			deals = new long[nStrategies][nStrategies];
+			scores = new double[nStrategies][nStrategies];
+			squares = new double[nStrategies][nStrategies];
+			statistics = new YahtzeeStatistics[nStrategies];
+			for (int i = 0; i < nStrategies; i++) {
+				statistics[i] = new YahtzeeStatistics();
+			}
+		}
+
+		/**
+		 * This method adds the deals of "other" to this result.
+		 *
+		 * @param 	other 	The result to add.
+		 */
+		public void add(Result other) {
+			for (int i = 0; i < deals.length; i++) {
+				for (int j = 0; j < deals.length; j++) {
+					deals[i][j] += other.deals[i][j];
+					scores[i][j] += other.scores[i][j];
+					squares[i][j] += other.squares[i][j];
+				}
+				statistics[i].add(other.statistics[i]);
+			}
+		}
+
+		/**
+		 * This method returns the number of games played by all the strategies.
+		 *
+		 * @return 	long
+		 */
+		public long getGames() {
+			long games = 0;
+			for (int i = 0; i < statistics.length; i++) {
+				games += statistics[i].getGames();
+			}
+			return games;
+		}
+
+		/**
+		 * This method returns the statistics of the games of a strategy.
+		 *
+		 * @param 	strategy 			An int, the index of the strategy.
+		 * @return 	YahtzeeStatistics
+		 */
+		public YahtzeeStatistics getStatistics(int strategy) {
+			return statistics[strategy];
+		}
+
+		/**
+		 * This method returns the average score of a strategy against another:
+		 * 1 if it always won, 0.5 if they were even.
+		 *
+		 * @param 	strategy 	An int, the index of the strategy.
+		 * @param 	opponent 	An int, the index of the other strategy.
+		 * @return 	double
+		 */
+		public double getScore(int strategy, int opponent) {
+			if (strategy > opponent)
+				return 1 - getScore(opponent, strategy);
+			return scores[strategy][opponent] / deals[strategy][opponent];
+		}
+
+		/**
+		 * This method returns the half width of the 95% confidence interval
+		 * of the average score of a strategy against another.
+		 *
+		 * @param 	strategy 	An int, the index of the strategy.
+		 * @param 	opponent 	An int, the index of the other strategy.
+		 * @return 	double
+		 */
+		public double getScoreError(int strategy, int opponent) {
+			return Z_95 * Math.sqrt(getVariance(strategy, opponent) / deals[Math.min(strategy, opponent)]
+																			 [Math.max(strategy, opponent)]);
+		}
+
+		/**
+		 * This method returns the variance of the score of the deals of two strategies.
+		 */
+		private double getVariance(int strategy, int opponent) {
+			int i = Math.min(strategy, opponent);
+			int j = Math.max(strategy, opponent);
+			double mean = scores[i][j] / deals[i][j];
+			return Math.max(squares[i][j] / deals[i][j] - mean * mean, MIN_VARIANCE);
+		}
+
+		/**
+		 * This method returns the Elo ratings of the strategies, fitted to the
+		 * scores of all the pairs and centred on INITIAL_RATING. Every pair
+		 * counts one drawn deal more than it played, so that a strategy
+		 * which always won still gets a finite rating.
+		 *
+		 * @return 	double[]
+		 */
+		public double[] getRatings() {
+			int n = deals.length;
+			double[] strengths = new double[n];
+			Arrays.fill(strengths, 1);
+			for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+				double change = 0;
+				double logSum = 0;
+				for (int i = 0; i < n; i++) {
+					double wins = 0;
+					double games = 0;
+					for (int j = 0; j < n; j++) {
+						if (j == i)
+							continue;
+						long played = deals[Math.min(i, j)][Math.max(i, j)] + 1;
+						wins += getScore(i, j) * (played - 1) + 0.5;
+						games += played / (strengths[i] + strengths[j]);
+					}
+					double strength = wins / games;
+					change = Math.max(change, Math.abs(Math.log(strength / strengths[i])));
+					strengths[i] = strength;
+					logSum += Math.log(strength);
+				}
+				double scale = Math.exp(logSum / n);
+				for (int i = 0; i < n; i++) {
+					strengths[i] /= scale;
+				}
+				if (change < 1e-12)
+					break;
+			}
+			double[] ratings = new double[n];
+			for (int i = 0; i < n; i++) {
+				ratings[i] = INITIAL_RATING + ELO_PER_LOG * Math.log(strengths[i]);
+			}
+			return ratings;
+		}
+
+		/**
+		 * This method returns the half width of the approximate 95% confidence
+		 * interval of the Elo rating of each strategy, from the variance of the
+		 * scores of its deals against every other strategy.
+		 *
+		 * @return 	double[]
+		 */
+		public double[] getRatingErrors() {
+			int n = deals.length;
+			double[] errors = new double[n];
+			for (int i = 0; i < n; i++) {
+				double information = 0;
+				for (int j = 0; j < n; j++) {
+					if (j == i)
+						continue;
+					double p = Math.min(Math.max(getScore(i, j), MIN_SCORE), 1 - MIN_SCORE);
+					double slope = p * (1 - p);
+					information += deals[Math.min(i, j)][Math.max(i, j)] * slope * slope / getVariance(i, j);
+				}
+				errors[i] = Z_95 * ELO_PER_LOG / Math.sqrt(information);
+			}
+			return errors;
+		}
+
+		/**
+		 * This method returns a report of the ratings and of the scores of the
+		 * pairs, one line each.
+		 *
+		 * @param 	names 	An array of strings, the names of the strategies.
+		 * @return 	String
+		 */
+		public String getReport(String[] names) {
+			double[] ratings = getRatings();
+			double[] errors = getRatingErrors();
+			StringBuilder report = new StringBuilder();
+			report.append(String.format("%-24s %10s %8s %8s%n", "Strategy", "Mean score", "Elo", "95% CI"));
+			for (int i = 0; i < names.length; i++) {
+				report.append(String.format("%-24s %10.3f %8.1f %8s%n", names[i], statistics[i].getMeanScore(),
+											ratings[i], String.format("+-%.1f", errors[i])));
+			}
+			for (int i = 0; i < names.length; i++) {
+				for (int j = i + 1; j < names.length; j++) {
+					report.append(String.format("%s vs %s: %.4f +-%.4f over %d deals%n", names[i], names[j],
+												getScore(i, j), getScoreError(i, j), deals[i][j]));
+				}
+			}
+			return report.toString();
+		}
+
+		/** The number of deals of each pair, [first][second] with first < second */
+		private final long[][] deals;
+
+		/** The sum of the scores of the first strategy of each pair */
+		private final double[][] scores;
+
+		/** The sum of the squares of the scores of the first strategy of each pair */
+		private final double[][] squares;
+
+		/** The statistics of the games of each strategy */
+		private final YahtzeeStatistics[] statistics;
+	}
+
+
+	/** The default number of seats of a table of the tournament */
+	public static final int TABLE_SEATS = 4;
+
+	/** The number of deals of a pair played by one task without splitting */
+	private static final int DEALS_PER_TASK = 256;
+
+	/** The seeds of the deals are spaced by this odd constant */
+	private static final long DEAL_SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+	/** The average Elo rating */
+	public static final double INITIAL_RATING = 1500;
+
+	/** Elo points per unit of the natural logarithm of the strength: 400 / ln(10) */
+	private static final double ELO_PER_LOG = 400 / Math.log(10);
+
+	/** The quantile of the normal distribution for 95% confidence intervals */
+	private static final double Z_95 = 1.959964;
+
+	/** The bounds which keep the variances and the scores away from 0 */
+	private static final double MIN_VARIANCE = 1e-12;
+	private static final double MIN_SCORE = 1e-6;
+
+	/** The largest number of iterations of the fit of the ratings */
+	private static final int MAX_ITERATIONS = 10000;
+}
@@ -0,0 +1,468 @@
+/**
+ * File: YahtzeeWinStrategy.java
+ * -----------------------------
+ * This file implements a strategy for games of the Yahtzee game with
+ * several players which maximises the probability of winning rather than
+ * the expected score: a player far behind takes more risks, and a player
+ * far ahead fewer.
+ *
+ * The final total of a player is modelled as the total so far plus the
+ * score of the rest of the game, a normal distribution whose mean and
+ * variance come from the value table of the optimal strategy and its
+ * table of second moments(see YahtzeeSolver.solveSecondMoments). That is,
+ * the opponents, and this player after this turn, are modelled as playing
+ * the optimal strategy. The decisions of the turn maximise the probability
+ * that the final total of this player beats the best final total of the
+ * opponents, a tie counting as half a win.
+ *
+ * The decisions of a turn only depend on the states of the players, so
+ * the decisions of every hand of the turn(a plan) are computed at the
+ * first decision of the turn, in about a millisecond, and the plans of
+ * the recent turns are kept in a bounded cache for the other decisions.
+ * The strategy is thread safe.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+
+public final class YahtzeeWinStrategy implements YahtzeeConstants, YahtzeeMultiplayerStrategy {
+
+
+	/**
+	 * Constructs a win strategy from the value table of the optimal strategy.
+	 * The table of second moments is solved first, which takes about as long
+	 * as solving the game.
+	 *
+	 * @param 	table 	The value table of the optimal strategy.
+	 */
+	public YahtzeeWinStrategy(YahtzeeStrategyTable table) {
+		this(table, YahtzeeSolver.solveSecondMoments(table.getRules(), table.getValues(), ForkJoinPool.commonPool()),
+			 DEFAULT_CACHE_SIZE);
+	}
+
+
+	/**
+	 * Constructs a win strategy from the value table of the optimal strategy,
+	 * with the second moments read from a file. If the file does not exist yet,
+	 * the second moments are solved first and written to it.
+	 *
+	 * @param 	table 	The value table of the optimal strategy.
+	 * @param 	file 	The file of the second moments, e.g. the one of the rules(see YahtzeeRules.getMomentsFile).
+	 */
+	public YahtzeeWinStrategy(YahtzeeStrategyTable table, File file) throws IOException {
+		this(table, YahtzeeSolver.readOrSolveSecondMoments(table.getRules(), table.getValues(), file),
+			 DEFAULT_CACHE_SIZE);
+	}
+
+
+	/**
+	 * Constructs a win strategy.
+	 *
+	 * @param 	table 			The value table of the optimal strategy.
+	 * @param 	secondMoments 	The second moments of the optimal strategy(see YahtzeeSolver.solveSecondMoments).
+	 * @param 	cacheSize 		An int, the number of plans of recent turns kept.
+	 */
+	@SuppressWarnings("serial")
+	public YahtzeeWinStrategy(YahtzeeStrategyTable table, float[] secondMoments, final int cacheSize) {
+		if (secondMoments.length != YahtzeeSolver.getStateCount(table.getRules()))
+			throw new IllegalArgumentException("The second moments are not those of the rules " + table.getRules());
+		if (cacheSize < 1)
+			throw new IllegalArgumentException("The cache must hold at least one plan");
+		this.table = table;
+		this.rules = table.getRules();
+		this.values = table.getValues();
+		this.moments = secondMoments;
+		this.plans = new LinkedHashMap<Situation, Plan>(16, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry<Situation, Plan> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+
+	/**
+	 * This method returns the dice to reroll of the optimal strategy, as
+	 * there is no opponent to beat.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @param 	rollsLeft 		An int, the number of rerolls left in the turn.
+	 * @return 	int 			The dice to reroll.
+	 */
+	public int chooseRerolls(long playerState, int[] dice, int rollsLeft) {
+		return table.chooseRerolls(playerState, dice, rollsLeft);
+	}
+
+
+	/**
+	 * This method returns the category of the optimal strategy, as there
+	 * is no opponent to beat.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @return 	int 			A static constant integer representing the category.
+	 */
+	public int chooseCategory(long playerState, int[] dice) {
+		return table.chooseCategory(playerState, dice);
+	}
+
+
+	/**
+	 * This method returns the dice to reroll which maximise the probability of winning.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	opponentStates 	An array of longs, the states of the other players.
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @param 	rollsLeft 		An int, the number of rerolls left in the turn(1 to N_CHANCES).
+	 * @return 	int 			The dice to reroll.
+	 */
+	public int chooseRerolls(long playerState, long[] opponentStates, int[] dice, int rollsLeft) {
+		if (opponentStates.length == 0)
+			return chooseRerolls(playerState, dice, rollsLeft);
+		double[] keepValues = getPlan(playerState, opponentStates).keepValues[rollsLeft - 1];
+		YahtzeeKeeps keeps = rules.getKeeps();
+		int best = 0;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int rerolls = 0; rerolls < (1 << dice.length); rerolls++) {
+			double value = keepValues[keeps.indexOf(dice, ~rerolls)];
+			if (value > bestValue) {
+				bestValue = value;
+				best = rerolls;
+			}
+		}
+		return best;
+	}
+
+
+	/**
+	 * This method returns the category which maximises the probability of winning.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	opponentStates 	An array of longs, the states of the other players.
+	 * @param 	dice 			An array of integers, the numbers on the dice.
+	 * @return 	int 			A static constant integer representing the category.
+	 */
+	public int chooseCategory(long playerState, long[] opponentStates, int[] dice) {
+		if (opponentStates.length == 0)
+			return chooseCategory(playerState, dice);
+		Plan plan = getPlan(playerState, opponentStates);
+		return YahtzeeScorer.toCategory(plan.categories[rules.getHands().indexOf(dice)]);
+	}
+
+
+	/**
+	 * This method returns the probability that a player wins the game, from the
+	 * start of a turn, when every player plays the optimal strategy.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	opponentStates 	An array of longs, the states of the other players.
+	 * @return 	double
+	 */
+	public double getWinProbability(long playerState, long[] opponentStates) {
+		return getWinProbability(playerState, getBeatingProbabilities(opponentStates));
+	}
+
+
+	/**
+	 * This method returns the plan of the turn of a player from the cache,
+	 * computing it if it is not there.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	opponentStates 	An array of longs, the states of the other players.
+	 * @return 	Plan
+	 */
+	private Plan getPlan(long playerState, long[] opponentStates) {
+		Situation situation = new Situation(playerState, opponentStates);
+		Plan plan;
+		synchronized (plans) {
+			plan = plans.get(situation);
+		}
+		if (plan == null) {
+			plan = computePlan(playerState, opponentStates);
+			synchronized (plans) {
+				plans.put(situation, plan);
+			}
+		}
+		return plan;
+	}
+
+
+	/**
+	 * This method computes the plan of the turn of a player: the category
+	 * which maximises the probability of winning for every hand, and the
+	 * probability of winning of every keep for every number of rerolls left.
+	 * A tiny weight on the expected final total breaks the ties, e.g. when the
+	 * game is already won or lost.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	opponentStates 	An array of longs, the states of the other players.
+	 * @return 	Plan
+	 */
+	private Plan computePlan(long playerState, long[] opponentStates) {
+		double[] beating = getBeatingProbabilities(opponentStates);
+		YahtzeeKeeps keeps = rules.getKeeps();
+		int handCount = rules.getHands().getHandCount();
+		double[] handValues = workspaces.get().handValues;
+		Plan plan = new Plan(handCount, keeps.getKeepCount());
+		int usedMask = YahtzeePlayerState.getUsedMask(playerState);
+		for (int hand = 0; hand < handCount; hand++) {
+			int allowed = rules.getAllowedMask(usedMask, hand);
+			double best = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < N_SCORING_CATEGORIES; i++) {
+				if ((allowed & (1 << i)) == 0)
+					continue;
+				long next = rules.fill(playerState, hand, i);
+				double value = getWinProbability(next, beating) + SCORE_WEIGHT * getMeanTotal(next);
+				if (value > best) {
+					best = value;
+					plan.categories[hand] = i;
+				}
+			}
+			handValues[hand] = best;
+		}
+		YahtzeeSolver.expectKeeps(keeps, handValues, plan.keepValues[0]);
+		for (int i = 1; i < N_CHANCES; i++) {
+			YahtzeeSolver.bestKeeps(keeps, plan.keepValues[i - 1], handValues);
+			YahtzeeSolver.expectKeeps(keeps, handValues, plan.keepValues[i]);
+		}
+		return plan;
+	}
+
+
+	/**
+	 * This method returns the probability that a player wins from the start
+	 * of a turn, given the probability of beating the opponents with each
+	 * final total: the expectation of the latter over the normal distribution
+	 * of the final total of the player.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @param 	beating 		An array of doubles, the probability of beating the opponents with each final total.
+	 * @return 	double
+	 */
+	private double getWinProbability(long playerState, double[] beating) {
+		double mean = getMeanTotal(playerState);
+		double deviation = getDeviation(playerState);
+		if (deviation < MIN_DEVIATION)
+			return interpolate(beating, mean);
+		double probability = 0;
+		for (int k = 0; k < NODES.length; k++) {
+			probability += WEIGHTS[k] * interpolate(beating, mean + deviation * NODES[k]);
+		}
+		return probability;
+	}
+
+
+	/**
+	 * This method returns, for each final total from 0 to YahtzeeStatistics.MAX_SCORE,
+	 * the probability that it beats the final totals of all the opponents, an
+	 * equal total counting as half.
+	 *
+	 * @param 	opponentStates 	An array of longs, the states of the other players.
+	 * @return 	double[]
+	 */
+	private double[] getBeatingProbabilities(long[] opponentStates) {
+		double[] beating = new double[YahtzeeStatistics.MAX_SCORE + 1];
+		Arrays.fill(beating, 1.0);
+		for (int j = 0; j < opponentStates.length; j++) {
+			long state = opponentStates[j];
+			int total = YahtzeePlayerState.getTotal(state);
+			if (YahtzeePlayerState.isComplete(state)) {
+				for (int x = 0; x <= Math.min(total, YahtzeeStatistics.MAX_SCORE); x++) {
+					beating[x] *= (x == total) ? 0.5 : 0.0;
+				}
+				continue;
+			}
+			double mean = getMeanTotal(state);
+			double deviation = Math.max(getDeviation(state), MIN_DEVIATION);
+			int high = (int) Math.min(Math.ceil(mean + PHI_RANGE * deviation), YahtzeeStatistics.MAX_SCORE);
+			for (int x = 0; x <= high; x++) {
+				beating[x] *= normalDistribution((x - mean) / deviation);
+			}
+		}
+		return beating;
+	}
+
+
+	/**
+	 * This method returns the mean final total of a player: the total so far
+	 * plus the expected score of the rest of the game.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @return 	double
+	 */
+	private double getMeanTotal(long playerState) {
+		return YahtzeePlayerState.getTotal(playerState) + values.get(rules.getSolverIndex(playerState));
+	}
+
+
+	/**
+	 * This method returns the standard deviation of the score of the rest of the game of a player.
+	 *
+	 * @param 	playerState 	A long, the state of the player.
+	 * @return 	double
+	 */
+	private double getDeviation(long playerState) {
+		int index = rules.getSolverIndex(playerState);
+		double mean = values.get(index);
+		return Math.sqrt(Math.max(moments[index] - mean * mean, 0.0));
+	}
+
+
+	/**
+	 * This method returns the value of a table of the final totals at a total
+	 * which is not a whole number, by linear interpolation.
+	 *
+	 * @param 	table 	An array of doubles, one per final total from 0.
+	 * @param 	x 		A double, the final total.
+	 * @return 	double
+	 */
+	private static double interpolate(double[] table, double x) {
+		if (x <= 0)
+			return table[0];
+		if (x >= table.length - 1)
+			return table[table.length - 1];
+		int i = (int) x;
+		return table[i] + (x - i) * (table[i + 1] - table[i]);
+	}
+
+
+	/**
+	 * This method returns the standard normal distribution function at z, from
+	 * a table with linear interpolation(accurate to about 3e-5).
+	 *
+	 * @param 	z 	A double.
+	 * @return 	double
+	 */
+	private static double normalDistribution(double z) {
+		if (z <= -PHI_RANGE)
+			return 0.0;
+		if (z >= PHI_RANGE)
+			return 1.0;
+		double x = (z + PHI_RANGE) * PHI_STEPS;
+		int i = (int) x;
+		return PHI[i] + (x - i) * (PHI[i + 1] - PHI[i]);
+	}
+
+
+	/**
+	 * This method returns the complementary error function of x >= 0
+	 * (Abramowitz and Stegun 7.1.26, accurate to 1.5e-7).
+	 *
+	 * @param 	x 	A double, at least 0.
+	 * @return 	double
+	 */
+	private static double erfc(double x) {
+		double t = 1.0 / (1.0 + 0.3275911 * x);
+		double polynomial = t * (0.254829592 + t * (-0.284496736 + t * (1.421413741
+							+ t * (-1.453152027 + t * 1.061405429))));
+		return polynomial * Math.exp(-x * x);
+	}
+
+
+	/** The states of the players a plan is computed for; the order of the opponents does not matter. */
+	private static final class Situation {
+
+		Situation(long playerState, long[] opponentStates) {
+			this.playerState = playerState;
+			this.opponentStates = opponentStates.clone();
+			Arrays.sort(this.opponentStates);
+		}
+
+		public boolean equals(Object other) {
+			if (!(other instanceof Situation))
+				return false;
+			Situation situation = (Situation) other;
+			return playerState == situation.playerState && Arrays.equals(opponentStates, situation.opponentStates);
+		}
+
+		public int hashCode() {
+			return 31 * Long.hashCode(playerState) + Arrays.hashCode(opponentStates);
+		}
+
+		private final long playerState;
+		private final long[] opponentStates;
+	}
+
+
+	/** The decisions of a turn, which are never changed once computed. */
+	private static final class Plan {
+
+		Plan(int handCount, int keepCount) {
+			categories = new int[handCount];
+			keepValues = new double[N_CHANCES][keepCount];
+		}
+
+		/** The scoring index of the category to fill with each hand */
+		final int[] categories;
+
+		/** The value of each keep, for 1 to N_CHANCES rerolls left */
+		final double[][] keepValues;
+	}
+
+
+	/** The number of plans of recent turns kept by default */
+	public static final int DEFAULT_CACHE_SIZE = 256;
+
+	/** The weight of a point of the expected final total, which only breaks the ties of the probabilities */
+	private static final double SCORE_WEIGHT = 1e-9;
+
+	/** The standard deviation under which a final total is taken as certain */
+	private static final double MIN_DEVIATION = 1.0;
+
+	/** The table of the standard normal distribution function, from -PHI_RANGE to PHI_RANGE */
+	private static final double PHI_RANGE = 8.0;
+	private static final int PHI_STEPS = 32;
+	private static final double[] PHI = new double[(int) (2 * PHI_RANGE) * PHI_STEPS + 1];
+
+	/** The nodes and the weights which take the expectation over a normal distribution */
+	private static final double[] NODES = new double[33];
+	private static final double[] WEIGHTS = new double[NODES.length];
+
+	static {
+		for (int i = 0; i < PHI.length; i++) {
+			double z = (double) i / PHI_STEPS - PHI_RANGE;
+			double tail = 0.5 * erfc(Math.abs(z) / Math.sqrt(2.0));
+			PHI[i] = (z < 0) ? tail : 1.0 - tail;
+		}
+		double sum = 0;
+		for (int k = 0; k < NODES.length; k++) {
+			NODES[k] = 8.0 * k / (NODES.length - 1) - 4.0;
+			WEIGHTS[k] = Math.exp(-NODES[k] * NODES[k] / 2);
+			sum += WEIGHTS[k];
+		}
+		for (int k = 0; k < NODES.length; k++) {
+			WEIGHTS[k] /= sum;
+		}
+	}
+
+	/* Private instance variables */
+
+	/** The value table of the optimal strategy, which takes the decisions without opponents */
+	private final YahtzeeStrategyTable table;
+
+	/** The rules the table was solved for */
+	private final YahtzeeRules rules;
+
+	/** The expected score of the rest of the game for every state */
+	private final FloatBuffer values;
+
+	/** The second moment of the score of the rest of the game for every state */
+	private final float[] moments;
+
+	/** The plans of the recent turns, the least recently used first; guarded by itself */
+	private final Map<Situation, Plan> plans;
+
+	/** The arrays each thread computes its plans in */
+	private final ThreadLocal<YahtzeeSolver.Workspace> workspaces = new ThreadLocal<YahtzeeSolver.Workspace>() {
+		protected YahtzeeSolver.Workspace initialValue() {
+			return new YahtzeeSolver.Workspace(rules);
+		}
+	};
+}
@@ -0,0 +1,103 @@
+/**
+ * File: YahtzeeBatchScorerTest.java
+ * ---------------------------------
+ * This file tests that the kernels of the batch scorer score the hands
+ * like YahtzeeScorer. The Vector API kernel is only tested when it is
+ * loaded, i.e. when the tests run with the module jdk.incubator.vector
+ * (see the "vector" profile of the build).
+ */
+
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import org.junit.Test;
+
+
+public class YahtzeeBatchScorerTest implements YahtzeeConstants {
+
+
+	/** The scalar kernel scores every hand of the standard dice like YahtzeeScorer. */
+	@Test
+	public void scalarKernelScoresLikeTheScorer() {
+		int[] counts = getStandardHands();
+		int[] scores = new int[N_SCORING_CATEGORIES * counts.length];
+		YahtzeeBatchScorer.SCALAR.getScores(counts, 0, counts.length, scores, 0, counts.length);
+		for (int i = 0; i < counts.length; i++) {
+			for (int k = 0; k < N_SCORING_CATEGORIES; k++) {
+				assertEquals(YahtzeeScorer.getScore(counts[i], YahtzeeScorer.toCategory(k)),
+							 scores[k * counts.length + i]);
+			}
+		}
+	}
+
+
+	/** The vector kernel scores every packed count like the scalar kernel, at any offsets. */
+	@Test
+	public void vectorKernelScoresLikeTheScalarKernel() {
+		assumeTrue(YahtzeeBatchScorer.isVectorized());
+		int[] counts = new int[FIRST + ALL_COUNTS + 7];
+		for (int i = 0; i < ALL_COUNTS; i++) {
+			counts[FIRST + i] = i;
+		}
+		int stride = ALL_COUNTS + 2 * POSITION;
+		int[] expected = new int[N_SCORING_CATEGORIES * stride];
+		int[] actual = new int[N_SCORING_CATEGORIES * stride];
+		YahtzeeBatchScorer.SCALAR.getScores(counts, FIRST, FIRST + ALL_COUNTS, expected, POSITION, stride);
+		YahtzeeBatchScorer.getKernel().getScores(counts, FIRST, FIRST + ALL_COUNTS, actual, POSITION, stride);
+		assertArrayEquals(expected, actual);
+	}
+
+
+	/** The rolls of a batch are counted and scored like the rolls one by one. */
+	@Test
+	public void batchOfRollsScoresLikeTheScorer() {
+		int nHands = 100000;
+		int[] dice = new int[nHands * N_DICE];
+		new YahtzeeDice(SEED).fill(dice, 0, dice.length);
+		int[] counts = new int[nHands];
+		YahtzeeBatchScorer.countFaces(dice, N_DICE, counts, nHands);
+		int[] scores = new int[N_SCORING_CATEGORIES * nHands];
+		YahtzeeBatchScorer.getScores(counts, 0, nHands, scores);
+		int[] hand = new int[N_DICE];
+		for (int i = 0; i < nHands; i++) {
+			System.arraycopy(dice, i * N_DICE, hand, 0, N_DICE);
+			for (int k = 0; k < N_SCORING_CATEGORIES; k++) {
+				assertEquals(YahtzeeScorer.getScore(hand, YahtzeeScorer.toCategory(k)), scores[k * nHands + i]);
+			}
+		}
+	}
+
+
+	/**
+	 * This method returns the packed face counts of every hand of N_DICE dice.
+	 *
+	 * @return 	int[]
+	 */
+	private static int[] getStandardHands() {
+		int[] hands = new int[ALL_COUNTS];
+		int n = 0;
+		for (int counts = 0; counts < ALL_COUNTS; counts++) {
+			int total = 0;
+			for (int face = 0; face < N_FACES; face++) {
+				total += (counts >>> (face * YahtzeeScorer.BITS_PER_FACE)) & ((1 << YahtzeeScorer.BITS_PER_FACE) - 1);
+			}
+			if (total == N_DICE)
+				hands[n++] = counts;
+		}
+		int[] standardHands = new int[n];
+		System.arraycopy(hands, 0, standardHands, 0, n);
+		return standardHands;
+	}
+
+
+	/** The number of packed face counts of N_FACES faces */
+	private static final int ALL_COUNTS = 1 << (N_FACES * YahtzeeScorer.BITS_PER_FACE);
+
+	/** The index of the first hand of a batch, and of its first score in a row */
+	private static final int FIRST = 3;
+	private static final int POSITION = 5;
+
+	/** The seed of the dice */
+	private static final long SEED = 7;
+}
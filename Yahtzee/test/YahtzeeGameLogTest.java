@@ -0,0 +1,94 @@
+/**
+ * File: YahtzeeGameLogTest.java
+ * -----------------------------
+ * This file tests that the games recorded in a log replay to the same scores.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+public class YahtzeeGameLogTest implements YahtzeeConstants {
+
+
+	/** The replay of a log finds every game with the scores it was played with. */
+	@Test
+	public void logRoundTrip() throws IOException {
+		File file = folder.newFile("games.log");
+		YahtzeeGameLog log = new YahtzeeGameLog(file);
+		YahtzeeDice random = new YahtzeeDice(SEED);
+		long totals = 0;
+		for (int i = 0; i < GAMES; i++) {
+			totals += playGame(log, random);
+		}
+		log.close();
+
+		YahtzeeReplay.Report report = YahtzeeReplay.replay(new File[] { file }, null);
+		assertEquals(GAMES, report.getGames());
+		assertEquals(0, report.getInvalidGames());
+		assertEquals(0, report.getScoreMismatches());
+		assertEquals(GAMES * PLAYERS, report.getStatistics().getGames());
+		assertEquals((double) totals / (GAMES * PLAYERS), report.getStatistics().getMeanScore(), 1e-9);
+	}
+
+
+	/**
+	 * This method plays a game through a recorder of the log: every player
+	 * rerolls the dice which are not ones, then fills the first category it can.
+	 *
+	 * @param 	log 		The log.
+	 * @param 	random 		The random dice.
+	 * @return 	long 		The sum of the final totals of the players.
+	 */
+	private static long playGame(YahtzeeGameLog log, YahtzeeDice random) {
+		final long[] totals = new long[1];
+		YahtzeeGameListener recorder = log.newRecorder(PLAYERS, new YahtzeeGameListener() {
+			public void turnStarted(int player) { }
+			public void diceRolled(int player, int[] dice, int rollsLeft) { }
+			public void dieSelected(int die, boolean selected) { }
+			public void categorySelected(int player, int category, int score, long playerState) { }
+			public void categoryRejected(int player, int category) { }
+			public void gameOver(long[] playerStates) {
+				for (long state : playerStates) {
+					totals[0] += YahtzeePlayerState.getTotal(state);
+				}
+			}
+		});
+		YahtzeeGame game = new YahtzeeGame(PLAYERS, YahtzeeRules.STANDARD, random, recorder);
+		game.start();
+		while (game.getPhase() != YahtzeeGame.Phase.GAME_OVER) {
+			game.roll();
+			if (game.getPhase() == YahtzeeGame.Phase.SELECTING_DICE) {
+				for (int die = 0; die < N_DICE; die++) {
+					if ((game.getDie(die) != 1) != game.isDieSelected(die))
+						game.toggleDie(die);
+				}
+			} else {
+				int category = ONES;
+				while (!game.selectCategory(category)) {
+					category++;
+				}
+			}
+		}
+		return totals[0];
+	}
+
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	/** The number of games of the log */
+	private static final int GAMES = 200;
+
+	/** The number of players of a game */
+	private static final int PLAYERS = 3;
+
+	/** The seed of the dice */
+	private static final long SEED = 5;
+}
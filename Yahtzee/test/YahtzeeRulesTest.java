@@ -0,0 +1,76 @@
+/**
+ * File: YahtzeeRulesTest.java
+ * ---------------------------
+ * This file tests the names of the rules, the joker and the Yahtzee bonus.
+ */
+
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+
+public class YahtzeeRulesTest implements YahtzeeConstants {
+
+
+	/** Every name toString returns names the same rules for forName. */
+	@Test
+	public void namesRoundTrip() {
+		for (YahtzeeRules.Joker joker : YahtzeeRules.Joker.values()) {
+			for (int bonus : new int[] { 0, 50, YahtzeeRules.OFFICIAL_YAHTZEE_BONUS }) {
+				YahtzeeRules rules = new YahtzeeRules(N_DICE, N_FACES, bonus, joker);
+				assertEquals(rules, YahtzeeRules.forName(rules.toString()));
+				YahtzeeRules dice = new YahtzeeRules(4, 5, bonus, joker);
+				assertEquals(dice, YahtzeeRules.forName(dice.toString()));
+			}
+		}
+		assertSame(YahtzeeRules.STANDARD, YahtzeeRules.forName("standard"));
+	}
+
+
+	/** An unknown name is rejected. */
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownNameIsRejected() {
+		YahtzeeRules.forName("bonus-50-joker-maybe");
+	}
+
+
+	/** With the forced joker a Yahtzee must fill its upper category while it is unused. */
+	@Test
+	public void forcedJokerFillsTheUpperCategoryFirst() {
+		YahtzeeRules official = YahtzeeRules.forName("official");
+		long state = YahtzeePlayerState.fill(YahtzeePlayerState.NEW_STATE, YAHTZEE, 50);
+		assertTrue(official.isAllowed(state, FOUR_FOURS_AND_A_FOUR, FOURS));
+		assertFalse(official.isAllowed(state, FOUR_FOURS_AND_A_FOUR, FULL_HOUSE));
+		assertTrue(YahtzeeRules.forName("free-joker").isAllowed(state, FOUR_FOURS_AND_A_FOUR, FULL_HOUSE));
+	}
+
+
+	/** A joker scores the full lower categories, and a second Yahtzee earns the bonus. */
+	@Test
+	public void jokerScoresAndBonus() {
+		YahtzeeRules official = YahtzeeRules.forName("official");
+		long state = YahtzeePlayerState.fill(YahtzeePlayerState.NEW_STATE, YAHTZEE, 50);
+		state = YahtzeePlayerState.fill(state, FOURS, 12);
+		assertEquals(25, official.getScore(state, FOUR_FOURS_AND_A_FOUR, FULL_HOUSE));
+		assertEquals(40, official.getScore(state, FOUR_FOURS_AND_A_FOUR, LARGE_STRAIGHT));
+		assertEquals(0, YahtzeeRules.STANDARD.getScore(state, FOUR_FOURS_AND_A_FOUR, FULL_HOUSE));
+		long next = official.fill(state, FOUR_FOURS_AND_A_FOUR, FULL_HOUSE);
+		assertEquals(25 + YahtzeeRules.OFFICIAL_YAHTZEE_BONUS,
+					 YahtzeePlayerState.getTotal(next) - YahtzeePlayerState.getTotal(state));
+	}
+
+
+	/** A Yahtzee category filled with 0 earns no bonus. */
+	@Test
+	public void noBonusAfterAZeroYahtzee() {
+		YahtzeeRules official = YahtzeeRules.forName("official");
+		long state = YahtzeePlayerState.fill(YahtzeePlayerState.NEW_STATE, YAHTZEE, 0);
+		long next = official.fill(state, FOUR_FOURS_AND_A_FOUR, FOURS);
+		assertEquals(20, YahtzeePlayerState.getTotal(next) - YahtzeePlayerState.getTotal(state));
+	}
+
+
+	/** A Yahtzee of fours */
+	private static final int[] FOUR_FOURS_AND_A_FOUR = { 4, 4, 4, 4, 4 };
+}
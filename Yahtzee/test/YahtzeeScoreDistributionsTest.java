@@ -0,0 +1,78 @@
+/**
+ * File: YahtzeeScoreDistributionsTest.java
+ * ----------------------------------------
+ * This file tests that the score distributions agree with the value table
+ * they are computed for. The rules have five dice of four faces, whose
+ * distributions are solved in a few seconds.
+ */
+
+
+import static org.junit.Assert.*;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+
+public class YahtzeeScoreDistributionsTest implements YahtzeeConstants {
+
+
+	/** Solves the value table and the distributions once for all the tests. */
+	@BeforeClass
+	public static void solve() {
+		table = new YahtzeeStrategyTable(RULES, YahtzeeSolver.solve(RULES));
+		distributions = YahtzeeScoreDistributions.solve(table);
+	}
+
+
+	/** The mean final total of a state is the total so far plus the value of the state. */
+	@Test
+	public void meanIsTheValue() {
+		for (long state : getStates()) {
+			assertEquals(YahtzeePlayerState.getTotal(state) + table.getExpectedScore(state),
+						 distributions.getMean(state), TOLERANCE);
+		}
+	}
+
+
+	/** The probabilities of a distribution add up to one, between its lowest and highest totals. */
+	@Test
+	public void probabilitiesAddUpToOne() {
+		for (long state : getStates()) {
+			double[] probabilities = new double[distributions.getHighestTotal(state) + 1];
+			distributions.getDistribution(state, probabilities);
+			double sum = 0;
+			for (int total = 0; total < probabilities.length; total++) {
+				assertTrue(total >= distributions.getLowestTotal(state) || probabilities[total] == 0);
+				sum += probabilities[total];
+			}
+			assertEquals(1, sum, 1e-5);
+		}
+	}
+
+
+	/**
+	 * This method returns states of a player: the start of the game, and
+	 * states with some categories filled.
+	 *
+	 * @return 	long[]
+	 */
+	private static long[] getStates() {
+		long ones = YahtzeePlayerState.fill(YahtzeePlayerState.NEW_STATE, ONES, 3);
+		long yahtzee = YahtzeePlayerState.fill(ones, YAHTZEE, 50);
+		long lower = YahtzeePlayerState.fill(YahtzeePlayerState.fill(yahtzee, CHANCE, 14), FULL_HOUSE, 0);
+		return new long[] { YahtzeePlayerState.NEW_STATE, ones, yahtzee, lower };
+	}
+
+
+	/** The rules of the tests */
+	private static final YahtzeeRules RULES = YahtzeeRules.forName("standard,5d4");
+
+	/** The largest difference between a mean and a value, which comes from the 16 bits of a probability */
+	private static final double TOLERANCE = 1e-2;
+
+	/** The value table of the rules */
+	private static YahtzeeStrategyTable table;
+
+	/** The distributions of the value table */
+	private static YahtzeeScoreDistributions distributions;
+}
@@ -0,0 +1,76 @@
+/**
+ * File: YahtzeeServerTest.java
+ * ----------------------------
+ * This file tests the replies of the server to the commands of its front end.
+ */
+
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class YahtzeeServerTest implements YahtzeeConstants {
+
+
+	/** Opens a table of one player for every test. */
+	@Before
+	public void open() {
+		server = new YahtzeeServer();
+		String reply = server.execute("OPEN 1 5");
+		assertTrue(reply, reply.startsWith("OK table=1 phase=ROLLING round=1 player=1"));
+	}
+
+
+	/** A player rolls, holds dice and rerolls. */
+	@Test
+	public void rollAndHold() {
+		assertTrue(server.execute("ROLL 1 1").startsWith("OK table=1 phase=SELECTING_DICE"));
+		String reply = server.execute("HOLD 1 1 10100");
+		assertTrue(reply, reply.startsWith("OK ") && reply.contains(" held=10100 "));
+		assertTrue(server.execute("ROLL 1 1").contains(" rolls=1 "));
+		assertTrue(server.execute("ROLL 1 1").contains(" phase=SELECTING_CATEGORY "));
+		assertTrue(server.execute("CATEGORY 1 1 " + CHANCE).contains(" round=2 "));
+	}
+
+
+	/** The actions which the game does not allow are refused with the status of the table. */
+	@Test
+	public void refusedActions() {
+		String reply = server.execute("ROLL 1 2");
+		assertTrue(reply, reply.startsWith("ERROR ") && reply.contains(" table=1 phase=ROLLING "));
+		server.execute("ROLL 1 1");
+		reply = server.execute("CATEGORY 1 1 " + CHANCE);
+		assertTrue(reply, reply.startsWith("ERROR ") && reply.contains(" phase=SELECTING_DICE "));
+		assertTrue(server.execute("BOGUS").startsWith("ERROR "));
+	}
+
+
+	/** A closed table is removed. */
+	@Test
+	public void closeTable() {
+		assertEquals("OK closed", server.execute("CLOSE 1"));
+		assertTrue(server.execute("STATUS 1").startsWith("ERROR "));
+		assertEquals(0, server.getTableCount());
+	}
+
+
+	/** A table is removed once its game is over. */
+	@Test
+	public void tableClosesWhenTheGameIsOver() {
+		for (int round = 0; round < N_SCORING_CATEGORIES; round++) {
+			for (int roll = 0; roll <= N_CHANCES; roll++) {
+				assertTrue(server.execute("ROLL 1 1").startsWith("OK "));
+			}
+			for (int category = ONES; !server.execute("CATEGORY 1 1 " + category).startsWith("OK "); category++) { }
+		}
+		assertEquals(0, server.getTableCount());
+	}
+
+
+	/* Private instance variables */
+
+	/** The server of the tests */
+	private YahtzeeServer server;
+}
@@ -0,0 +1,143 @@
+/**
+ * File: YahtzeeSnapshotTest.java
+ * ------------------------------
+ * This file tests that a saved game resumes in the state it was saved in.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+public class YahtzeeSnapshotTest implements YahtzeeConstants {
+
+
+	/** A game saved in the middle of a turn resumes with the same state and names. */
+	@Test
+	public void snapshotRoundTrip() throws IOException {
+		YahtzeeGame game = playSomeTurns();
+		File file = folder.newFile("snapshot.bin");
+		YahtzeeSnapshot.write(file, game, NAMES);
+		assertEquals(YahtzeeSnapshot.getSnapshotBytes(NAMES.length), file.length());
+
+		YahtzeeSnapshot snapshot = YahtzeeSnapshot.read(file);
+		YahtzeeGame resumed = snapshot.resume(YahtzeeRules.STANDARD, new YahtzeeDice(SEED), new QuietListener());
+		assertEquals(stateOf(game), stateOf(resumed));
+		assertEquals(YahtzeeGame.Phase.SELECTING_DICE, resumed.getPhase());
+		assertTrue(resumed.isDieSelected(2));
+		assertArrayEquals(new String[] { "Ann", "Émile", "A name much longer than thirty-" }, snapshot.getPlayerNames());
+	}
+
+
+	/** A snapshot of the standard rules does not resume a game of other rules. */
+	@Test(expected = IllegalArgumentException.class)
+	public void otherRulesAreRejected() throws IOException {
+		File file = folder.newFile("snapshot.bin");
+		YahtzeeSnapshot.write(file, playSomeTurns(), NAMES);
+		YahtzeeSnapshot.read(file).resume(YahtzeeRules.forName("official"), new YahtzeeDice(SEED), new QuietListener());
+	}
+
+
+	/** A truncated snapshot is not read. */
+	@Test(expected = IOException.class)
+	public void truncatedSnapshotIsRejected() throws IOException {
+		File file = folder.newFile("snapshot.bin");
+		YahtzeeSnapshot.write(file, playSomeTurns(), NAMES);
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		try {
+			out.setLength(file.length() - 1);
+		} finally {
+			out.close();
+		}
+		YahtzeeSnapshot.read(file);
+	}
+
+
+	/** The writer writes the latest snapshot, and a delete is not undone by the pending writes. */
+	@Test
+	public void writerSavesThenDeletes() throws Exception {
+		File file = new File(folder.getRoot(), "snapshot.bin");
+		YahtzeeGame game = playSomeTurns();
+		YahtzeeSnapshot.Writer writer = new YahtzeeSnapshot.Writer(file);
+		writer.save(YahtzeeSnapshot.encode(game, NAMES));
+		for (int i = 0; i < 500 && !file.exists(); i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(stateOf(game), stateOf(YahtzeeSnapshot.read(file).resume(YahtzeeRules.STANDARD,
+							new YahtzeeDice(SEED), new QuietListener())));
+
+		for (int i = 0; i < 100; i++) {
+			writer.save(YahtzeeSnapshot.encode(game, NAMES));
+		}
+		writer.delete();
+		for (int i = 0; i < 500 && file.exists(); i++) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(50);
+		assertFalse(file.exists());
+	}
+
+
+	/**
+	 * This method returns a game of three players in the second turn of the
+	 * second player, with a die selected.
+	 *
+	 * @return 	YahtzeeGame
+	 */
+	private static YahtzeeGame playSomeTurns() {
+		YahtzeeGame game = new YahtzeeGame(NAMES.length, YahtzeeRules.STANDARD, new YahtzeeDice(SEED),
+										   new QuietListener());
+		game.start();
+		for (int player = 0; player < NAMES.length + 1; player++) {
+			for (int roll = 0; roll <= N_CHANCES; roll++) {
+				game.roll();
+			}
+			assertTrue(game.selectCategory(player == 0 ? ONES : CHANCE));
+		}
+		game.roll();
+		game.toggleDie(2);
+		return game;
+	}
+
+
+	/**
+	 * This method returns the state of a game(see YahtzeeGame.writeState).
+	 *
+	 * @param 	game 		The game.
+	 * @return 	ByteBuffer
+	 */
+	private static ByteBuffer stateOf(YahtzeeGame game) {
+		ByteBuffer state = ByteBuffer.allocate(YahtzeeGame.getStateBytes(game.getPlayerCount()));
+		game.writeState(state);
+		state.flip();
+		return state;
+	}
+
+
+	/** A listener which ignores the events of the game. */
+	private static class QuietListener implements YahtzeeGameListener {
+		public void turnStarted(int player) { }
+		public void diceRolled(int player, int[] dice, int rollsLeft) { }
+		public void dieSelected(int die, boolean selected) { }
+		public void categorySelected(int player, int category, int score, long playerState) { }
+		public void categoryRejected(int player, int category) { }
+		public void gameOver(long[] playerStates) { }
+	}
+
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	/** The names of the players, the last one longer than a snapshot holds */
+	private static final String[] NAMES = { "Ann", "Émile", "A name much longer than thirty-one bytes" };
+
+	/** The seed of the dice */
+	private static final long SEED = 3;
+}
@@ -0,0 +1,84 @@
+/**
+ * File: YahtzeeSolverTest.java
+ * ----------------------------
+ * This file tests the value table of the solver and its file format.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+public class YahtzeeSolverTest implements YahtzeeConstants {
+
+
+	/** Solves the standard rules once for all the tests. */
+	@BeforeClass
+	public static void solve() {
+		values = YahtzeeSolver.solve(YahtzeeRules.STANDARD);
+	}
+
+
+	/** The expected score of a whole game of the standard rules is the known 245.87. */
+	@Test
+	public void startValueOfTheStandardRules() {
+		assertEquals(245.87077, values[YahtzeeSolver.stateIndex(0, 0)], 1e-4);
+	}
+
+
+	/** Nothing is left to score once every category is used. */
+	@Test
+	public void valueOfTheLastStates() {
+		int allCategories = (1 << N_SCORING_CATEGORIES) - 1;
+		assertEquals(0, values[YahtzeeSolver.stateIndex(allCategories, 0)], 0);
+		assertEquals(0, values[YahtzeeSolver.stateIndex(allCategories, YahtzeeSolver.UPPER_SCORE_CAP)], 0);
+	}
+
+
+	/** A table read back from its file is the table which was written, and no temporary file is left. */
+	@Test
+	public void valuesRoundTrip() throws IOException {
+		File file = folder.newFile("values.bin");
+		YahtzeeSolver.writeValues(YahtzeeRules.STANDARD, values, file);
+		assertArrayEquals(values, YahtzeeSolver.readValues(YahtzeeRules.STANDARD, file), 0);
+		assertEquals(1, folder.getRoot().list().length);
+	}
+
+
+	/** A truncated table is not read. */
+	@Test(expected = IOException.class)
+	public void truncatedValuesAreRejected() throws IOException {
+		File file = folder.newFile("values.bin");
+		YahtzeeSolver.writeValues(YahtzeeRules.STANDARD, values, file);
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		try {
+			out.setLength(file.length() / 2);
+		} finally {
+			out.close();
+		}
+		YahtzeeSolver.readValues(YahtzeeRules.STANDARD, file);
+	}
+
+
+	/** A table of other rules is not read. */
+	@Test(expected = IOException.class)
+	public void valuesOfOtherRulesAreRejected() throws IOException {
+		File file = folder.newFile("values.bin");
+		YahtzeeSolver.writeValues(YahtzeeRules.STANDARD, values, file);
+		YahtzeeSolver.readValues(YahtzeeRules.forName("official"), file);
+	}
+
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	/** The value table of the standard rules */
+	private static float[] values;
+}
@@ -0,0 +1,73 @@
+/**
+ * File: BenchmarksTest.java
+ * -------------------------
+ * This file runs every benchmark once, without JMH. The benchmarks reach
+ * the game through method handles looked up by name(see GameHandles), so
+ * a change of the game breaks them only when they run; this test makes
+ * the build catch it.
+ */
+
+package yahtzee.benchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+
+public class BenchmarksTest {
+
+
+	/** The method handles find the methods of the game. */
+	@Test
+	public void handlesFindTheGame() throws ClassNotFoundException {
+		Class.forName(GameHandles.class.getName(), true, GameHandles.class.getClassLoader());
+	}
+
+
+	/** Every benchmark sets up and runs once. */
+	@Test
+	public void benchmarksRun() throws Throwable {
+		for (Class<?> benchmark : BENCHMARKS) {
+			Object state = benchmark.getConstructor().newInstance();
+			for (Field field : benchmark.getFields()) {
+				Param param = field.getAnnotation(Param.class);
+				if (param != null)
+					field.set(state, param.value()[0]);
+			}
+			invokeAnnotated(state, Setup.class);
+			invokeAnnotated(state, Benchmark.class);
+		}
+	}
+
+
+	/**
+	 * This method invokes the methods of a benchmark which have an annotation.
+	 *
+	 * @param 	state 		The benchmark.
+	 * @param 	annotation 	The annotation, e.g. Benchmark.
+	 */
+	private static void invokeAnnotated(Object state, Class<? extends java.lang.annotation.Annotation> annotation)
+			throws Throwable {
+		for (Method method : state.getClass().getMethods()) {
+			if (method.isAnnotationPresent(annotation)) {
+				try {
+					method.invoke(state);
+				} catch (InvocationTargetException e) {
+					throw new AssertionError(state.getClass().getSimpleName() + "." + method.getName() + " failed",
+											 e.getCause());
+				}
+			}
+		}
+	}
+
+
+	/** The benchmarks of the benchmarks.jar */
+	private static final Class<?>[] BENCHMARKS = {
+		BatchScoringBenchmark.class, GameBenchmark.class, RollingBenchmark.class, ScoringBenchmark.class
+	};
+}
@@ -0,0 +1,86 @@
+/**
+ * File: YahtzeeVectorScorer.java
+ * ------------------------------
+ * This file is the Vector API kernel of YahtzeeBatchScorer. It scores as
+ * many hands per instruction as the preferred vector of ints holds(e.g. 8
+ * with AVX2): the counts of the faces are shifted out of the packed hands
+ * lane by lane, and each category is a comparison and a blend, without
+ * any branch. The hands after the last full vector are scored by the
+ * scalar kernel.
+ *
+ * It needs Java 16 or later and the module jdk.incubator.vector, so it is
+ * built apart from the rest of the game by the "vector" profile, and
+ * YahtzeeBatchScorer only loads it by name.
+ */
+
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+
+public final class YahtzeeVectorScorer implements YahtzeeConstants, YahtzeeBatchScorer.Kernel {
+
+
+	public void getScores(int[] counts, int from, int to, int[] scores, int position, int stride) {
+		int end = from + SPECIES.loopBound(to - from);
+		IntVector zero = IntVector.zero(SPECIES);
+		int i = from;
+		for (; i < end; i += SPECIES.length()) {
+			int out = position + (i - from);
+			IntVector hand = IntVector.fromArray(SPECIES, counts, i);
+			IntVector sum = zero;
+			IntVector total = zero;
+			IntVector max = zero;
+			IntVector present = zero;
+			VectorMask<Integer> pair = SPECIES.maskAll(false);
+			VectorMask<Integer> triple = SPECIES.maskAll(false);
+			for (int face = 1; face <= N_FACES; face++) {
+				IntVector count = hand.lanewise(VectorOperators.LSHR, (face - 1) * YahtzeeScorer.BITS_PER_FACE)
+									  .and(YahtzeeBatchScorer.FACE_MASK);
+				IntVector upper = count.mul(face);
+				upper.intoArray(scores, (face - 1) * stride + out);
+				sum = sum.add(upper);
+				total = total.add(count);
+				max = max.max(count);
+				present = present.or(zero.blend(1 << (face - 1), count.compare(VectorOperators.GT, 0)));
+				pair = pair.or(count.compare(VectorOperators.EQ, 2));
+				triple = triple.or(count.compare(VectorOperators.EQ, 3));
+			}
+			zero.blend(sum, max.compare(VectorOperators.GE, 3))
+				.intoArray(scores, YahtzeeBatchScorer.THREE_OF_A_KIND_ROW * stride + out);
+			zero.blend(sum, max.compare(VectorOperators.GE, 4))
+				.intoArray(scores, YahtzeeBatchScorer.FOUR_OF_A_KIND_ROW * stride + out);
+			zero.blend(FULL_HOUSE_SCORE, pair.and(triple))
+				.intoArray(scores, YahtzeeBatchScorer.FULL_HOUSE_ROW * stride + out);
+			zero.blend(SMALL_STRAIGHT_SCORE, hasAll(present, YahtzeeBatchScorer.SMALL_1234)
+												 .or(hasAll(present, YahtzeeBatchScorer.SMALL_2345))
+												 .or(hasAll(present, YahtzeeBatchScorer.SMALL_3456)))
+				.intoArray(scores, YahtzeeBatchScorer.SMALL_STRAIGHT_ROW * stride + out);
+			zero.blend(LARGE_STRAIGHT_SCORE, hasAll(present, YahtzeeBatchScorer.LARGE_12345)
+												 .or(hasAll(present, YahtzeeBatchScorer.LARGE_23456)))
+				.intoArray(scores, YahtzeeBatchScorer.LARGE_STRAIGHT_ROW * stride + out);
+			zero.blend(YAHTZEE_SCORE, max.compare(VectorOperators.EQ, total))
+				.intoArray(scores, YahtzeeBatchScorer.YAHTZEE_ROW * stride + out);
+			sum.intoArray(scores, YahtzeeBatchScorer.CHANCE_ROW * stride + out);
+		}
+		YahtzeeBatchScorer.SCALAR.getScores(counts, i, to, scores, position + (i - from), stride);
+	}
+
+
+	/**
+	 * This method returns the lanes whose faces present include all the faces of a set.
+	 *
+	 * @param 	present 		The faces present of each hand, bit (f - 1) for the face "f".
+	 * @param 	faces 			An int, the set of faces.
+	 * @return 	VectorMask
+	 */
+	private static VectorMask<Integer> hasAll(IntVector present, int faces) {
+		return present.and(faces).compare(VectorOperators.EQ, faces);
+	}
+
+
+	/** The preferred shape of a vector of ints on this machine */
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+}